@@ -14,6 +14,7 @@
  */
 package io.machinecode.then.api;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 
 /**
@@ -122,4 +123,24 @@ public interface Deferred<T,F,P> extends OnResolve<T>, OnReject<F>, OnProgress<P
      * {@inheritDoc}
      */
     Deferred<T,F,P> onGet(final Future<?> then);
+
+    /**
+     * {@inheritDoc}
+     */
+    Deferred<T,F,P> onResolve(final Executor executor, final OnResolve<? super T> then);
+
+    /**
+     * {@inheritDoc}
+     */
+    Deferred<T,F,P> onReject(final Executor executor, final OnReject<? super F> then);
+
+    /**
+     * {@inheritDoc}
+     */
+    Deferred<T,F,P> onComplete(final Executor executor, final OnComplete then);
+
+    /**
+     * {@inheritDoc}
+     */
+    Deferred<T,F,P> onProgress(final Executor executor, final OnProgress<? super P> then);
 }
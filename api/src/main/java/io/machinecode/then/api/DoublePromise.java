@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.api;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>A {@link Promise} of a {@code double} that allows listeners and processors to receive the value without it
+ * being boxed. Listeners registered through the methods inherited from {@link Promise} will receive the
+ * boxed value.</p>
+ *
+ * @see DoubleDeferred
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public interface DoublePromise<F,P> extends Promise<Double,F,P> {
+
+    /**
+     * <p>Triggered when {@link DoubleDeferred#resolve(double)} is the first terminal method called.</p>
+     *
+     * @param then Callback to be executed
+     * @return This instance for method chaining.
+     * @see #onResolve(OnResolve)
+     */
+    DoublePromise<F,P> onResolveDouble(final OnDoubleResolve then);
+
+    /**
+     * @return The resolved value.
+     * @throws InterruptedException If the calling thread was interrupted while waiting.
+     * @throws ExecutionException If this promise was rejected.
+     * @throws java.util.concurrent.CancellationException If this promise was cancelled.
+     * @see #get()
+     */
+    double getDouble() throws InterruptedException, ExecutionException;
+
+    /**
+     * @param timeout The maximum time to wait.
+     * @param unit The unit of {@code timeout}.
+     * @return The resolved value.
+     * @throws InterruptedException If the calling thread was interrupted while waiting.
+     * @throws ExecutionException If this promise was rejected.
+     * @throws TimeoutException If this promise did not reach a terminal state in time.
+     * @throws java.util.concurrent.CancellationException If this promise was cancelled.
+     * @see #get(long, TimeUnit)
+     */
+    double getDouble(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException;
+
+    /**
+     * <p>As {@link #then(Resolve)} for a processor producing an {@code int}.</p>
+     *
+     * @param then A processor to convert the resolved value to an {@code int}.
+     * @return A new promise of an {@code int}.
+     */
+    IntPromise<F,P> thenInt(final DoubleResolve<? super IntDeferred<F,P>> then);
+
+    /**
+     * <p>As {@link #then(Resolve)} for a processor producing a {@code long}.</p>
+     *
+     * @param then A processor to convert the resolved value to a {@code long}.
+     * @return A new promise of a {@code long}.
+     */
+    LongPromise<F,P> thenLong(final DoubleResolve<? super LongDeferred<F,P>> then);
+
+    /**
+     * <p>As {@link #then(Resolve)} for a processor producing a {@code double}.</p>
+     *
+     * @param then A processor to convert the resolved value to a {@code double}.
+     * @return A new promise of a {@code double}.
+     */
+    DoublePromise<F,P> thenDouble(final DoubleResolve<? super DoubleDeferred<F,P>> then);
+
+    /**
+     * <p>As {@link #then(Resolve)} for a processor that receives the resolved value without it being boxed.</p>
+     *
+     * @param then A processor to convert the resolved value to type {@code Tx}.
+     * @param <Tx> Type of the new promise {@link Deferred#resolve(Object)}.
+     * @return A new promise with resolved type {@code Tx}.
+     */
+    <Tx> Promise<Tx,F,P> thenObject(final DoubleResolve<? super Deferred<Tx,F,P>> then);
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.api;
+
+/**
+ * <p>A {@link Deferred} of a {@code int} that can be resolved without boxing the value.</p>
+ *
+ * @see IntPromise
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public interface IntDeferred<F,P> extends Deferred<Integer,F,P>, IntPromise<F,P> {
+
+    /**
+     * @return A promise which will have it's listeners invoked when this Deferred reaches a terminal state.
+     */
+    @Override
+    IntPromise<F,P> promise();
+
+    /**
+     * <p>As {@link #resolve(Object)} without boxing {@code that}.</p>
+     *
+     * @param that The result of the computation.
+     * @throws ListenerException MAY be thrown if a listener throws an exception.
+     * @throws ResolvedException MAY be thrown by an implementation if resolve has previously called.
+     * @throws RejectedException MAY be thrown by an implementation if {@link #reject(Object)} has previously called.
+     * @throws CancelledException MAY be thrown by an implementation if {@link #cancel(boolean)} has previously called.
+     */
+    void resolve(final int that) throws ListenerException, ResolvedException, RejectedException, CancelledException;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    IntDeferred<F,P> onResolveInt(final OnIntResolve then);
+}
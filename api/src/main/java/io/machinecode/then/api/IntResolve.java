@@ -0,0 +1,40 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.api;
+
+/**
+ * <p>A processor that receives the resolved value of a {@link IntPromise} without boxing it.</p>
+ *
+ * <p>The type of {@code next} decides the type of promise returned by the {@code then} method this is passed to,
+ * one of {@link IntDeferred}, {@link LongDeferred}, {@link DoubleDeferred} or {@link Deferred}.</p>
+ *
+ * @see IntPromise#thenInt(IntResolve)
+ * @see IntPromise#thenLong(IntResolve)
+ * @see IntPromise#thenDouble(IntResolve)
+ * @see IntPromise#thenObject(IntResolve)
+ * @see Resolve
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public interface IntResolve<D> {
+
+    /**
+     * <p>The caller MUST ensure that one of the terminal methods is called on the {@code next} parameter.</p>
+     *
+     * @param that The resolved value of the original {@link IntPromise}.
+     * @param next A {@link Deferred} that controls the state of the returned promise.
+     */
+    void resolve(final int that, final D next);
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.api;
+
+import java.util.concurrent.Executor;
+
+/**
+ * <p>Builds a chain of stages following a {@link Promise}. Consecutive stages added with
+ * {@link #map(Transform)} are fused and run one after the other by a single listener, a promise is only
+ * created for them when {@link #promise()} is called or an asynchronous stage is added with
+ * {@link #then(Resolve)}.</p>
+ *
+ * <p>Rejection, cancellation and progress of the promise the pipeline follows MUST be forwarded to the
+ * promise returned from {@link #promise()} as they would be by {@link Promise#then(Resolve)}.</p>
+ *
+ * @see Promise#pipeline()
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public interface Pipeline<T,F,P> {
+
+    /**
+     * <p>Add a synchronous stage. If {@code then} throws an exception it is handled as if it was thrown by a
+     * {@link Resolve} passed to {@link Promise#then(Resolve)}.</p>
+     *
+     * @param then A function converting the resolved value from type {@code T} to type {@code Tx}.
+     * @param <Tx> Type the stage resolves to.
+     * @return A pipeline ending with the new stage.
+     */
+    <Tx> Pipeline<Tx,F,P> map(final Transform<? super T,? extends Tx> then);
+
+    /**
+     * <p>Add an asynchronous stage. The pipeline up to this point is materialized with {@link #promise()}.</p>
+     *
+     * @param then A processor to convert the resolved value from type {@code T} to type {@code Tx}.
+     * @param <Tx> Type the stage resolves to.
+     * @return A pipeline ending with the new stage.
+     * @see Promise#then(Resolve)
+     */
+    <Tx> Pipeline<Tx,F,P> then(final Resolve<? super T,Tx,F,P> then);
+
+    /**
+     * <p>As {@link #then(Resolve)} however {@code then} will be run by {@code executor}.</p>
+     *
+     * @param executor The executor to run the processor.
+     * @param then A processor to convert the resolved value from type {@code T} to type {@code Tx}.
+     * @param <Tx> Type the stage resolves to.
+     * @return A pipeline ending with the new stage.
+     * @see Promise#then(Executor, Resolve)
+     */
+    <Tx> Pipeline<Tx,F,P> then(final Executor executor, final Resolve<? super T,Tx,F,P> then);
+
+    /**
+     * <p>Repeated calls MUST return the same promise and stages that have been materialized MUST NOT
+     * be run again by pipelines built from this one.</p>
+     *
+     * @return A promise that will be resolved with the result of the last stage of this pipeline.
+     */
+    Promise<T,F,P> promise();
+}
@@ -14,7 +14,9 @@
  */
 package io.machinecode.then.api;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>A read-only representation of a {@link Deferred} allowing listeners to be notified of state changes, though
@@ -110,6 +112,59 @@ public interface Promise<T,F,P> extends OnCancel, Future<T> {
      */
     Promise<T,F,P> onProgress(final OnProgress<? super P> then);
 
+    /**
+     * <p>Triggered when {@link Deferred#resolve(Object)} is the first terminal method called. The callback will
+     * be run by {@code executor} rather than by the thread that called the terminal method.</p>
+     *
+     * <p>Callbacks registered with the same executor SHOULD be submitted to it together in a single task.</p>
+     *
+     * @param executor The executor to run the callback.
+     * @param then Callback to be executed
+     * @return This instance for method chaining.
+     * @see #onResolve(OnResolve)
+     */
+    Promise<T,F,P> onResolve(final Executor executor, final OnResolve<? super T> then);
+
+    /**
+     * <p>Triggered when {@link Deferred#reject(Object)} is the first terminal method called. The callback will
+     * be run by {@code executor} rather than by the thread that called the terminal method.</p>
+     *
+     * <p>Callbacks registered with the same executor SHOULD be submitted to it together in a single task.</p>
+     *
+     * @param executor The executor to run the callback.
+     * @param then Callback to be executed
+     * @return This instance for method chaining.
+     * @see #onReject(OnReject)
+     */
+    Promise<T,F,P> onReject(final Executor executor, final OnReject<? super F> then);
+
+    /**
+     * <p>Triggered on any event after which {@link #isDone()} will return {@code true}. The callback will
+     * be run by {@code executor} rather than by the thread that called the terminal method.</p>
+     *
+     * <p>Callbacks registered with the same executor SHOULD be submitted to it together in a single task.</p>
+     *
+     * @param executor The executor to run the callback.
+     * @param then Callback to be executed
+     * @return This instance for method chaining.
+     * @see #onComplete(OnComplete)
+     */
+    Promise<T,F,P> onComplete(final Executor executor, final OnComplete then);
+
+    /**
+     * <p>Triggered when {@link Deferred#progress(Object)} is called. The callback will be run by
+     * {@code executor} rather than by the thread that called {@link Deferred#progress(Object)}.</p>
+     *
+     * <p>Callbacks registered with the same executor SHOULD be submitted to it together in a single task
+     * for each call to {@link Deferred#progress(Object)}.</p>
+     *
+     * @param executor The executor to run the callback.
+     * @param then Callback to be executed
+     * @return This instance for method chaining.
+     * @see #onProgress(OnProgress)
+     */
+    Promise<T,F,P> onProgress(final Executor executor, final OnProgress<? super P> then);
+
     /**
      * <p>Triggered when {@link #get(long, java.util.concurrent.TimeUnit)} or {@link #get()} is called.
      * It will be called after this promise has transitioned into a state
@@ -178,4 +233,79 @@ public interface Promise<T,F,P> extends OnCancel, Future<T> {
      * @see Progress
      */
     <Tx,Fx,Px> Promise<Tx,Fx,Px> then(final Progress<? super T,? super F,? super P,Tx,Fx,Px> then);
+
+    /**
+     * <p>As {@link #then(Resolve)} however {@link Resolve#resolve(Object, Deferred)} will be run by
+     * {@code executor}.</p>
+     *
+     * @param executor The executor to run the processor.
+     * @param then A processor to convert the resolved value from type {@code T} to type {@code Tx}.
+     * @param <Tx> Type of the new promise {@link Deferred#resolve(Object)}.
+     * @return A new promise with resolved type {@code Tx}.
+     * @see #then(Resolve)
+     */
+    <Tx> Promise<Tx,F,P> then(final Executor executor, final Resolve<? super T,Tx,F,P> then);
+
+    /**
+     * <p>As {@link #then(Reject)} however the methods of {@code then} will be run by {@code executor}.</p>
+     *
+     * @param executor The executor to run the processor.
+     * @param then A processor to convert a resolved value from type {@code T} to type {@code Tx} or
+     *             rejected value from {@code F} to {@code Fx}.
+     * @param <Tx> Type of the new promise {@link Deferred#resolve(Object)}.
+     * @param <Fx> Type of the new promise {@link Deferred#reject(Object)}.
+     * @return A new promise with resolved type {@code Tx} and rejected type {@code Fx}.
+     * @see #then(Reject)
+     */
+    <Tx,Fx> Promise<Tx,Fx,P> then(final Executor executor, final Reject<? super T,? super F,Tx,Fx,P> then);
+
+    /**
+     * <p>As {@link #then(Progress)} however the methods of {@code then} will be run by {@code executor}.</p>
+     *
+     * @param executor The executor to run the processor.
+     * @param then A processor to convert a resolved value from type {@code T} to type {@code Tx}, rejected
+     *             value from {@code F} to {@code Fx} or progress value from {@code P} to {@code Px}.
+     * @param <Tx> Type of the new promise {@link Deferred#resolve(Object)}.
+     * @param <Fx> Type of the new promise {@link Deferred#reject(Object)}.
+     * @param <Px> Type of the new promise {@link Deferred#progress(Object)}.
+     * @return A new promise with resolved type {@code Tx}, rejected type {@code Fx} and progress type {@code Px}.
+     * @see #then(Progress)
+     */
+    <Tx,Fx,Px> Promise<Tx,Fx,Px> then(final Executor executor, final Progress<? super T,? super F,? super P,Tx,Fx,Px> then);
+
+    /**
+     * <p>Return a new promise that will reach the same terminal state as this promise unless it has not done so
+     * before {@code timeout} has elapsed, in which case the new promise will be rejected with {@code failure}.
+     * This promise is not cancelled when the timeout elapses.</p>
+     *
+     * <p>Progress events from this promise MUST be forwarded to the new promise. An implementation SHOULD stop
+     * tracking the timeout as soon as the new promise reaches a terminal state.</p>
+     *
+     * @param timeout How long to wait for this promise.
+     * @param unit The unit of {@code timeout}.
+     * @param failure The value the new promise will be rejected with if {@code timeout} elapses.
+     * @return A new promise that will be rejected if this promise is not done in time.
+     */
+    Promise<T,F,P> orTimeout(final long timeout, final TimeUnit unit, final F failure);
+
+    /**
+     * <p>As {@link #orTimeout(long, TimeUnit, Object)} however the new promise will be resolved with
+     * {@code value} if {@code timeout} elapses.</p>
+     *
+     * @param value The value the new promise will be resolved with if {@code timeout} elapses.
+     * @param timeout How long to wait for this promise.
+     * @param unit The unit of {@code timeout}.
+     * @return A new promise that will be resolved with {@code value} if this promise is not done in time.
+     * @see #orTimeout(long, TimeUnit, Object)
+     */
+    Promise<T,F,P> completeOnTimeout(final T value, final long timeout, final TimeUnit unit);
+
+    /**
+     * <p>Start a {@link Pipeline} following this promise. Synchronous stages added to the pipeline are run
+     * by a single listener on this promise rather than each creating a promise as {@link #then(Resolve)}
+     * does.</p>
+     *
+     * @return A pipeline with no stages following this promise.
+     */
+    Pipeline<T,F,P> pipeline();
 }
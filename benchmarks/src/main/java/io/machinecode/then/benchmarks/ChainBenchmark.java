@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.benchmarks;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.Pipeline;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.api.Resolve;
+import io.machinecode.then.api.Transform;
+import io.machinecode.then.core.Trampoline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Cost of building and completing {@link Promise#then(Resolve)} chains of various depths, and of the
+ * same chains built as a single fused {@link Pipeline}.</p>
+ *
+ * <p>Without a {@link Trampoline} resolving the head of a chain recurses once per stage so the forked JVM
+ * is given a large stack.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss256m")
+public class ChainBenchmark {
+
+    private static final Resolve<Integer,Integer,Throwable,Void> INCREMENT = new Resolve<Integer,Integer,Throwable,Void>() {
+        @Override
+        public void resolve(final Integer that, final Deferred<Integer,Throwable,Void> next) {
+            next.resolve(that + 1);
+        }
+    };
+
+    private static final Transform<Integer,Integer> PLUS_ONE = new Transform<Integer,Integer>() {
+        @Override
+        public Integer transform(final Integer that) {
+            return that + 1;
+        }
+    };
+
+    @Param({"DEFERRED", "LOCK_FREE"})
+    public Impl impl;
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int depth;
+
+    @Param({"false", "true"})
+    public boolean trampoline;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Trampoline.setEnabled(trampoline);
+    }
+
+    @Benchmark
+    public Promise<Integer,Throwable,Void> buildThenResolve() {
+        final Deferred<Integer,Throwable,Void> head = impl.create();
+        Promise<Integer,Throwable,Void> tail = head;
+        for (int i = 0; i < depth; ++i) {
+            tail = tail.then(INCREMENT);
+        }
+        head.resolve(0);
+        return tail;
+    }
+
+    @Benchmark
+    public Promise<Integer,Throwable,Void> resolveThenBuild() {
+        final Deferred<Integer,Throwable,Void> head = impl.create();
+        head.resolve(0);
+        Promise<Integer,Throwable,Void> tail = head;
+        for (int i = 0; i < depth; ++i) {
+            tail = tail.then(INCREMENT);
+        }
+        return tail;
+    }
+
+    @Benchmark
+    public Promise<Integer,Throwable,Void> buildPipelineThenResolve() {
+        final Deferred<Integer,Throwable,Void> head = impl.create();
+        Pipeline<Integer,Throwable,Void> pipeline = head.pipeline();
+        for (int i = 0; i < depth; ++i) {
+            pipeline = pipeline.map(PLUS_ONE);
+        }
+        final Promise<Integer,Throwable,Void> tail = pipeline.promise();
+        head.resolve(0);
+        return tail;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.benchmarks;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.OnResolve;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>Many threads racing to register listeners on and complete the same deferred. Each thread works on the
+ * current shared deferred, whichever thread observes it complete swaps in a fresh one. The single threaded
+ * variants run the same code without contention as a baseline.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContendedResolveBenchmark {
+
+    private static final Object VALUE = new Object();
+    private static final int LISTENERS = 64;
+
+    private static final OnResolve<Object> LISTENER = new OnResolve<Object>() {
+        @Override
+        public void resolve(final Object that) {
+            //
+        }
+    };
+
+    @Param({"DEFERRED", "LOCK_FREE"})
+    public Impl impl;
+
+    final AtomicReference<Deferred<Object,Throwable,Void>> current = new AtomicReference<>();
+    final AtomicInteger ticket = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        current.set(impl.<Object,Throwable,Void>create());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean contendedResolve() {
+        return _resolve();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean uncontendedResolve() {
+        return _resolve();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean contendedRegister() {
+        return _register();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean uncontendedRegister() {
+        return _register();
+    }
+
+    private boolean _resolve() {
+        final Deferred<Object,Throwable,Void> deferred = current.get();
+        deferred.resolve(VALUE);
+        return current.compareAndSet(deferred, impl.<Object,Throwable,Void>create());
+    }
+
+    private boolean _register() {
+        final Deferred<Object,Throwable,Void> deferred = current.get();
+        deferred.onResolve(LISTENER);
+        if (ticket.incrementAndGet() % LISTENERS == 0) {
+            deferred.resolve(VALUE);
+            return current.compareAndSet(deferred, impl.<Object,Throwable,Void>create());
+        }
+        return false;
+    }
+}
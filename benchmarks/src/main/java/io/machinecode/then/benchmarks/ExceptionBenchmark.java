@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.benchmarks;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.core.StacklessExceptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Throughput of gets that end in cancellation, rejection or timeout, and of completions whose listener
+ * throws, with and without {@link StacklessExceptions}.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionBenchmark {
+
+    private static final Exception FAILURE = new Exception();
+
+    private static final OnResolve<Object> THROWING = new OnResolve<Object>() {
+        @Override
+        public void resolve(final Object that) {
+            throw new IllegalStateException();
+        }
+    };
+
+    @Param({"DEFERRED", "LOCK_FREE"})
+    public Impl impl;
+
+    @Param({"false", "true"})
+    public boolean stackless;
+
+    // Deeper stacks make filling in a stack trace more expensive
+    @Param({"0", "64"})
+    public int depth;
+
+    Deferred<Object,Throwable,Void> cancelled;
+    Deferred<Object,Throwable,Void> rejected;
+    Deferred<Object,Throwable,Void> pending;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        StacklessExceptions.setEnabled(stackless);
+        cancelled = impl.create();
+        cancelled.cancel(true);
+        rejected = impl.create();
+        rejected.reject(FAILURE);
+        pending = impl.create();
+    }
+
+    @Benchmark
+    public Object getCancelled() {
+        return _recurse(depth, Op.CANCELLED);
+    }
+
+    @Benchmark
+    public Object getRejected() {
+        return _recurse(depth, Op.REJECTED);
+    }
+
+    @Benchmark
+    public Object getTimeout() {
+        return _recurse(depth, Op.TIMEOUT);
+    }
+
+    @Benchmark
+    public Object listenerThrows() {
+        return _recurse(depth, Op.LISTENER);
+    }
+
+    private Object _recurse(final int depth, final Op op) {
+        if (depth > 0) {
+            return _recurse(depth - 1, op);
+        }
+        try {
+            switch (op) {
+                case CANCELLED:
+                    return cancelled.get();
+                case REJECTED:
+                    return rejected.get();
+                case TIMEOUT:
+                    return pending.get(0, TimeUnit.NANOSECONDS);
+                default:
+                    final Deferred<Object,Throwable,Void> deferred = impl.create();
+                    deferred.onResolve(THROWING);
+                    deferred.resolve(FAILURE);
+                    return deferred;
+            }
+        } catch (final Exception e) {
+            return e;
+        }
+    }
+
+    enum Op {
+        CANCELLED,
+        REJECTED,
+        TIMEOUT,
+        LISTENER
+    }
+}
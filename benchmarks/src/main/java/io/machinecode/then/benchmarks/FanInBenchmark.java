@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.benchmarks;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.core.AllDeferred;
+import io.machinecode.then.core.AnyDeferred;
+import io.machinecode.then.core.SomeDeferred;
+import io.machinecode.then.core.WhenDeferred;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Cost of joining many promises with each of the fan in combinators. Each operation creates the inputs,
+ * the combinator and then resolves every input in order.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FanInBenchmark {
+
+    @Param({"DEFERRED", "LOCK_FREE"})
+    public Impl impl;
+
+    @Param({"ALL", "ANY", "SOME", "WHEN"})
+    public Combinator combinator;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int size;
+
+    @Benchmark
+    public Promise<?,?,?> fanIn() {
+        final List<Deferred<Object,Throwable,Void>> inputs = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            inputs.add(impl.<Object,Throwable,Void>create());
+        }
+        final Promise<?,?,?> out = combinator.create(inputs);
+        for (int i = 0; i < size; ++i) {
+            inputs.get(i).resolve(i);
+        }
+        return out;
+    }
+
+    public enum Combinator {
+        ALL {
+            @Override
+            Promise<?,?,?> create(final List<Deferred<Object,Throwable,Void>> inputs) {
+                return new AllDeferred<Object,Throwable,Void>(inputs);
+            }
+        },
+        ANY {
+            @Override
+            Promise<?,?,?> create(final List<Deferred<Object,Throwable,Void>> inputs) {
+                return new AnyDeferred<Object,Throwable,Void>(inputs);
+            }
+        },
+        SOME {
+            @Override
+            Promise<?,?,?> create(final List<Deferred<Object,Throwable,Void>> inputs) {
+                return new SomeDeferred<Object,Throwable,Void>(inputs);
+            }
+        },
+        WHEN {
+            @Override
+            Promise<?,?,?> create(final List<Deferred<Object,Throwable,Void>> inputs) {
+                return new WhenDeferred<Object,Throwable,Void>(inputs);
+            }
+        };
+
+        abstract Promise<?,?,?> create(final List<Deferred<Object,Throwable,Void>> inputs);
+    }
+}
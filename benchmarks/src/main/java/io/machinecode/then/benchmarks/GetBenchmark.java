@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.benchmarks;
+
+import io.machinecode.then.api.Deferred;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>Latency between a deferred being resolved and a thread blocked in {@link Deferred#get()} returning.
+ * The {@code wake} group pairs a thread that publishes a deferred and blocks on it with a thread that picks it
+ * up and resolves it, the reported time of {@code await} is the round trip.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+@State(Scope.Group)
+@BenchmarkMode({Mode.SampleTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetBenchmark {
+
+    private static final Object VALUE = new Object();
+
+    @Param({"DEFERRED", "LOCK_FREE"})
+    public Impl impl;
+
+    final AtomicReference<Deferred<Object,Throwable,Void>> slot = new AtomicReference<>();
+
+    @Benchmark
+    @Group("wake")
+    @GroupThreads(1)
+    public Object await() throws Exception {
+        final Deferred<Object,Throwable,Void> deferred = impl.create();
+        slot.set(deferred);
+        try {
+            return deferred.get(10, TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException e) {
+            // The resolving thread has stopped
+            return null;
+        }
+    }
+
+    @Benchmark
+    @Group("wake")
+    @GroupThreads(1)
+    public void resolve(final Control control) {
+        Deferred<Object,Throwable,Void> deferred;
+        while ((deferred = slot.getAndSet(null)) == null) {
+            if (control.stopMeasurement) {
+                return;
+            }
+        }
+        deferred.resolve(VALUE);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.benchmarks;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.core.DeferredImpl;
+import io.machinecode.then.core.LockFreeDeferred;
+
+/**
+ * <p>The {@link Deferred} implementations a benchmark can be parameterised over.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public enum Impl {
+
+    DEFERRED {
+        @Override
+        public <T,F,P> Deferred<T,F,P> create() {
+            return new DeferredImpl<>();
+        }
+    },
+
+    LOCK_FREE {
+        @Override
+        public <T,F,P> Deferred<T,F,P> create() {
+            return new LockFreeDeferred<>();
+        }
+    };
+
+    public abstract <T,F,P> Deferred<T,F,P> create();
+}
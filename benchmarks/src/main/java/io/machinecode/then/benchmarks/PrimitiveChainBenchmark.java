@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.benchmarks;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.LongDeferred;
+import io.machinecode.then.api.LongPromise;
+import io.machinecode.then.api.LongResolve;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.api.Resolve;
+import io.machinecode.then.core.DeferredImpl;
+import io.machinecode.then.core.LongDeferredImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Compares a chain of numeric {@code then} stages using boxed {@link Long} values against the same
+ * chain using {@link LongPromise}. Run with the GC profiler to compare allocation rates.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveChainBenchmark {
+
+    private static final Resolve<Long,Long,Throwable,Void> BOXED = new Resolve<Long,Long,Throwable,Void>() {
+        @Override
+        public void resolve(final Long that, final Deferred<Long,Throwable,Void> next) {
+            next.resolve(that + 1000);
+        }
+    };
+
+    private static final LongResolve<LongDeferred<Throwable,Void>> PRIMITIVE = new LongResolve<LongDeferred<Throwable,Void>>() {
+        @Override
+        public void resolve(final long that, final LongDeferred<Throwable,Void> next) {
+            next.resolve(that + 1000);
+        }
+    };
+
+    @Param({"1", "10", "100"})
+    public int depth;
+
+    @Benchmark
+    public long boxed() throws Exception {
+        final DeferredImpl<Long,Throwable,Void> head = new DeferredImpl<>();
+        Promise<Long,Throwable,Void> tail = head;
+        for (int i = 0; i < depth; ++i) {
+            tail = tail.then(BOXED);
+        }
+        head.resolve(1000L);
+        return tail.get();
+    }
+
+    @Benchmark
+    public long primitive() throws Exception {
+        final LongDeferredImpl<Throwable,Void> head = new LongDeferredImpl<>();
+        LongPromise<Throwable,Void> tail = head;
+        for (int i = 0; i < depth; ++i) {
+            tail = tail.thenLong(PRIMITIVE);
+        }
+        head.resolve(1000L);
+        return tail.getLong();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.benchmarks;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.OnProgress;
+import io.machinecode.then.core.CoalescingProgress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Cost to a producer of reporting progress directly to a deferred compared to publishing it through a
+ * {@link CoalescingProgress}.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProgressBenchmark {
+
+    @Param({"DEFERRED", "LOCK_FREE"})
+    public Impl impl;
+
+    @Param({"1", "8"})
+    public int listeners;
+
+    Deferred<Void,Throwable,Long> deferred;
+    CoalescingProgress<Long> coalescing;
+    long value;
+
+    @Setup(Level.Iteration)
+    public void setup(final Blackhole blackhole) {
+        deferred = impl.create();
+        for (int i = 0; i < listeners; ++i) {
+            deferred.onProgress(new OnProgress<Long>() {
+                @Override
+                public void progress(final Long that) {
+                    blackhole.consume(that);
+                }
+            });
+        }
+        coalescing = new CoalescingProgress<>(deferred, 10, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    public void direct() {
+        deferred.progress(++value);
+    }
+
+    @Benchmark
+    public void coalesced() {
+        coalescing.progress(++value);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.benchmarks;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.OnComplete;
+import io.machinecode.then.api.OnResolve;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Uncontended cost of registering listeners on and completing a single deferred.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolveBenchmark {
+
+    private static final Object VALUE = new Object();
+
+    @Param({"DEFERRED", "LOCK_FREE"})
+    public Impl impl;
+
+    @Param({"1", "8", "64"})
+    public int listeners;
+
+    final Listener listener = new Listener();
+
+    @Benchmark
+    public Deferred<Object,Throwable,Void> register() {
+        final Deferred<Object,Throwable,Void> deferred = impl.create();
+        for (int i = 0; i < listeners; ++i) {
+            deferred.onResolve(listener);
+        }
+        return deferred;
+    }
+
+    @Benchmark
+    public Deferred<Object,Throwable,Void> registerThenResolve() {
+        final Deferred<Object,Throwable,Void> deferred = impl.create();
+        for (int i = 0; i < listeners; ++i) {
+            deferred.onResolve(listener)
+                    .onComplete(listener);
+        }
+        deferred.resolve(VALUE);
+        return deferred;
+    }
+
+    @Benchmark
+    public Deferred<Object,Throwable,Void> resolveThenRegister() {
+        final Deferred<Object,Throwable,Void> deferred = impl.create();
+        deferred.resolve(VALUE);
+        for (int i = 0; i < listeners; ++i) {
+            deferred.onResolve(listener)
+                    .onComplete(listener);
+        }
+        return deferred;
+    }
+
+    @Benchmark
+    public Deferred<Object,Throwable,Void> registerThenReject() {
+        final Deferred<Object,Throwable,Void> deferred = impl.create();
+        for (int i = 0; i < listeners; ++i) {
+            deferred.onResolve(listener)
+                    .onComplete(listener);
+        }
+        deferred.reject(null);
+        return deferred;
+    }
+
+    @Benchmark
+    public Object registerResolveThenGet() throws Exception {
+        final Deferred<Object,Throwable,Void> deferred = impl.create();
+        for (int i = 0; i < listeners; ++i) {
+            deferred.onResolve(listener)
+                    .onComplete(listener);
+        }
+        deferred.resolve(VALUE);
+        return deferred.get();
+    }
+
+    static final class Listener implements OnResolve<Object>, OnComplete {
+        int count;
+
+        @Override
+        public void resolve(final Object that) {
+            ++count;
+        }
+
+        @Override
+        public void complete(final int state) {
+            ++count;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.benchmarks;
+
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.core.DeferredImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Time for a fresh JVM to create, listen to, resolve and get its first promise. Each fork measures a
+ * single call so the result includes loading and initialising the classes involved.</p>
+ *
+ * <p>Nothing from core may be touched outside the benchmark methods or it will be initialised before the
+ * measurement starts.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+
+    @Benchmark
+    public Object firstPromise() throws Exception {
+        return _first();
+    }
+
+    @Benchmark
+    @Fork(value = 20, jvmArgsAppend = "-Dio.machinecode.then.trace=false")
+    public Object firstPromiseWithoutTrace() throws Exception {
+        return _first();
+    }
+
+    private static Object _first() throws Exception {
+        final DeferredImpl<String,Throwable,Void> deferred = new DeferredImpl<>();
+        final StringBuilder builder = new StringBuilder();
+        deferred.onResolve(new OnResolve<String>() {
+            @Override
+            public void resolve(final String that) {
+                builder.append(that);
+            }
+        });
+        deferred.resolve("first");
+        return deferred.get();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.bridge;
+
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.core.Messages;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * <p>Converts between {@link Promise} and {@link CompletionStage} without blocking a thread.</p>
+ *
+ * <table summary="State mapping">
+ *     <tr><th>Promise</th><th>CompletionStage</th></tr>
+ *     <tr><td>resolved</td><td>completed normally</td></tr>
+ *     <tr><td>rejected</td><td>completed exceptionally with the failure</td></tr>
+ *     <tr><td>cancelled</td><td>cancelled</td></tr>
+ * </table>
+ *
+ * <p>Cancelling the result of either conversion cancels its source. A {@link java.util.concurrent.CompletionException}
+ * is unwrapped before it is used to reject a promise.</p>
+ *
+ * <p>Converting the result of {@link #toCompletionStage(Promise)} or {@link #toPromise(CompletionStage)} back
+ * returns the original instance rather than wrapping it again. The future returned by
+ * {@link #toCompletableFuture(Promise)} is a copy that can be completed by its caller so it is wrapped.</p>
+ *
+ * <p>A {@link io.machinecode.then.api.ListenerException} thrown while a stage completes a promise has no caller to
+ * be thrown to, so it is logged. Exceptions thrown by the dependents of a stage completed by a promise are
+ * handled by the stage and not thrown from the promise's terminal method.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public final class CompletionStages {
+
+    private CompletionStages(){}
+
+    /**
+     * @param promise The promise to adapt.
+     * @param <T> The type of the promise.
+     * @return A stage that will complete when {@code promise} reaches a terminal state.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> CompletionStage<T> toCompletionStage(final Promise<T,? extends Throwable,?> promise) {
+        if (promise == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "promise"));
+        }
+        if (promise instanceof StagePromise) {
+            return ((StagePromise<T>) promise).stage;
+        }
+        return new PromiseStage<>(promise);
+    }
+
+    /**
+     * @param promise The promise to adapt.
+     * @param <T> The type of the promise.
+     * @return A future that will complete when {@code promise} reaches a terminal state. Cancelling it cancels
+     *         {@code promise}, completing it directly does not affect {@code promise}.
+     */
+    public static <T> CompletableFuture<T> toCompletableFuture(final Promise<T,? extends Throwable,?> promise) {
+        return toCompletionStage(promise).toCompletableFuture();
+    }
+
+    /**
+     * @param stage The stage to adapt.
+     * @param <T> The type of the stage.
+     * @return A promise that will reach a terminal state when {@code stage} completes. A stage never reports
+     *         progress so the promise is typed to have none, even when it is the original promise of a stage
+     *         returned by {@link #toCompletionStage(Promise)}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Promise<T,Throwable,Void> toPromise(final CompletionStage<T> stage) {
+        if (stage == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "stage"));
+        }
+        if (stage instanceof PromiseStage) {
+            return (Promise<T,Throwable,Void>) ((PromiseStage<T>) stage).promise;
+        }
+        return new StagePromise<>(stage);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.bridge;
+
+import io.machinecode.then.api.FailureException;
+import io.machinecode.then.api.OnCancel;
+import io.machinecode.then.api.OnReject;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.core.Messages;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>A {@link CompletableFuture} completed by the listeners of a {@link Promise}.</p>
+ *
+ * <p>It is only handed out as a {@link java.util.concurrent.CompletionStage} and can only be completed through
+ * the promise. {@link #cancel(boolean)} cancels the promise and the methods that would complete the future
+ * directly throw {@link UnsupportedOperationException} so it can not disagree with the promise it was created
+ * from. {@link #toCompletableFuture()} returns a new future that follows this one, which the caller is free
+ * to complete, and which cancels the promise when it is cancelled.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+final class PromiseStage<T> extends CompletableFuture<T> {
+
+    final Promise<T,? extends Throwable,?> promise;
+
+    PromiseStage(final Promise<T,? extends Throwable,?> promise) {
+        this.promise = promise;
+        final Listener listener = new Listener();
+        promise.onResolve(listener)
+                .onReject(listener)
+                .onCancel(listener);
+    }
+
+    @Override
+    public boolean cancel(final boolean interrupt) {
+        try {
+            return promise.cancel(interrupt);
+        } finally {
+            // The listener may have been queued on a trampoline
+            if (promise.isCancelled()) {
+                super.cancel(interrupt);
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<T> toCompletableFuture() {
+        final Copy copy = new Copy();
+        whenComplete(copy);
+        return copy;
+    }
+
+    @Override
+    public boolean complete(final T value) {
+        throw new UnsupportedOperationException(Messages.get("THEN-000701.bridge.stage.read.only"));
+    }
+
+    @Override
+    public boolean completeExceptionally(final Throwable failure) {
+        throw new UnsupportedOperationException(Messages.get("THEN-000701.bridge.stage.read.only"));
+    }
+
+    @Override
+    public void obtrudeValue(final T value) {
+        throw new UnsupportedOperationException(Messages.get("THEN-000701.bridge.stage.read.only"));
+    }
+
+    @Override
+    public void obtrudeException(final Throwable failure) {
+        throw new UnsupportedOperationException(Messages.get("THEN-000701.bridge.stage.read.only"));
+    }
+
+    /**
+     * <p>A future that follows this stage and forwards a cancellation to the promise.</p>
+     */
+    private final class Copy extends CompletableFuture<T> implements BiConsumer<T,Throwable> {
+
+        @Override
+        public void accept(final T value, final Throwable failure) {
+            if (failure == null) {
+                complete(value);
+            } else if (failure instanceof CancellationException) {
+                super.cancel(false);
+            } else {
+                completeExceptionally(failure);
+            }
+        }
+
+        @Override
+        public boolean cancel(final boolean interrupt) {
+            // Cancelling the promise completes this through the stage
+            PromiseStage.this.cancel(interrupt);
+            return isCancelled();
+        }
+    }
+
+    private final class Listener implements OnResolve<T>, OnReject<Throwable>, OnCancel {
+
+        @Override
+        public void resolve(final T that) {
+            PromiseStage.super.complete(that);
+        }
+
+        @Override
+        public void reject(final Throwable that) {
+            PromiseStage.super.completeExceptionally(that == null
+                    ? new FailureException(Messages.format("THEN-000201.promise.rejected"), null)
+                    : that);
+        }
+
+        @Override
+        public boolean cancel(final boolean interrupt) {
+            return PromiseStage.super.cancel(interrupt);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.bridge;
+
+import io.machinecode.then.api.ListenerException;
+import io.machinecode.then.api.OnCancel;
+import io.machinecode.then.api.OnComplete;
+import io.machinecode.then.api.OnProgress;
+import io.machinecode.then.api.OnReject;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Pipeline;
+import io.machinecode.then.api.Progress;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.api.Reject;
+import io.machinecode.then.api.Resolve;
+import io.machinecode.then.core.DeferredImpl;
+import io.machinecode.then.core.Messages;
+import org.jboss.logging.Logger;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>A promise completed by a {@link CompletionStage}.</p>
+ *
+ * <p>The deferred it is completed through is kept private so the promise can not be completed apart from its
+ * stage.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+final class StagePromise<T> implements Promise<T,Throwable,Void>, BiConsumer<T,Throwable> {
+
+    private static final class Log {
+        static final Logger log = Logger.getLogger(StagePromise.class);
+    }
+
+    final CompletionStage<T> stage;
+    private final Completion deferred = new Completion();
+
+    StagePromise(final CompletionStage<T> stage) {
+        this.stage = stage;
+        stage.whenComplete(this);
+    }
+
+    @Override
+    public void accept(final T value, final Throwable failure) {
+        try {
+            if (failure == null) {
+                deferred.resolve(value);
+                return;
+            }
+            Throwable cause = failure;
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof CancellationException) {
+                deferred.cancel(true);
+            } else {
+                deferred.reject(cause);
+            }
+        } catch (final ListenerException e) {
+            Log.log.warnf(e, Messages.get("THEN-000700.bridge.listener.exception"));
+        }
+    }
+
+    @Override
+    public boolean cancel(final boolean interrupt) throws ListenerException {
+        return deferred.cancel(interrupt);
+    }
+
+    @Override
+    public boolean isDone() {
+        return deferred.isDone();
+    }
+
+    @Override
+    public boolean isResolved() {
+        return deferred.isResolved();
+    }
+
+    @Override
+    public boolean isRejected() {
+        return deferred.isRejected();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return deferred.isCancelled();
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        return deferred.get();
+    }
+
+    @Override
+    public T get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return deferred.get(timeout, unit);
+    }
+
+    @Override
+    public StagePromise<T> onResolve(final OnResolve<? super T> then) {
+        deferred.onResolve(then);
+        return this;
+    }
+
+    @Override
+    public StagePromise<T> onReject(final OnReject<? super Throwable> then) {
+        deferred.onReject(then);
+        return this;
+    }
+
+    @Override
+    public StagePromise<T> onCancel(final OnCancel then) {
+        deferred.onCancel(then);
+        return this;
+    }
+
+    @Override
+    public StagePromise<T> onComplete(final OnComplete then) {
+        deferred.onComplete(then);
+        return this;
+    }
+
+    @Override
+    public StagePromise<T> onProgress(final OnProgress<? super Void> then) {
+        deferred.onProgress(then);
+        return this;
+    }
+
+    @Override
+    public StagePromise<T> onResolve(final Executor executor, final OnResolve<? super T> then) {
+        deferred.onResolve(executor, then);
+        return this;
+    }
+
+    @Override
+    public StagePromise<T> onReject(final Executor executor, final OnReject<? super Throwable> then) {
+        deferred.onReject(executor, then);
+        return this;
+    }
+
+    @Override
+    public StagePromise<T> onComplete(final Executor executor, final OnComplete then) {
+        deferred.onComplete(executor, then);
+        return this;
+    }
+
+    @Override
+    public StagePromise<T> onProgress(final Executor executor, final OnProgress<? super Void> then) {
+        deferred.onProgress(executor, then);
+        return this;
+    }
+
+    @Override
+    public StagePromise<T> onGet(final Future<?> then) {
+        deferred.onGet(then);
+        return this;
+    }
+
+    @Override
+    public <Tx> Promise<Tx,Throwable,Void> then(final Resolve<? super T,Tx,Throwable,Void> then) {
+        return deferred.then(then);
+    }
+
+    @Override
+    public <Tx,Fx> Promise<Tx,Fx,Void> then(final Reject<? super T,? super Throwable,Tx,Fx,Void> then) {
+        return deferred.then(then);
+    }
+
+    @Override
+    public <Tx,Fx,Px> Promise<Tx,Fx,Px> then(final Progress<? super T,? super Throwable,? super Void,Tx,Fx,Px> then) {
+        return deferred.then(then);
+    }
+
+    @Override
+    public <Tx> Promise<Tx,Throwable,Void> then(final Executor executor, final Resolve<? super T,Tx,Throwable,Void> then) {
+        return deferred.then(executor, then);
+    }
+
+    @Override
+    public <Tx,Fx> Promise<Tx,Fx,Void> then(final Executor executor, final Reject<? super T,? super Throwable,Tx,Fx,Void> then) {
+        return deferred.then(executor, then);
+    }
+
+    @Override
+    public <Tx,Fx,Px> Promise<Tx,Fx,Px> then(final Executor executor, final Progress<? super T,? super Throwable,? super Void,Tx,Fx,Px> then) {
+        return deferred.then(executor, then);
+    }
+
+    @Override
+    public Promise<T,Throwable,Void> orTimeout(final long timeout, final TimeUnit unit, final Throwable failure) {
+        return deferred.orTimeout(timeout, unit, failure);
+    }
+
+    @Override
+    public Promise<T,Throwable,Void> completeOnTimeout(final T value, final long timeout, final TimeUnit unit) {
+        return deferred.completeOnTimeout(value, timeout, unit);
+    }
+
+    @Override
+    public Pipeline<T,Throwable,Void> pipeline() {
+        return deferred.pipeline();
+    }
+
+    @Override
+    public String toString() {
+        return deferred.toString();
+    }
+
+    /**
+     * <p>The deferred behind the promise, it also cancels the stage when it is cancelled.</p>
+     */
+    private final class Completion extends DeferredImpl<T,Throwable,Void> {
+
+        @Override
+        public boolean cancel(final boolean interrupt) throws ListenerException {
+            final boolean cancelled;
+            try {
+                cancelled = super.cancel(interrupt);
+            } finally {
+                if (isCancelled()) {
+                    try {
+                        stage.toCompletableFuture().cancel(interrupt);
+                    } catch (final UnsupportedOperationException e) {
+                        // The stage can not be cancelled
+                    }
+                }
+            }
+            return cancelled;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("StagePromise{");
+            sb.append("state=").append(state).append(" (").append(_stateToString(state)).append(")");
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+}
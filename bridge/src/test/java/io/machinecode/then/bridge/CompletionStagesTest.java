@@ -0,0 +1,236 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.bridge;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.api.Resolve;
+import io.machinecode.then.core.DeferredImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class CompletionStagesTest extends Assert {
+
+    @Test
+    public void promiseResolveTest() throws Exception {
+        final DeferredImpl<String,Throwable,Void> d = new DeferredImpl<>();
+        final CompletableFuture<String> f = CompletionStages.toCompletableFuture(d);
+        final CompletableFuture<Integer> length = f.thenApply(String::length);
+        assertFalse(f.isDone());
+        d.resolve("asdf");
+        assertEquals("asdf", f.getNow(null));
+        assertEquals(4, (int) length.getNow(null));
+    }
+
+    @Test
+    public void promiseRejectTest() throws Exception {
+        final DeferredImpl<String,Throwable,Void> d = new DeferredImpl<>();
+        final CompletableFuture<String> f = CompletionStages.toCompletableFuture(d);
+        final IllegalStateException failure = new IllegalStateException();
+        d.reject(failure);
+        assertTrue(f.isCompletedExceptionally());
+        try {
+            f.get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void promiseCancelTest() throws Exception {
+        final DeferredImpl<String,Throwable,Void> d = new DeferredImpl<>();
+        final CompletableFuture<String> f = CompletionStages.toCompletableFuture(d);
+        d.cancel(true);
+        assertTrue(f.isCancelled());
+
+        final DeferredImpl<String,Throwable,Void> x = new DeferredImpl<>();
+        final CompletableFuture<String> y = CompletionStages.toCompletableFuture(x);
+        assertTrue(y.cancel(true));
+        assertTrue(x.isCancelled());
+        assertTrue(y.isCancelled());
+
+        final DeferredImpl<String,Throwable,Void> r = new DeferredImpl<>();
+        final CompletableFuture<String> s = CompletionStages.toCompletableFuture(r);
+        r.resolve("done");
+        assertFalse(s.cancel(true));
+        assertEquals("done", s.get());
+    }
+
+    @Test
+    public void promiseCopyTest() throws Exception {
+        final DeferredImpl<String,Throwable,Void> d = new DeferredImpl<>();
+        final CompletableFuture<String> f = CompletionStages.toCompletableFuture(d);
+        // The future is a copy the caller may complete without affecting the promise
+        assertTrue(f.complete("asdf"));
+        assertEquals("asdf", f.get());
+        assertFalse(d.isDone());
+        assertNotSame(d, CompletionStages.toPromise(f));
+        final CompletableFuture<String> g = CompletionStages.toCompletableFuture(d);
+        assertTrue(g.completeExceptionally(new IllegalStateException()));
+        g.obtrudeValue("fdsa");
+        assertEquals("fdsa", g.get());
+        assertFalse(d.isDone());
+        final CompletableFuture<String> h = CompletionStages.toCompletableFuture(d);
+        d.resolve("done");
+        assertEquals("done", h.getNow(null));
+        assertEquals("asdf", f.get());
+
+        // The stage is read only
+        final DeferredImpl<String,Throwable,Void> e = new DeferredImpl<>();
+        final CompletionStage<String> stage = CompletionStages.toCompletionStage(e);
+        try {
+            ((CompletableFuture<String>) stage).complete("asdf");
+            fail();
+        } catch (final UnsupportedOperationException x) {
+            //
+        }
+        assertNotSame(stage, stage.toCompletableFuture());
+        assertFalse(e.isDone());
+        assertSame(e, CompletionStages.toPromise(stage));
+    }
+
+    @Test
+    public void stageResolveTest() throws Exception {
+        final CompletableFuture<String> f = new CompletableFuture<>();
+        final Promise<String,Throwable,Void> p = CompletionStages.toPromise(f);
+        final AtomicReference<String> value = new AtomicReference<>();
+        p.onResolve(new OnResolve<String>() {
+            @Override
+            public void resolve(final String that) {
+                value.set(that);
+            }
+        });
+        assertFalse(p.isDone());
+        f.complete("asdf");
+        assertTrue(p.isResolved());
+        assertEquals("asdf", value.get());
+        assertEquals("asdf", p.get(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void stageThenTest() throws Exception {
+        final CompletableFuture<String> f = new CompletableFuture<>();
+        final Promise<Integer,Throwable,Void> length = CompletionStages.toPromise(f)
+                .then(new Resolve<String,Integer,Throwable,Void>() {
+                    @Override
+                    public void resolve(final String that, final Deferred<Integer,Throwable,Void> next) {
+                        next.resolve(that.length());
+                    }
+                });
+        f.complete("asdf");
+        assertEquals(4, (int) length.get(0, TimeUnit.MILLISECONDS));
+
+        // Only the stage can complete the promise
+        final CompletableFuture<String> g = new CompletableFuture<>();
+        final Promise<String,Throwable,Void> p = CompletionStages.toPromise(g);
+        assertFalse(p instanceof Deferred);
+        assertSame(p, p.onResolve(new OnResolve<String>() {
+            @Override
+            public void resolve(final String that) {
+                //
+            }
+        }));
+        g.complete("done");
+        assertEquals("done", p.get(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void stageRejectTest() throws Exception {
+        final CompletableFuture<String> f = new CompletableFuture<>();
+        final CompletionStage<String> dependent = f.thenApply(s -> s);
+        final Promise<String,Throwable,Void> p = CompletionStages.toPromise(dependent);
+        final IllegalStateException failure = new IllegalStateException();
+        f.completeExceptionally(failure);
+        assertTrue(p.isRejected());
+        try {
+            p.get();
+            fail();
+        } catch (final ExecutionException e) {
+            // The CompletionException from the dependent stage is unwrapped
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void stageCancelTest() throws Exception {
+        final CompletableFuture<String> f = new CompletableFuture<>();
+        final Promise<String,Throwable,Void> p = CompletionStages.toPromise(f);
+        f.cancel(true);
+        assertTrue(p.isCancelled());
+
+        final CompletableFuture<String> x = new CompletableFuture<>();
+        final Promise<String,Throwable,Void> y = CompletionStages.toPromise(x.thenApply(s -> s));
+        x.cancel(true);
+        assertTrue(y.isCancelled());
+
+        final CompletableFuture<String> a = new CompletableFuture<>();
+        final Promise<String,Throwable,Void> b = CompletionStages.toPromise(a);
+        assertTrue(b.cancel(true));
+        assertTrue(a.isCancelled());
+        try {
+            b.get();
+            fail();
+        } catch (final CancellationException e) {
+            //
+        }
+    }
+
+    @Test
+    public void listenerExceptionTest() throws Exception {
+        final CompletableFuture<String> f = new CompletableFuture<>();
+        final Promise<String,Throwable,Void> p = CompletionStages.toPromise(f);
+        p.onResolve(new OnResolve<String>() {
+            @Override
+            public void resolve(final String that) {
+                throw new IllegalStateException();
+            }
+        });
+        assertTrue(f.complete("asdf"));
+        assertTrue(p.isResolved());
+
+        final Deferred<String,Throwable,Void> d = new DeferredImpl<>();
+        CompletionStages.toCompletableFuture(d).thenAccept(s -> {
+            throw new IllegalStateException();
+        });
+        d.resolve("asdf");
+        assertTrue(d.isResolved());
+    }
+
+    @Test
+    public void roundTripTest() throws Exception {
+        final DeferredImpl<String,Throwable,Void> d = new DeferredImpl<>();
+        final CompletionStage<String> s = CompletionStages.toCompletionStage(d);
+        assertSame(d, CompletionStages.toPromise(s));
+        assertSame(d, CompletionStages.toPromise(CompletionStages.toCompletionStage(CompletionStages.toPromise(s))));
+
+        final CompletableFuture<String> f = new CompletableFuture<>();
+        final Promise<String,Throwable,Void> p = CompletionStages.toPromise(f);
+        assertSame(f, CompletionStages.toCompletableFuture(p));
+        assertSame(f, CompletionStages.toCompletableFuture(CompletionStages.toPromise(CompletionStages.toCompletableFuture(p))));
+    }
+}
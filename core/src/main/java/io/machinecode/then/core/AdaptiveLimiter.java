@@ -0,0 +1,292 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.OnCancel;
+import io.machinecode.then.api.OnComplete;
+import io.machinecode.then.api.Promise;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <p>Limits the number of promise producing calls in flight, adjusting the limit to the round trip time
+ * observed from starting each call until the promise it issued resolves.</p>
+ *
+ * <p>The limit follows a gradient of a long term moving average of the round trip time over the most
+ * recent sample. While the latest call is no slower than the average the limit grows by its square root on
+ * each sample, when calls slow down as requests queue in the backend the limit shrinks in proportion, by at
+ * most half on a sample. Changes are smoothed and the limit is not grown while fewer than half of the calls
+ * it allows are in flight. A latency that persists becomes the new baseline as the average catches up with
+ * it. Only calls that resolve contribute a sample, a call that fails or is cancelled may complete much
+ * faster than the backend serves requests and would pull the average down.</p>
+ *
+ * <p>Calls over the limit wait in a FIFO queue of bounded size and are started as calls in flight complete.
+ * When the queue is full the promise is rejected with a {@link RejectedExecutionException}. A queued call
+ * whose promise is cancelled is not started.</p>
+ *
+ * <p>The limiter implements {@link AdaptiveLimiterMBean} so it can be registered with an
+ * {@link javax.management.MBeanServer} to export its limit and round trip times.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public final class AdaptiveLimiter implements AdaptiveLimiterMBean {
+
+    // Number of samples the long term round trip time is averaged over
+    private static final double WINDOW = 100;
+    // How much slower than the average the latest sample may be before the limit shrinks
+    private static final double TOLERANCE = 1.5;
+    // Weight of each new limit
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final Ticker ticker;
+
+    private final Object lock = new Object();
+
+    // Guarded by the lock
+    private final ArrayDeque<Call<?>> queue = new ArrayDeque<>();
+    private double limit;
+    private double longRtt = 0;
+    private long rtt = 0;
+    private int inFlight = 0;
+    private long rejected = 0;
+    private boolean draining = false;
+
+    /**
+     * @param initialLimit The limit to start at.
+     * @param maxLimit The highest the limit can grow to.
+     * @param maxQueue The number of calls that can wait for the limit, {@code 0} to reject calls over the
+     *                 limit immediately.
+     */
+    public AdaptiveLimiter(final int initialLimit, final int maxLimit, final int maxQueue) {
+        this(initialLimit, 1, maxLimit, maxQueue, Ticker.SYSTEM);
+    }
+
+    /**
+     * @param initialLimit The limit to start at.
+     * @param minLimit The lowest the limit can shrink to.
+     * @param maxLimit The highest the limit can grow to.
+     * @param maxQueue The number of calls that can wait for the limit, {@code 0} to reject calls over the
+     *                 limit immediately.
+     */
+    public AdaptiveLimiter(final int initialLimit, final int minLimit, final int maxLimit, final int maxQueue) {
+        this(initialLimit, minLimit, maxLimit, maxQueue, Ticker.SYSTEM);
+    }
+
+    AdaptiveLimiter(final int initialLimit, final int minLimit, final int maxLimit, final int maxQueue, final Ticker ticker) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(Messages.format("THEN-001300.limiter.illegal.limits", initialLimit, minLimit, maxLimit));
+        }
+        if (maxQueue < 0) {
+            throw new IllegalArgumentException(Messages.format("THEN-001303.limiter.argument.negative", "maxQueue"));
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.ticker = ticker;
+    }
+
+    /**
+     * @param call Starts the call, it is run by this thread or the thread completing an earlier call.
+     * @param <T> The type the call resolves to.
+     * @return A promise that will complete with the promise returned from {@code call}.
+     */
+    public <T> Promise<T,Throwable,Void> execute(final Callable<? extends Promise<? extends T,? extends Throwable,?>> call) {
+        if (call == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "call"));
+        }
+        final Call<T> issued = new Call<>(call);
+        final boolean full;
+        synchronized (lock) {
+            full = queue.size() >= maxQueue && (inFlight >= (int) limit || !queue.isEmpty());
+            if (full) {
+                ++rejected;
+            } else {
+                queue.addLast(issued);
+            }
+        }
+        if (full) {
+            issued.reject(new RejectedExecutionException(Messages.format("THEN-001301.limiter.limit.exceeded", getLimit())));
+            return issued;
+        }
+        issued.onCancel(issued.dequeue);
+        _drain();
+        return issued;
+    }
+
+    /**
+     * <p>Starts queued calls while there is room under the limit. Only one thread drains at a time so calls
+     * that complete synchronously do not recurse.</p>
+     */
+    private void _drain() {
+        for (;;) {
+            final Call<?> next;
+            synchronized (lock) {
+                if (draining) {
+                    return;
+                }
+                next = inFlight < (int) limit ? queue.pollFirst() : null;
+                if (next == null) {
+                    return;
+                }
+                ++inFlight;
+                draining = true;
+            }
+            try {
+                next.start(ticker.read());
+            } finally {
+                synchronized (lock) {
+                    draining = false;
+                }
+            }
+        }
+    }
+
+    private void _finish(final long start, final boolean sample) {
+        final long now = ticker.read();
+        synchronized (lock) {
+            final int inFlight = this.inFlight--;
+            if (sample) {
+                _sample(Math.max(1, now - start), inFlight);
+            }
+        }
+        _drain();
+    }
+
+    /**
+     * @param rtt The round trip time of a call.
+     * @param inFlight The number of calls in flight including the one sampled.
+     */
+    private void _sample(final long rtt, final int inFlight) {
+        this.rtt = rtt;
+        if (longRtt == 0) {
+            longRtt = rtt;
+        } else {
+            longRtt += (rtt - longRtt) / WINDOW;
+        }
+        // Let the average recover when it is far above a sustained lower latency
+        if (longRtt > rtt * 2) {
+            longRtt *= 0.95;
+        }
+        final double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / rtt));
+        final double next = limit * gradient + Math.sqrt(limit);
+        if (next > limit && inFlight < limit / 2) {
+            return;
+        }
+        final double smoothed = limit * (1 - SMOOTHING) + next * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+    }
+
+    @Override
+    public int getLimit() {
+        synchronized (lock) {
+            return (int) limit;
+        }
+    }
+
+    @Override
+    public int getInFlight() {
+        synchronized (lock) {
+            return inFlight;
+        }
+    }
+
+    @Override
+    public int getQueued() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    @Override
+    public long getRtt() {
+        synchronized (lock) {
+            return rtt;
+        }
+    }
+
+    @Override
+    public long getLongRtt() {
+        synchronized (lock) {
+            return (long) longRtt;
+        }
+    }
+
+    @Override
+    public long getRejected() {
+        synchronized (lock) {
+            return rejected;
+        }
+    }
+
+    /**
+     * <p>The promise issued for a call, it follows the promise the call returns once started.</p>
+     */
+    private final class Call<T> extends DeferredImpl<T,Throwable,Void> implements OnComplete {
+        final Callable<? extends Promise<? extends T,? extends Throwable,?>> call;
+        // Frees the call's place in the queue when it is cancelled before it starts
+        final OnCancel dequeue = new OnCancel() {
+            @Override
+            public boolean cancel(final boolean mayInterrupt) {
+                synchronized (lock) {
+                    return queue.remove(Call.this);
+                }
+            }
+        };
+        long start;
+
+        private Call(final Callable<? extends Promise<? extends T,? extends Throwable,?>> call) {
+            this.call = call;
+        }
+
+        void start(final long start) {
+            this.start = start;
+            if (isDone()) {
+                // Cancelled after leaving the queue
+                _finish(start, false);
+                return;
+            }
+            final Promise<? extends T,? extends Throwable,?> promise;
+            try {
+                promise = call.call();
+            } catch (final Throwable e) {
+                onComplete(this);
+                reject(e);
+                return;
+            }
+            if (promise == null) {
+                onComplete(this);
+                reject(new IllegalStateException(Messages.get("THEN-001302.limiter.call.returned.null")));
+                return;
+            }
+            onComplete(this);
+            onCancel(promise);
+            promise.onResolve(this)
+                    .onReject(this)
+                    .onCancel(this);
+        }
+
+        @Override
+        public void complete(final int state) {
+            _finish(start, state == RESOLVED);
+        }
+    }
+}
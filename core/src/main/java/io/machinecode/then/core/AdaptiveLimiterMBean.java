@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+/**
+ * <p>The management interface of an {@link AdaptiveLimiter}. Times are in nanoseconds.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public interface AdaptiveLimiterMBean {
+
+    /**
+     * @return The number of calls that may currently be in flight.
+     */
+    int getLimit();
+
+    int getInFlight();
+
+    int getQueued();
+
+    /**
+     * @return The round trip time of the most recent call.
+     */
+    long getRtt();
+
+    /**
+     * @return The moving average of the round trip time the limit is adjusted against.
+     */
+    long getLongRtt();
+
+    long getRejected();
+}
@@ -18,7 +18,6 @@ import io.machinecode.then.api.OnComplete;
 import io.machinecode.then.api.OnResolve;
 import io.machinecode.then.api.Promise;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -28,22 +27,33 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <p>A promise that will be resolved with a list of the values of all the promised
  * passed to it if they are all resolved.</p>
  *
+ * <p>The value of each promise is stored at the same index in the list as the promise had in the arguments,
+ * regardless of the order they are resolved in. The list is fixed size.</p>
+ *
  * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
  * @since 1.0
  */
 public class AllDeferred<T,F,P> extends DeferredImpl<List<T>,F,P> {
 
+    private final Object[] values;
+    private final AtomicInteger remaining;
+
     public AllDeferred(final Collection<? extends Promise<T,F,?>> promises) {
         if (promises.isEmpty()) {
+            this.values = null;
+            this.remaining = null;
             resolve(null);
             return;
         }
-        final Callback callback = new Callback(promises.size());
+        this.values = new Object[promises.size()];
+        this.remaining = new AtomicInteger(values.length);
+        int index = 0;
         for (final Promise<T,F,?> promise : promises) {
-            promise.onResolve(callback)
+            final Slot slot = new Slot(index++);
+            promise.onResolve(slot)
                     .onReject(this)
                     .onCancel(this)
-                    .onComplete(callback);
+                    .onComplete(slot);
         }
     }
 
@@ -51,25 +61,24 @@ public class AllDeferred<T,F,P> extends DeferredImpl<List<T>,F,P> {
         this(Arrays.asList(promises));
     }
 
-    private class Callback implements OnComplete, OnResolve<T> {
-        final AtomicInteger count = new AtomicInteger(0);
-        final int size;
-        final List<T> ret;
+    private class Slot implements OnComplete, OnResolve<T> {
+        final int index;
 
-        private Callback(final int size) {
-            this.size = size;
-            this.ret = new ArrayList<>(size);
+        private Slot(final int index) {
+            this.index = index;
         }
 
         @Override
         public void resolve(final T that) {
-            ret.add(that);
+            // Published to the last thread to complete by the decrement
+            values[index] = that;
         }
 
         @Override
+        @SuppressWarnings("unchecked")
         public void complete(final int state) {
-            if (count.incrementAndGet() == size) {
-                AllDeferred.this.resolve(ret);
+            if (remaining.decrementAndGet() == 0) {
+                AllDeferred.this.resolve((List<T>) Arrays.asList(values));
             }
         }
     }
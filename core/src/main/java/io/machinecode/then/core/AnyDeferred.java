@@ -31,11 +31,15 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class AnyDeferred<T,F,P> extends DeferredImpl<T,F,P> {
 
-    private static final Logger log = Logger.getLogger(AnyDeferred.class);
+    private static final class Log {
+        static final Logger log = Logger.getLogger(AnyDeferred.class);
+    }
 
     public AnyDeferred(final Collection<? extends Promise<T,?,?>> promises) {
         if (promises.isEmpty()) {
-            log.tracef(Messages.get("THEN-000500.promise.none.resolved.in.any"));
+            if (Tracing.ENABLED && Log.log.isTraceEnabled()) {
+                Log.log.tracef(Messages.get("THEN-000500.promise.none.resolved.in.any"));
+            }
             reject(null);
             return;
         }
@@ -45,7 +49,9 @@ public class AnyDeferred<T,F,P> extends DeferredImpl<T,F,P> {
             public void complete(final int state) {
                 final int n = count.incrementAndGet();
                 if (n == promises.size()) {
-                    log.tracef(Messages.get("THEN-000500.promise.none.resolved.in.any"));
+                    if (Tracing.ENABLED && Log.log.isTraceEnabled()) {
+                        Log.log.tracef(Messages.get("THEN-000500.promise.none.resolved.in.any"));
+                    }
                     reject(null);
                 }
             }
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Promise;
+import org.jboss.logging.Logger;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * <p>Collects requests for individual keys into batches that are loaded with a single call to a {@link Bulk}
+ * function. Each call to {@link #load(Object)} returns a promise for one key, a key requested more than once
+ * in the same batch is only loaded once and every caller shares its promise.</p>
+ *
+ * <p>A batch is dispatched to the executor when it holds {@code maxBatchSize} keys, when {@link #dispatch()}
+ * is called or, if a window was given, once the window has elapsed after the first key was added. Each
+ * promise is resolved with the value mapped to its key in the result of the bulk call or rejected with a
+ * {@link NoSuchElementException} if the result has no mapping for it. If the bulk call throws, every promise
+ * in the batch is rejected with the exception. Keys whose promise has been cancelled before the batch runs
+ * are left out of the bulk call.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public final class BatchLoader<K,V> {
+
+    private static final class Log {
+        static final Logger log = Logger.getLogger(BatchLoader.class);
+    }
+
+    private final Bulk<K,V> bulk;
+    private final Executor executor;
+    private final int maxBatchSize;
+    private final HashedWheelTimer timer;
+    private final long window;
+
+    private final Object lock = new Object();
+
+    // Guarded by the lock
+    private Batch current;
+
+    /**
+     * @param bulk Loads a batch of keys.
+     * @param executor Runs each bulk call.
+     * @param maxBatchSize The number of keys that will cause a batch to be dispatched.
+     */
+    public BatchLoader(final Bulk<K,V> bulk, final Executor executor, final int maxBatchSize) {
+        this(bulk, executor, maxBatchSize, 0, NANOSECONDS, null);
+    }
+
+    /**
+     * @param bulk Loads a batch of keys.
+     * @param executor Runs each bulk call.
+     * @param maxBatchSize The number of keys that will cause a batch to be dispatched.
+     * @param window How long after the first key is added a batch will be dispatched.
+     * @param unit The unit of {@code window}.
+     */
+    public BatchLoader(final Bulk<K,V> bulk, final Executor executor, final int maxBatchSize, final long window, final TimeUnit unit) {
+        this(bulk, executor, maxBatchSize, window, unit, HashedWheelTimer.shared());
+    }
+
+    /**
+     * @param bulk Loads a batch of keys.
+     * @param executor Runs each bulk call.
+     * @param maxBatchSize The number of keys that will cause a batch to be dispatched.
+     * @param window How long after the first key is added a batch will be dispatched, {@code 0} to only
+     *               dispatch when the batch is full or {@link #dispatch()} is called.
+     * @param unit The unit of {@code window}.
+     * @param timer Dispatches batches when their window elapses.
+     */
+    public BatchLoader(final Bulk<K,V> bulk, final Executor executor, final int maxBatchSize, final long window, final TimeUnit unit, final HashedWheelTimer timer) {
+        if (bulk == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "bulk"));
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "executor"));
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "unit"));
+        }
+        if (window > 0 && timer == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "timer"));
+        }
+        this.bulk = bulk;
+        this.executor = executor;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.window = Math.max(0, unit.toNanos(window));
+        this.timer = this.window == 0 ? null : timer;
+    }
+
+    /**
+     * @param key The key to load.
+     * @return A promise for the value of {@code key}.
+     */
+    public Promise<V,Throwable,Void> load(final K key) {
+        if (key == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "key"));
+        }
+        final Batch batch;
+        final boolean created;
+        final boolean full;
+        final DeferredImpl<V,Throwable,Void> deferred;
+        synchronized (lock) {
+            created = this.current == null;
+            batch = created
+                    ? this.current = new Batch()
+                    : this.current;
+            final DeferredImpl<V,Throwable,Void> existing = batch.deferreds.get(key);
+            if (existing == null) {
+                deferred = new DeferredImpl<>();
+                batch.deferreds.put(key, deferred);
+            } else {
+                deferred = existing;
+            }
+            full = batch.deferreds.size() >= maxBatchSize;
+            if (full) {
+                this.current = null;
+            }
+        }
+        if (full) {
+            _execute(batch);
+        } else if (created && timer != null) {
+            final HashedWheelTimer.Timeout timeout = timer.schedule(batch, window, NANOSECONDS);
+            synchronized (lock) {
+                if (this.current == batch) {
+                    batch.timeout = timeout;
+                    return deferred;
+                }
+            }
+            // Already dispatched
+            timeout.cancel();
+        }
+        return deferred;
+    }
+
+    /**
+     * <p>Dispatch the keys that have been collected without waiting for the batch to fill or its window to
+     * elapse.</p>
+     */
+    public void dispatch() {
+        final Batch batch;
+        synchronized (lock) {
+            batch = this.current;
+            this.current = null;
+        }
+        if (batch != null) {
+            _execute(batch);
+        }
+    }
+
+    private void _execute(final Batch batch) {
+        final HashedWheelTimer.Timeout timeout;
+        synchronized (lock) {
+            timeout = batch.timeout;
+            batch.timeout = null;
+        }
+        // The timer entry would keep the batch and its results until the window elapses
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        try {
+            executor.execute(batch.call);
+        } catch (final RuntimeException e) {
+            batch.reject(e);
+        }
+    }
+
+    /**
+     * <p>Runs the bulk call for a batch. The batch itself is the task given to the timer.</p>
+     */
+    private final class Batch implements Runnable {
+        final Map<K,DeferredImpl<V,Throwable,Void>> deferreds = new LinkedHashMap<>();
+        // Guarded by the lock, set while this batch is current
+        HashedWheelTimer.Timeout timeout;
+        final Runnable call = new Runnable() {
+            @Override
+            public void run() {
+                _call();
+            }
+        };
+
+        /**
+         * <p>Called when the window of this batch elapses.</p>
+         */
+        @Override
+        public void run() {
+            synchronized (lock) {
+                if (current != this) {
+                    return;
+                }
+                current = null;
+            }
+            _execute(this);
+        }
+
+        void _call() {
+            final Set<K> keys = new LinkedHashSet<>();
+            for (final Map.Entry<K,DeferredImpl<V,Throwable,Void>> entry : deferreds.entrySet()) {
+                if (!entry.getValue().isDone()) {
+                    keys.add(entry.getKey());
+                }
+            }
+            if (keys.isEmpty()) {
+                return;
+            }
+            final Map<K,? extends V> values;
+            try {
+                values = bulk.load(Collections.unmodifiableSet(keys));
+            } catch (final Throwable e) {
+                reject(e);
+                return;
+            }
+            for (final K key : keys) {
+                final DeferredImpl<V,Throwable,Void> deferred = deferreds.get(key);
+                try {
+                    if (values != null && values.containsKey(key)) {
+                        deferred.resolve(values.get(key));
+                    } else {
+                        deferred.reject(new NoSuchElementException(Messages.format("THEN-001100.batch.key.missing", key)));
+                    }
+                } catch (final Throwable e) {
+                    Log.log.warnf(e, Messages.get("THEN-001101.batch.listener.exception"));
+                }
+            }
+        }
+
+        void reject(final Throwable failure) {
+            for (final DeferredImpl<V,Throwable,Void> deferred : deferreds.values()) {
+                try {
+                    deferred.reject(failure);
+                } catch (final Throwable e) {
+                    Log.log.warnf(e, Messages.get("THEN-001101.batch.listener.exception"));
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Loads the values for a batch of keys.</p>
+     */
+    public interface Bulk<K,V> {
+
+        /**
+         * @param keys The keys to load, each key appears once.
+         * @return The value of each key that was found. Keys that are not in the result are rejected.
+         * @throws Exception If the batch could not be loaded, every key in the batch is rejected with it.
+         */
+        Map<K,? extends V> load(final Set<K> keys) throws Exception;
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.OnCancel;
+import io.machinecode.then.api.OnProgress;
+import io.machinecode.then.api.OnReject;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>Maps the elements of an {@link Iterator} through an asynchronous {@link Operation} keeping at most
+ * {@code concurrency} operations in flight. The next element is only taken from the iterator when an earlier
+ * one has been passed on, so neither the elements nor their promises need to exist up front as they do for
+ * {@link AllDeferred}.</p>
+ *
+ * <p>Each result is reported with {@link #progress(Object)} one at a time. In ordered mode results are
+ * reported in the order of their elements, results that complete early are held until those before them
+ * have been reported and count towards {@code concurrency}, so no more than {@code concurrency} results are
+ * ever held. In unordered mode results are reported as soon as they complete. This deferred is resolved with
+ * the number of results once the iterator is exhausted and every result has been reported.</p>
+ *
+ * <p>If an operation is rejected or throws, or the iterator throws, this deferred is rejected with the
+ * failure and the operations in flight are cancelled. If an operation is cancelled, or this deferred is
+ * cancelled, the operations in flight are cancelled. Elements are taken from the iterator while holding a
+ * lock so it need not be thread safe.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class BoundedMapDeferred<T,R> extends DeferredImpl<Long,Throwable,R> {
+
+    private static final class Log {
+        static final Logger log = Logger.getLogger(BoundedMapDeferred.class);
+    }
+
+    private final Iterator<? extends T> inputs;
+    private final Operation<? super T,? extends R> operation;
+    private final int concurrency;
+    private final boolean ordered;
+
+    private final Object guard = new Object();
+
+    // Guarded by guard
+    private final ArrayDeque<Slot> window = new ArrayDeque<>();
+    private final Set<Slot> running = new HashSet<>();
+    private int occupied = 0;
+    private long reported = 0;
+    private boolean exhausted = false;
+    private boolean stopped = false;
+    private boolean draining = false;
+
+    /**
+     * @param inputs The elements to map.
+     * @param operation Starts the operation for an element.
+     * @param concurrency The maximum number of operations in flight, and in ordered mode results waiting to
+     *                    be reported.
+     * @param ordered {@code true} to report results in the order of their elements.
+     * @param results Called with each result, may be {@code null}.
+     */
+    public BoundedMapDeferred(final Iterable<? extends T> inputs, final Operation<? super T,? extends R> operation, final int concurrency, final boolean ordered, final OnProgress<? super R> results) {
+        this(inputs == null ? null : inputs.iterator(), operation, concurrency, ordered, results);
+    }
+
+    /**
+     * @param inputs The elements to map.
+     * @param operation Starts the operation for an element.
+     * @param concurrency The maximum number of operations in flight, and in ordered mode results waiting to
+     *                    be reported.
+     * @param ordered {@code true} to report results in the order of their elements.
+     * @param results Called with each result, may be {@code null}.
+     */
+    public BoundedMapDeferred(final Iterator<? extends T> inputs, final Operation<? super T,? extends R> operation, final int concurrency, final boolean ordered, final OnProgress<? super R> results) {
+        if (inputs == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "inputs"));
+        }
+        if (operation == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "operation"));
+        }
+        this.inputs = inputs;
+        this.operation = operation;
+        this.concurrency = Math.max(1, concurrency);
+        this.ordered = ordered;
+        if (results != null) {
+            onProgress(results);
+        }
+        onCancel(new OnCancel() {
+            @Override
+            public boolean cancel(final boolean interrupt) {
+                _stop(interrupt);
+                return true;
+            }
+        });
+        _drain();
+    }
+
+    /**
+     * <p>Reports completed results and starts operations until there is nothing to do. Only one thread drains
+     * at a time, a thread that finds another draining leaves the work to it so operations that complete
+     * synchronously do not recurse.</p>
+     */
+    private void _drain() {
+        synchronized (guard) {
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        for (;;) {
+            Slot report = null;
+            Slot start = null;
+            T next = null;
+            boolean finish = false;
+            Throwable failure = null;
+            synchronized (guard) {
+                if (stopped) {
+                    draining = false;
+                    return;
+                }
+                final Slot head = window.peekFirst();
+                if (head != null && head.done) {
+                    report = window.pollFirst();
+                    --occupied;
+                    ++reported;
+                }
+                if (report == null && !exhausted && occupied < concurrency) {
+                    try {
+                        if (inputs.hasNext()) {
+                            next = inputs.next();
+                            start = new Slot();
+                            running.add(start);
+                            if (ordered) {
+                                window.addLast(start);
+                            }
+                            ++occupied;
+                        } else {
+                            exhausted = true;
+                        }
+                    } catch (final Throwable e) {
+                        failure = e;
+                        draining = false;
+                    }
+                }
+                if (report == null && start == null && failure == null) {
+                    if (exhausted && occupied == 0) {
+                        stopped = true;
+                        finish = true;
+                    }
+                    draining = false;
+                    if (!finish) {
+                        return;
+                    }
+                }
+            }
+            if (failure != null) {
+                _fail(failure);
+                return;
+            }
+            if (finish) {
+                resolve(reported);
+                return;
+            }
+            if (report != null) {
+                _report(report.value);
+            }
+            if (start != null) {
+                _start(start, next);
+            }
+        }
+    }
+
+    private void _start(final Slot slot, final T that) {
+        final Promise<? extends R,? extends Throwable,?> promise;
+        try {
+            promise = operation.apply(that);
+        } catch (final Throwable e) {
+            _fail(e);
+            return;
+        }
+        if (promise == null) {
+            _fail(new IllegalStateException(Messages.format("THEN-001200.map.operation.returned.null", that)));
+            return;
+        }
+        slot.promise = promise;
+        boolean stopped;
+        synchronized (guard) {
+            stopped = this.stopped;
+        }
+        if (stopped) {
+            promise.cancel(true);
+            return;
+        }
+        promise.onResolve(slot)
+                .onReject(slot)
+                .onCancel(slot);
+    }
+
+    private void _report(final R that) {
+        try {
+            progress(that);
+        } catch (final Throwable e) {
+            Log.log.warnf(e, Messages.get("THEN-001201.map.listener.exception"));
+        }
+    }
+
+    private void _fail(final Throwable failure) {
+        if (_stop(true)) {
+            reject(failure);
+        }
+    }
+
+    /**
+     * @return {@code true} if this call stopped the mapping.
+     */
+    private boolean _stop(final boolean interrupt) {
+        final List<Slot> running;
+        synchronized (guard) {
+            if (stopped) {
+                return false;
+            }
+            stopped = true;
+            running = new ArrayList<>(this.running);
+            this.running.clear();
+            this.window.clear();
+        }
+        for (final Slot slot : running) {
+            final Promise<?,?,?> promise = slot.promise;
+            if (promise != null) {
+                promise.cancel(interrupt);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>Starts the asynchronous operation for an element.</p>
+     */
+    public interface Operation<T,R> {
+
+        /**
+         * @param that The element to map.
+         * @return A promise for the result of mapping {@code that}.
+         * @throws Exception If the operation could not be started, the mapping is rejected with it.
+         */
+        Promise<? extends R,? extends Throwable,?> apply(final T that) throws Exception;
+    }
+
+    private final class Slot implements OnResolve<R>, OnReject<Throwable>, OnCancel {
+        volatile Promise<?,?,?> promise;
+        // Guarded by guard
+        R value;
+        boolean done;
+
+        @Override
+        public void resolve(final R that) {
+            synchronized (guard) {
+                if (!running.remove(this)) {
+                    return;
+                }
+                value = that;
+                done = true;
+                if (!ordered) {
+                    window.addLast(this);
+                }
+            }
+            _drain();
+        }
+
+        @Override
+        public void reject(final Throwable that) {
+            _fail(that);
+        }
+
+        @Override
+        public boolean cancel(final boolean interrupt) {
+            synchronized (guard) {
+                // Cancelled after the mapping was stopped
+                if (!running.contains(this)) {
+                    return true;
+                }
+            }
+            BoundedMapDeferred.this.cancel(interrupt);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import static io.machinecode.then.api.Deferred.CANCELLED;
+
+/**
+ * <p>An immutable promise in the {@link io.machinecode.then.api.Deferred#CANCELLED} state.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public final class CancelledPromise<T,F,P> extends CompletedPromise<T,F,P> {
+
+    private static final CancelledPromise<?,?,?> INTERRUPTED = new CancelledPromise<>(true);
+    private static final CancelledPromise<?,?,?> NOT_INTERRUPTED = new CancelledPromise<>(false);
+
+    private CancelledPromise(final boolean interrupt) {
+        super(CANCELLED, null, null, interrupt);
+    }
+
+    /**
+     * @param interrupt The value passed to {@link io.machinecode.then.api.OnCancel} listeners.
+     * @return A shared cancelled promise.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T,F,P> CancelledPromise<T,F,P> of(final boolean interrupt) {
+        return (CancelledPromise<T,F,P>) (interrupt ? INTERRUPTED : NOT_INTERRUPTED);
+    }
+}
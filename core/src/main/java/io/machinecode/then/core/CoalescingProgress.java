@@ -0,0 +1,202 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.OnProgress;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * <p>Passes progress on to another listener, keeping only the most recent value while a notification is
+ * pending. Publishing a value is a volatile write, and a notification is only scheduled when none is
+ * pending. Values replaced before the notification runs are dropped without allocating.</p>
+ *
+ * <p>A producer that reports progress frequently can publish through this in place of
+ * {@link io.machinecode.then.api.Deferred#progress(Object)} so the listeners of the deferred are called at
+ * most once per interval:</p>
+ *
+ * <pre>
+ * final OnProgress&lt;Long&gt; progress = new CoalescingProgress&lt;&gt;(deferred, 100, MILLISECONDS);
+ * while ((read = in.read(buffer)) != -1) {
+ *     out.write(buffer, 0, read);
+ *     progress.progress(copied += read);
+ * }
+ * deferred.resolve(copied);
+ * </pre>
+ *
+ * <p>It can also be registered as a listener to coalesce the progress a single listener receives.</p>
+ *
+ * <p>The target is only called by one notification at a time, from the executor, the timer thread or the
+ * publishing thread when the interval has already elapsed. A notification that starts while another is
+ * delivering leaves the value for the one delivering to pick up once the target returns, so values are
+ * delivered in the order they were published. Progress may still be delivered after the deferred reaches a
+ * terminal state. A producer that needs the last value delivered first can call {@link #flush()}.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class CoalescingProgress<P> implements OnProgress<P>, Runnable {
+
+    private static final Object NONE = new Object();
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<CoalescingProgress,Object> LATEST
+            = AtomicReferenceFieldUpdater.newUpdater(CoalescingProgress.class, Object.class, "latest");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<CoalescingProgress> SCHEDULED
+            = AtomicIntegerFieldUpdater.newUpdater(CoalescingProgress.class, "scheduled");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<CoalescingProgress> DRAINING
+            = AtomicIntegerFieldUpdater.newUpdater(CoalescingProgress.class, "draining");
+
+    private final OnProgress<? super P> target;
+    private final Executor executor;
+    private final HashedWheelTimer timer;
+    private final long interval;
+
+    private volatile Object latest = NONE;
+    private volatile int scheduled = 0;
+    // The number of requests to deliver, only the thread that moved it from zero calls the target
+    private volatile int draining = 0;
+    private volatile long last;
+
+    /**
+     * @param target The listener to notify.
+     * @param executor Runs each notification.
+     */
+    public CoalescingProgress(final OnProgress<? super P> target, final Executor executor) {
+        if (target == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "target"));
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "executor"));
+        }
+        this.target = target;
+        this.executor = executor;
+        this.timer = null;
+        this.interval = 0;
+    }
+
+    /**
+     * @param target The listener to notify.
+     * @param interval The minimum time between notifications.
+     * @param unit The unit of {@code interval}.
+     */
+    public CoalescingProgress(final OnProgress<? super P> target, final long interval, final TimeUnit unit) {
+        this(target, interval, unit, HashedWheelTimer.shared());
+    }
+
+    /**
+     * @param target The listener to notify.
+     * @param interval The minimum time between notifications.
+     * @param unit The unit of {@code interval}.
+     * @param timer Runs notifications that have to wait for the interval to elapse.
+     */
+    public CoalescingProgress(final OnProgress<? super P> target, final long interval, final TimeUnit unit, final HashedWheelTimer timer) {
+        if (target == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "target"));
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "unit"));
+        }
+        if (timer == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "timer"));
+        }
+        this.target = target;
+        this.executor = null;
+        this.timer = timer;
+        this.interval = Math.max(0, unit.toNanos(interval));
+        this.last = System.nanoTime() - this.interval;
+    }
+
+    @Override
+    public void progress(final P that) {
+        latest = that;
+        if (scheduled == 0 && SCHEDULED.compareAndSet(this, 0, 1)) {
+            _schedule();
+        }
+    }
+
+    /**
+     * <p>Deliver the most recent value now if it has not already been delivered. If a notification is being
+     * delivered by another thread that thread delivers the value once the target returns.</p>
+     */
+    public void flush() {
+        if (DRAINING.getAndIncrement(this) != 0) {
+            return;
+        }
+        int missed = 1;
+        try {
+            for (;;) {
+                final Object value = LATEST.getAndSet(this, NONE);
+                if (value != NONE) {
+                    _notify(value);
+                }
+                missed = DRAINING.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        } catch (final RuntimeException | Error e) {
+            // A value left behind is delivered by the next notification
+            draining = 0;
+            throw e;
+        }
+    }
+
+    /**
+     * <p>Runs a notification.</p>
+     */
+    @Override
+    public void run() {
+        if (executor == null) {
+            last = System.nanoTime();
+        }
+        // Cleared before taking the value so a value published after this point schedules another notification.
+        // If that notification starts while this one is delivering flush hands the value back to this thread.
+        scheduled = 0;
+        flush();
+    }
+
+    private void _schedule() {
+        try {
+            if (executor != null) {
+                executor.execute(this);
+                return;
+            }
+            final long delay = last + interval - System.nanoTime();
+            if (delay <= 0) {
+                run();
+            } else {
+                timer.schedule(this, delay, NANOSECONDS);
+            }
+        } catch (final RuntimeException e) {
+            scheduled = 0;
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void _notify(final Object value) {
+        target.progress((P) value);
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.FailureException;
+import io.machinecode.then.api.OnCancel;
+import io.machinecode.then.api.OnComplete;
+import io.machinecode.then.api.OnProgress;
+import io.machinecode.then.api.OnReject;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Pipeline;
+import io.machinecode.then.api.Progress;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.api.Reject;
+import io.machinecode.then.api.Resolve;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.machinecode.then.api.Deferred.CANCELLED;
+import static io.machinecode.then.api.Deferred.REJECTED;
+import static io.machinecode.then.api.Deferred.RESOLVED;
+
+/**
+ * <p>An immutable promise that is created in a terminal state. It holds no lock and stores no listeners,
+ * listeners for its state are run immediately by the thread that registers them and all others are
+ * dropped. As its state can not change it can be shared freely.</p>
+ *
+ * <p>As {@link #get()} never blocks {@link #onGet(Future)} listeners are not retained or called.</p>
+ *
+ * @see ResolvedPromise
+ * @see RejectedPromise
+ * @see CancelledPromise
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public abstract class CompletedPromise<T,F,P> implements Promise<T,F,P> {
+
+    protected final byte state;
+    protected final T value;
+    protected final F failure;
+    protected final boolean interrupt;
+
+    protected CompletedPromise(final byte state, final T value, final F failure, final boolean interrupt) {
+        this.state = state;
+        this.value = value;
+        this.failure = failure;
+        this.interrupt = interrupt;
+    }
+
+    @Override
+    public boolean cancel(final boolean interrupt) {
+        return state == CANCELLED;
+    }
+
+    @Override
+    public boolean isDone() {
+        return true;
+    }
+
+    @Override
+    public boolean isResolved() {
+        return state == RESOLVED;
+    }
+
+    @Override
+    public boolean isRejected() {
+        return state == REJECTED;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    @Override
+    public Promise<T,F,P> onResolve(final OnResolve<? super T> then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onResolve"));
+        }
+        if (state == RESOLVED) {
+            then.resolve(value);
+        }
+        return this;
+    }
+
+    @Override
+    public Promise<T,F,P> onReject(final OnReject<? super F> then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onReject"));
+        }
+        if (state == REJECTED) {
+            then.reject(failure);
+        }
+        return this;
+    }
+
+    @Override
+    public Promise<T,F,P> onCancel(final OnCancel then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onCancel"));
+        }
+        if (state == CANCELLED) {
+            then.cancel(interrupt);
+        }
+        return this;
+    }
+
+    @Override
+    public Promise<T,F,P> onComplete(final OnComplete then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onComplete"));
+        }
+        then.complete(state);
+        return this;
+    }
+
+    @Override
+    public Promise<T,F,P> onProgress(final OnProgress<? super P> then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onProgress"));
+        }
+        return this;
+    }
+
+    @Override
+    public Promise<T,F,P> onResolve(final Executor executor, final OnResolve<? super T> then) {
+        if (executor == null || then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onResolve"));
+        }
+        if (state == RESOLVED) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    then.resolve(value);
+                }
+            });
+        }
+        return this;
+    }
+
+    @Override
+    public Promise<T,F,P> onReject(final Executor executor, final OnReject<? super F> then) {
+        if (executor == null || then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onReject"));
+        }
+        if (state == REJECTED) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    then.reject(failure);
+                }
+            });
+        }
+        return this;
+    }
+
+    @Override
+    public Promise<T,F,P> onComplete(final Executor executor, final OnComplete then) {
+        if (executor == null || then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onComplete"));
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                then.complete(state);
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public Promise<T,F,P> onProgress(final Executor executor, final OnProgress<? super P> then) {
+        if (executor == null || then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onProgress"));
+        }
+        return this;
+    }
+
+    @Override
+    public Promise<T,F,P> onGet(final Future<?> then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onGet"));
+        }
+        return this;
+    }
+
+    @Override
+    public <Tx> Promise<Tx,F,P> then(final Resolve<? super T,Tx,F,P> then) {
+        final DeferredImpl<Tx,F,P> next = new DeferredImpl<>();
+        _then(then, next);
+        return next;
+    }
+
+    @Override
+    public <Tx,Fx> Promise<Tx,Fx,P> then(final Reject<? super T,? super F,Tx,Fx,P> then) {
+        final DeferredImpl<Tx,Fx,P> next = new DeferredImpl<>();
+        _then(then, next);
+        return next;
+    }
+
+    @Override
+    public <Tx,Fx,Px> Promise<Tx,Fx,Px> then(final Progress<? super T,? super F,? super P,Tx,Fx,Px> then) {
+        final DeferredImpl<Tx,Fx,Px> next = new DeferredImpl<>();
+        _then(then, next);
+        return next;
+    }
+
+    @Override
+    public <Tx> Promise<Tx,F,P> then(final Executor executor, final Resolve<? super T,Tx,F,P> then) {
+        final DeferredImpl<Tx,F,P> next = new DeferredImpl<>();
+        if (state != RESOLVED) {
+            _then(then, next);
+            return next;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                _then(then, next);
+            }
+        });
+        return next;
+    }
+
+    @Override
+    public <Tx,Fx> Promise<Tx,Fx,P> then(final Executor executor, final Reject<? super T,? super F,Tx,Fx,P> then) {
+        final DeferredImpl<Tx,Fx,P> next = new DeferredImpl<>();
+        if (state == CANCELLED) {
+            next.cancel(interrupt);
+            return next;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                _then(then, next);
+            }
+        });
+        return next;
+    }
+
+    @Override
+    public <Tx,Fx,Px> Promise<Tx,Fx,Px> then(final Executor executor, final Progress<? super T,? super F,? super P,Tx,Fx,Px> then) {
+        final DeferredImpl<Tx,Fx,Px> next = new DeferredImpl<>();
+        if (state == CANCELLED) {
+            next.cancel(interrupt);
+            return next;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                _then(then, next);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * <p>Already done so the new promise would end in the same state as this one.</p>
+     */
+    @Override
+    public Promise<T,F,P> orTimeout(final long timeout, final TimeUnit unit, final F failure) {
+        return this;
+    }
+
+    /**
+     * <p>Already done so the new promise would end in the same state as this one.</p>
+     */
+    @Override
+    public Promise<T,F,P> completeOnTimeout(final T value, final long timeout, final TimeUnit unit) {
+        return this;
+    }
+
+    @Override
+    public Pipeline<T,F,P> pipeline() {
+        return new FusedPipeline<>(this);
+    }
+
+    @Override
+    public T get() throws ExecutionException {
+        switch (state) {
+            case RESOLVED:
+                return value;
+            case REJECTED:
+                final String msg = Messages.format("THEN-000201.promise.rejected");
+                throw StacklessExceptions.rejected(msg, failure instanceof Throwable
+                        ? (Throwable) failure
+                        : new FailureException(msg, failure));
+            default:
+                throw StacklessExceptions.cancelled();
+        }
+    }
+
+    @Override
+    public T get(final long timeout, final TimeUnit unit) throws ExecutionException {
+        return get();
+    }
+
+    private <Tx> void _then(final Resolve<? super T,Tx,F,P> then, final Deferred<Tx,F,P> next) {
+        switch (state) {
+            case RESOLVED:
+                then.resolve(value, next);
+                break;
+            case REJECTED:
+                next.reject(failure);
+                break;
+            default:
+                next.cancel(interrupt);
+        }
+    }
+
+    private <Tx,Fx> void _then(final Reject<? super T,? super F,Tx,Fx,P> then, final Deferred<Tx,Fx,P> next) {
+        switch (state) {
+            case RESOLVED:
+                then.resolve(value, next);
+                break;
+            case REJECTED:
+                then.reject(failure, next);
+                break;
+            default:
+                next.cancel(interrupt);
+        }
+    }
+
+    private <Tx,Fx,Px> void _then(final Progress<? super T,? super F,? super P,Tx,Fx,Px> then, final Deferred<Tx,Fx,Px> next) {
+        switch (state) {
+            case RESOLVED:
+                then.resolve(value, next);
+                break;
+            case REJECTED:
+                then.reject(failure, next);
+                break;
+            default:
+                next.cancel(interrupt);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(getClass().getSimpleName()).append('{');
+        sb.append("state=").append(state).append(" (").append(_stateToString()).append(")");
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private String _stateToString() {
+        switch (state) {
+            case RESOLVED: return "RESOLVED";
+            case REJECTED: return "REJECTED";
+            default: return "CANCELLED";
+        }
+    }
+}
@@ -22,21 +22,25 @@ import io.machinecode.then.api.OnComplete;
 import io.machinecode.then.api.OnProgress;
 import io.machinecode.then.api.OnReject;
 import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Pipeline;
 import io.machinecode.then.api.Progress;
 import io.machinecode.then.api.Promise;
 import io.machinecode.then.api.Reject;
 import io.machinecode.then.api.Resolve;
 import org.jboss.logging.Logger;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
 
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * <p>A thread safe {@link Deferred} implementation that silently drops multiple calls to terminal methods.</p>
@@ -48,7 +52,10 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
  */
 public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
 
-    private static final Logger log = Logger.getLogger(DeferredImpl.class);
+    // Created on first use so constructing a deferred does not start the logging framework
+    private static final class Log {
+        static final Logger log = Logger.getLogger(DeferredImpl.class);
+    }
 
     protected static final byte ON_RESOLVE     = 100;
     protected static final byte ON_REJECT      = 101;
@@ -64,33 +71,87 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
 
     protected final Object lock = new Object();
 
-    private Event[] events;
-    private int length = 0;
+    // Listeners are kept in a separate array for each event so dispatching an event only visits the listeners
+    // it will call. The arrays are only ever appended to while holding the lock and are replaced rather than
+    // modified when they grow, so a copy of the reference and length is a consistent snapshot. Terminal listeners
+    // are not added once a terminal state has been reached so the thread that reached it can read them directly.
+    private final int hint;
 
-    private static class Event {
-        public final byte event;
-        public final Object value;
+    private Object[] resolves;
+    private Object[] rejects;
+    private Object[] cancels;
+    private Object[] completes;
+    private Object[] progresses;
+    private Object[] gets;
 
-        private Event(final byte event, final Object value) {
-            this.event = event;
-            this.value = value;
-        }
-    }
+    private int resolveLength = 0;
+    private int rejectLength = 0;
+    private int cancelLength = 0;
+    private int completeLength = 0;
+    private int progressLength = 0;
+    private int getLength = 0;
+
+    private Dispatch<T,F,P> dispatch;
+
+    // Threads blocked in get. Only added to while holding the lock and before a terminal state is reached.
+    private volatile Waiter waiters;
+
+    // Null unless metrics were installed when this was constructed
+    private final Metrics.Recorder recorder;
+    private final long created;
 
     protected void addEvent(final byte event, final Object that) {
         synchronized (lock) {
-            if (length >= events.length) {
-                final Event[] events = new Event[this.events.length * 2];
-                System.arraycopy(this.events, 0, events, 0, length);
-                this.events = events;
+            switch (event) {
+                case ON_RESOLVE:
+                    resolves = _add(resolves, resolveLength++, that);
+                    break;
+                case ON_REJECT:
+                    rejects = _add(rejects, rejectLength++, that);
+                    break;
+                case ON_CANCEL:
+                    cancels = _add(cancels, cancelLength++, that);
+                    break;
+                case ON_COMPLETE:
+                    completes = _add(completes, completeLength++, that);
+                    break;
+                case ON_PROGRESS:
+                    progresses = _add(progresses, progressLength++, that);
+                    break;
+                case ON_GET:
+                    gets = _add(gets, getLength++, that);
+                    break;
+                default:
+                    throw new IllegalArgumentException(Messages.format("THEN-000404.promise.unknown.event", event));
             }
-            events[length++] = new Event(event, that);
         }
     }
 
+    private Object[] _add(final Object[] listeners, final int length, final Object that) {
+        final Object[] ret;
+        if (listeners == null) {
+            ret = new Object[hint];
+        } else if (length >= listeners.length) {
+            ret = Arrays.copyOf(listeners, length * 2);
+        } else {
+            ret = listeners;
+        }
+        ret[length] = that;
+        return ret;
+    }
+
     protected <T> Iterable<T> getEvents(final byte event) {
         synchronized (lock) {
-            return new EventIterable<>(event, DeferredImpl.this.events, DeferredImpl.this.length);
+            switch (event) {
+                case ON_RESOLVE: return new EventIterable<>(resolves, resolveLength);
+                case ON_REJECT: return new EventIterable<>(rejects, rejectLength);
+                case ON_CANCEL: return new EventIterable<>(cancels, cancelLength);
+                case ON_COMPLETE: return new EventIterable<>(completes, completeLength);
+                case ON_PROGRESS: return new EventIterable<>(progresses, progressLength);
+                case ON_GET: return new EventIterable<>(gets, getLength);
+                default:
+                    throw new IllegalArgumentException(Messages.format("THEN-000404.promise.unknown.event", event));
+            }
         }
     }
 
@@ -98,8 +159,18 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
         this(2);
     }
 
+    /**
+     * @param hint The initial capacity to allocate for each type of listener when the first is added.
+     */
     public DeferredImpl(final int hint) {
-        this.events = new Event[hint];
+        this.hint = hint < 1 ? 1 : hint;
+        final Metrics.Recorder recorder = this.recorder = Monitoring.recorder(getClass());
+        if (recorder == null) {
+            this.created = 0;
+        } else {
+            this.created = System.nanoTime();
+            recorder.created();
+        }
     }
 
     protected boolean setValue(final T value) {
@@ -144,38 +215,17 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
 
     @Override
     public void resolve(final T value) throws ListenerException {
-        log().tracef(getResolveLogMessage(), value);
-        final Event[] events;
-        final int length;
-        final int state;
+        if (Tracing.ENABLED && log().isTraceEnabled()) {
+            log().tracef(getResolveLogMessage(), value);
+        }
+        final byte state;
         synchronized (lock) {
             if (setValue(value)) {
                 return;
             }
-            events = this.events;
-            length = this.length;
             state = this.state;
         }
-        ListenerException exception = null;
-        for (int i = 0; i < length; ++i) {
-            final Event event = events[i];
-            if (event.event != ON_RESOLVE) {
-                continue;
-            }
-            @SuppressWarnings("unchecked")
-            final OnResolve<T> on = ((OnResolve<T>)event.value);
-            exception = _callOnResolve(exception, on);
-        }
-        for (int i = 0; i < length; ++i) {
-            final Event event = events[i];
-            if (event.event != ON_COMPLETE) {
-                continue;
-            }
-            exception = _callOnComplete(exception, ((OnComplete) event.value), state);
-        }
-        synchronized (lock) {
-            lock.notifyAll();
-        }
+        final ListenerException exception = _complete(state, false);
         if (exception != null) {
             throw exception;
         }
@@ -183,38 +233,17 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
 
     @Override
     public void reject(final F failure) {
-        log().tracef(getRejectLogMessage(), failure);
-        final Event[] events;
-        final int length;
-        final int state;
+        if (Tracing.ENABLED && log().isTraceEnabled()) {
+            log().tracef(getRejectLogMessage(), failure);
+        }
+        final byte state;
         synchronized (lock) {
             if (setFailure(failure)) {
                 return;
             }
-            events = this.events;
-            length = this.length;
             state = this.state;
         }
-        ListenerException exception = null;
-        for (int i = 0; i < length; ++i) {
-            final Event event = events[i];
-            if (event.event != ON_REJECT) {
-                continue;
-            }
-            @SuppressWarnings("unchecked")
-            final OnReject<F> on = ((OnReject<F>)event.value);
-            exception = _callOnReject(exception, on);
-        }
-        for (int i = 0; i < length; ++i) {
-            final Event event = events[i];
-            if (event.event != ON_COMPLETE) {
-                continue;
-            }
-            exception = _callOnComplete(exception, (OnComplete) event.value, state);
-        }
-        synchronized (lock) {
-            lock.notifyAll();
-        }
+        final ListenerException exception = _complete(state, false);
         if (exception != null) {
             throw exception;
         }
@@ -222,23 +251,24 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
 
     @Override
     public void progress(final P that) {
-        log().tracef(getProgressLogMessage(), that);
-        final Event[] events;
+        if (Tracing.ENABLED && log().isTraceEnabled()) {
+            log().tracef(getProgressLogMessage(), that);
+        }
+        final Object[] progresses;
         final int length;
         synchronized (lock) {
-            events = this.events;
-            length = this.length;
+            progresses = this.progresses;
+            length = this.progressLength;
         }
         ListenerException exception = null;
         for (int i = 0; i < length; ++i) {
-            final Event event = events[i];
-            if (event.event != ON_PROGRESS) {
-                continue;
-            }
             @SuppressWarnings("unchecked")
-            final OnProgress<P> on = ((OnProgress<P>)event.value);
+            final OnProgress<P> on = ((OnProgress<P>)progresses[i]);
             exception = _callOnProgress(exception, on, that);
         }
+        if (recorder != null) {
+            recorder.dispatched(length, _failures(exception));
+        }
         if (exception != null) {
             throw exception;
         }
@@ -246,40 +276,139 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
 
     @Override
     public boolean cancel(final boolean interrupt) throws ListenerException {
-        log().tracef(getCancelLogMessage());
-        final Event[] events;
-        final int length;
-        final int state;
+        if (Tracing.ENABLED && log().isTraceEnabled()) {
+            log().tracef(getCancelLogMessage());
+        }
+        final byte state;
         synchronized (lock) {
             if (setCancelled()) {
                 return isCancelled();
             }
-            events = this.events;
-            length = this.length;
             state = this.state;
         }
-        ListenerException exception = null;
-        for (int i = 0; i < length; ++i) {
-            final Event event = events[i];
-            if (event.event != ON_CANCEL) {
-                continue;
+        final ListenerException exception = _complete(state, interrupt);
+        if (exception != null) {
+            throw exception;
+        }
+        return true;
+    }
+
+    /**
+     * <p>Runs the listeners for a terminal state, on a {@link Trampoline} if it is enabled. Must only be called
+     * by the thread that moved this deferred into {@code state}.</p>
+     *
+     * @param state The terminal state.
+     * @param interrupt The argument to pass to {@link OnCancel} listeners.
+     * @return An exception if any listener threw one, otherwise {@code null}.
+     */
+    protected ListenerException _complete(final byte state, final boolean interrupt) {
+        if (recorder != null) {
+            recorder.completed(state, System.nanoTime() - created);
+        }
+        // Threads blocked in get only need the state, they are not held up by listeners queued on a trampoline
+        _signal();
+        if (!Trampoline.isEnabled()) {
+            return _fire(state, interrupt);
+        }
+        return Trampoline.run(new Trampoline.Task() {
+            @Override
+            public ListenerException run() {
+                return _fire(state, interrupt);
             }
-            exception = _callOnCancel(exception, (OnCancel) event.value, interrupt);
+        });
+    }
+
+    private ListenerException _fire(final byte state, final boolean interrupt) {
+        ListenerException exception = null;
+        switch (state) {
+            case RESOLVED:
+                for (int i = 0; i < resolveLength; ++i) {
+                    @SuppressWarnings("unchecked")
+                    final OnResolve<T> on = ((OnResolve<T>)resolves[i]);
+                    exception = _callOnResolve(exception, on);
+                }
+                break;
+            case REJECTED:
+                for (int i = 0; i < rejectLength; ++i) {
+                    @SuppressWarnings("unchecked")
+                    final OnReject<F> on = ((OnReject<F>)rejects[i]);
+                    exception = _callOnReject(exception, on);
+                }
+                break;
+            case CANCELLED:
+                for (int i = 0; i < cancelLength; ++i) {
+                    exception = _callOnCancel(exception, (OnCancel) cancels[i], interrupt);
+                }
+                break;
         }
-        for (int i = 0; i < length; ++i) {
-            final Event event = events[i];
-            if (event.event != ON_COMPLETE) {
-                continue;
+        for (int i = 0; i < completeLength; ++i) {
+            exception = _callOnComplete(exception, (OnComplete) completes[i], state);
+        }
+        if (recorder != null) {
+            final int listeners;
+            switch (state) {
+                case RESOLVED: listeners = resolveLength; break;
+                case REJECTED: listeners = rejectLength; break;
+                default: listeners = cancelLength;
             }
-            exception = _callOnComplete(exception, (OnComplete) event.value, state);
+            recorder.dispatched(listeners + completeLength, _failures(exception));
         }
+        _release();
+        return exception;
+    }
+
+    /**
+     * <p>Drops the listeners that can not be called again now the terminal listeners have run so they are not
+     * retained for as long as this deferred is. Progress and get listeners are kept as they are still called by
+     * {@link #progress(Object)} and {@link #get()}. The stages added by {@code then} are registered for those
+     * through a {@link Link} that lets go of the stage once it completes.</p>
+     */
+    private void _release() {
         synchronized (lock) {
-            lock.notifyAll();
+            resolves = rejects = cancels = completes = null;
+            resolveLength = rejectLength = cancelLength = completeLength = 0;
+            dispatch = null;
+            waiters = null;
         }
-        if (exception != null) {
-            throw exception;
+    }
+
+    /**
+     * @param exception The exception from a dispatch.
+     * @return The number of listeners that failed during a dispatch.
+     */
+    static int _failures(final ListenerException exception) {
+        return exception == null ? 0 : 1 + exception.getSuppressed().length;
+    }
+
+    private void _signal() {
+        for (Waiter waiter = this.waiters; waiter != null; waiter = waiter.next) {
+            final Thread thread = waiter.thread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    /**
+     * @return A waiter for the current thread or {@code null} if this deferred has reached a terminal state.
+     */
+    private Waiter _addWaiter() {
+        synchronized (lock) {
+            if (isDone()) {
+                return null;
+            }
+            // Drop waiters that have timed out or been interrupted
+            Waiter head = this.waiters;
+            while (head != null && head.thread == null) {
+                head = head.next;
+            }
+            for (Waiter prev = head; prev != null; prev = prev.next) {
+                while (prev.next != null && prev.next.thread == null) {
+                    prev.next = prev.next.next;
+                }
+            }
+            return this.waiters = new Waiter(head);
         }
-        return true;
     }
 
     @Override
@@ -322,13 +451,14 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
                     return this;
                 case RESOLVED:
                     run = true;
+                    break;
                 case PENDING:
                 default:
                     addEvent(ON_RESOLVE, then);
             }
         }
         if (run) {
-            then.resolve(this.value);
+            then.resolve(_value());
         }
         return this;
     }
@@ -346,6 +476,7 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
                     return this;
                 case REJECTED:
                     run = true;
+                    break;
                 case PENDING:
                 default:
                     addEvent(ON_REJECT, then);
@@ -370,6 +501,7 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
                     return this;
                 case CANCELLED:
                     run = true;
+                    break;
                 case PENDING:
                 default:
                     addEvent(ON_CANCEL, then);
@@ -393,6 +525,7 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
                 case CANCELLED:
                 case RESOLVED:
                     run = true;
+                    break;
                 case PENDING:
                 default:
                     addEvent(ON_COMPLETE, then);
@@ -426,6 +559,87 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
         return this;
     }
 
+    @Override
+    public Deferred<T,F,P> onResolve(final Executor executor, final OnResolve<? super T> then) {
+        if (executor == null || then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onResolve"));
+        }
+        final Dispatch<T,F,P> dispatch = _dispatch(executor);
+        if (dispatch == null || !dispatch.addResolve(then)) {
+            final Dispatch<T,F,P> single = new Dispatch<>(executor, null);
+            single.addResolve(then);
+            single.register(this);
+        }
+        return this;
+    }
+
+    @Override
+    public Deferred<T,F,P> onReject(final Executor executor, final OnReject<? super F> then) {
+        if (executor == null || then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onReject"));
+        }
+        final Dispatch<T,F,P> dispatch = _dispatch(executor);
+        if (dispatch == null || !dispatch.addReject(then)) {
+            final Dispatch<T,F,P> single = new Dispatch<>(executor, null);
+            single.addReject(then);
+            single.register(this);
+        }
+        return this;
+    }
+
+    @Override
+    public Deferred<T,F,P> onComplete(final Executor executor, final OnComplete then) {
+        if (executor == null || then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onComplete"));
+        }
+        final Dispatch<T,F,P> dispatch = _dispatch(executor);
+        if (dispatch == null || !dispatch.addComplete(then)) {
+            final Dispatch<T,F,P> single = new Dispatch<>(executor, null);
+            single.addComplete(then);
+            single.register(this);
+        }
+        return this;
+    }
+
+    @Override
+    public Deferred<T,F,P> onProgress(final Executor executor, final OnProgress<? super P> then) {
+        if (executor == null || then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onProgress"));
+        }
+        final Dispatch<T,F,P> dispatch = _dispatch(executor);
+        if (dispatch == null) {
+            final Dispatch<T,F,P> single = new Dispatch<>(executor, null);
+            single.addProgress(then);
+            this.onProgress(single);
+        } else {
+            dispatch.addProgress(then);
+        }
+        return this;
+    }
+
+    /**
+     * @param executor The executor listeners will be run on.
+     * @return The dispatch collecting listeners for {@code executor} or {@code null} if this deferred has
+     *         already reached a terminal state.
+     */
+    private Dispatch<T,F,P> _dispatch(final Executor executor) {
+        synchronized (lock) {
+            if (isDone()) {
+                return null;
+            }
+            final Dispatch<T,F,P> found = Dispatch.find(this.dispatch, executor);
+            if (found != null) {
+                return found;
+            }
+            final Dispatch<T,F,P> dispatch = this.dispatch = new Dispatch<>(executor, this.dispatch);
+            addEvent(ON_RESOLVE, dispatch);
+            addEvent(ON_REJECT, dispatch);
+            addEvent(ON_PROGRESS, dispatch);
+            addEvent(ON_COMPLETE, dispatch);
+            return dispatch;
+        }
+    }
+
     @Override
     public <Tx> Promise<Tx,F,P> then(final Resolve<? super T,Tx,F,P> then) {
         final DeferredImpl<Tx,F,P> next = new DeferredImpl<>();
@@ -435,11 +649,12 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
                 then.resolve(that, next);
             }
         };
+        final Link<P> link = Link.to(next, next);
         this.onResolve(callback)
                 .onReject(next)
-                .onProgress(next)
+                .onProgress(link)
                 .onCancel(next)
-                .onGet(next);
+                .onGet(link);
         return next;
     }
 
@@ -457,11 +672,12 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
                 then.reject(fail, next);
             }
         };
+        final Link<P> link = Link.to(next, next);
         this.onResolve(callback)
                 .onReject(callback)
-                .onProgress(next)
+                .onProgress(link)
                 .onCancel(next)
-                .onGet(next);
+                .onGet(link);
         return next;
     }
 
@@ -484,50 +700,152 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
                 then.progress(that, next);
             }
         };
+        final Link<P> link = Link.to(next, callback);
         this.onResolve(callback)
                 .onReject(callback)
-                .onProgress(callback)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public <Tx> Promise<Tx,F,P> then(final Executor executor, final Resolve<? super T,Tx,F,P> then) {
+        final DeferredImpl<Tx,F,P> next = new DeferredImpl<>();
+        final OnResolve<T> callback = new OnResolve<T>() {
+            @Override
+            public void resolve(final T that) {
+                then.resolve(that, next);
+            }
+        };
+        final Link<P> link = Link.to(next, next);
+        this.onResolve(executor, callback)
+                .onReject(next)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public <Tx,Fx> Promise<Tx,Fx,P> then(final Executor executor, final Reject<? super T,? super F,Tx,Fx,P> then) {
+        final DeferredImpl<Tx,Fx,P> next = new DeferredImpl<>();
+        final _OnReject<T,F> callback = new _OnReject<T,F>() {
+            @Override
+            public void resolve(final T that) {
+                then.resolve(that, next);
+            }
+
+            @Override
+            public void reject(final F fail) {
+                then.reject(fail, next);
+            }
+        };
+        final Link<P> link = Link.to(next, next);
+        this.onResolve(executor, callback)
+                .onReject(executor, callback)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public <Tx,Fx,Px> Promise<Tx,Fx,Px> then(final Executor executor, final Progress<? super T,? super F,? super P,Tx,Fx,Px> then) {
+        final DeferredImpl<Tx,Fx,Px> next = new DeferredImpl<>();
+        final _OnProgress<T,F,P> callback = new _OnProgress<T,F,P>() {
+            @Override
+            public void resolve(final T that) {
+                then.resolve(that, next);
+            }
+
+            @Override
+            public void reject(final F fail) {
+                then.reject(fail, next);
+            }
+
+            @Override
+            public void progress(final P that) {
+                then.progress(that, next);
+            }
+        };
+        final Link<P> link = Link.to(next, callback);
+        this.onResolve(executor, callback)
+                .onReject(executor, callback)
+                .onProgress(executor, link)
                 .onCancel(next)
-                .onGet(next);
+                .onGet(link);
         return next;
     }
 
+    @Override
+    public Promise<T,F,P> orTimeout(final long timeout, final TimeUnit unit, final F failure) {
+        return TimeoutDeferred.orTimeout(this, timeout, unit, failure, HashedWheelTimer.shared());
+    }
+
+    @Override
+    public Promise<T,F,P> completeOnTimeout(final T value, final long timeout, final TimeUnit unit) {
+        return TimeoutDeferred.completeOnTimeout(this, value, timeout, unit, HashedWheelTimer.shared());
+    }
+
+    @Override
+    public Pipeline<T,F,P> pipeline() {
+        return new FusedPipeline<>(this);
+    }
+
     @Override
     public T get() throws InterruptedException, ExecutionException {
         return _get();
     }
 
     protected T _get() throws InterruptedException, ExecutionException {
+        _await();
+        return _value();
+    }
+
+    /**
+     * <p>Waits for this deferred to reach a terminal state and calls the {@link #onGet(Future)} listeners.</p>
+     *
+     * @throws CancellationException If this deferred was cancelled.
+     * @throws ExecutionException If this deferred was rejected.
+     */
+    protected void _await() throws InterruptedException, ExecutionException {
         if (Thread.interrupted()) {
             throw new InterruptedException(getInterruptedExceptionMessage());
         }
-        final Event[] events;
+        if (!isDone()) {
+            final Waiter waiter = _addWaiter();
+            if (waiter != null) {
+                try {
+                    while (!isDone()) {
+                        LockSupport.park(this);
+                        if (Thread.interrupted()) {
+                            throw new InterruptedException(getInterruptedExceptionMessage());
+                        }
+                    }
+                } finally {
+                    waiter.thread = null;
+                }
+            }
+        }
+        final Object[] gets;
         final int length;
         final int state;
         synchronized (lock) {
-            loop: for (;;) {
-                switch (this.state) {
-                    case CANCELLED:
-                    case REJECTED:
-                    case RESOLVED:
-                        break loop;
-                }
-                lock.wait();
-            }
             state = this.state;
-            events = this.events;
-            length = this.length;
+            gets = this.gets;
+            length = this.getLength;
         }
         try {
             switch (state) {
                 case CANCELLED:
-                    throw _onGet(events, length, new CancellationException(Messages.format("THEN-000202.promise.cancelled")));
+                    throw _onGet(gets, length, StacklessExceptions.cancelled());
                 case REJECTED:
                     final String msg = Messages.format("THEN-000201.promise.rejected");
-                    throw _onGet(events, length, new ExecutionException(msg, _getFailureCause(msg)));
+                    throw _onGet(gets, length, StacklessExceptions.rejected(msg, _getFailureCause(msg)));
                 case RESOLVED:
-                    _onGet(events, length, null);
-                    return value;
+                    _onGet(gets, length, null);
+                    return;
                 default:
                     throw new IllegalStateException(Messages.format("THEN-000200.promise.illegal.state", _stateToString(state)));
             }
@@ -544,37 +862,53 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
     }
 
     protected T _get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        _await(timeout, unit);
+        return _value();
+    }
+
+    /**
+     * <p>As {@link #_await()} but will wait at most {@code timeout}.</p>
+     *
+     * @throws TimeoutException If this deferred did not reach a terminal state in time.
+     */
+    protected void _await(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
         if (Thread.interrupted()) {
             throw new InterruptedException(getInterruptedExceptionMessage());
         }
-        final Event[] events;
+        final long end = System.nanoTime() + unit.toNanos(timeout);
+        if (!isDone()) {
+            final Waiter waiter = _addWaiter();
+            if (waiter != null) {
+                try {
+                    while (!isDone()) {
+                        LockSupport.parkNanos(this, _tryTimeout(end));
+                        if (Thread.interrupted()) {
+                            throw new InterruptedException(getInterruptedExceptionMessage());
+                        }
+                    }
+                } finally {
+                    waiter.thread = null;
+                }
+            }
+        }
+        final Object[] gets;
         final int length;
-        final long end = System.currentTimeMillis() + unit.toMillis(timeout);
         final byte state;
         synchronized (lock) {
-            loop: for (;;) {
-                switch (this.state) {
-                    case CANCELLED:
-                    case REJECTED:
-                    case RESOLVED:
-                        break loop;
-                }
-                lock.wait(_tryTimeout(end));
-            }
             state = this.state;
-            events = this.events;
-            length = this.length;
+            gets = this.gets;
+            length = this.getLength;
         }
         try {
             switch (state) {
                 case CANCELLED:
-                    throw _onTimedGet(events, length, end, new CancellationException(Messages.format("THEN-000202.promise.cancelled")));
+                    throw _onTimedGet(gets, length, end, StacklessExceptions.cancelled());
                 case REJECTED:
                     final String msg = Messages.format("THEN-000201.promise.rejected");
-                    throw _onTimedGet(events, length, end, new ExecutionException(msg, _getFailureCause(msg)));
+                    throw _onTimedGet(gets, length, end, StacklessExceptions.rejected(msg, _getFailureCause(msg)));
                 case RESOLVED:
-                    _onTimedGet(events, length, end, null);
-                    return value;
+                    _onTimedGet(gets, length, end, null);
+                    return;
                 default:
                     throw new IllegalStateException(Messages.format("THEN-000200.promise.illegal.state", _stateToString(state)));
             }
@@ -585,12 +919,19 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
         }
     }
 
+    /**
+     * @return The value this deferred was resolved with.
+     */
+    protected T _value() {
+        return value;
+    }
+
     protected ListenerException _callOnResolve(ListenerException exception, final OnResolve<T> on) {
         try {
-            on.resolve(this.value);
+            on.resolve(_value());
         } catch (final Throwable e) {
             if (exception == null) {
-                exception = new ListenerException(Messages.format("THEN-000300.promise.on.resolve.exception"), e);
+                exception = StacklessExceptions.listener("THEN-000300.promise.on.resolve.exception", e);
             } else {
                 exception.addSuppressed(e);
             }
@@ -603,7 +944,7 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
             on.complete(state);
         } catch (final Throwable e) {
             if (exception == null) {
-                exception = new ListenerException(Messages.format("THEN-000303.promise.on.complete.exception"), e);
+                exception = StacklessExceptions.listener("THEN-000303.promise.on.complete.exception", e);
             } else {
                 exception.addSuppressed(e);
             }
@@ -616,7 +957,7 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
             on.reject(this.failure);
         } catch (final Throwable e) {
             if (exception == null) {
-                exception = new ListenerException(Messages.format("THEN-000301.promise.on.reject.exception"), e);
+                exception = StacklessExceptions.listener("THEN-000301.promise.on.reject.exception", e);
             } else {
                 exception.addSuppressed(e);
             }
@@ -629,7 +970,7 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
             on.cancel(interrupt);
         } catch (final Throwable e) {
             if (exception == null) {
-                exception = new ListenerException(Messages.format("THEN-000302.promise.on.cancel.exception"), e);
+                exception = StacklessExceptions.listener("THEN-000302.promise.on.cancel.exception", e);
             } else {
                 exception.addSuppressed(e);
             }
@@ -642,7 +983,7 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
             on.progress(that);
         } catch (final Throwable e) {
             if (exception == null) {
-                exception = new ListenerException(Messages.format("THEN-000304.promise.on.progress.exception"), e);
+                exception = StacklessExceptions.listener("THEN-000304.promise.on.progress.exception", e);
             } else {
                 exception.addSuppressed(e);
             }
@@ -655,7 +996,7 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
             on.get();
         } catch (final Throwable e) {
             if (exception == null) {
-                exception = new ListenerException(Messages.format("THEN-000401.promise.get.exception"), e);
+                exception = StacklessExceptions.listener("THEN-000401.promise.get.exception", e);
             } else {
                 exception.addSuppressed(e);
             }
@@ -665,10 +1006,10 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
 
     protected Exception _callOnTimedGet(Exception exception, final Future<?> on, final long end) {
         try {
-            on.get(_tryTimeout(end), MILLISECONDS);
+            on.get(_tryTimeout(end), NANOSECONDS);
         } catch (final Throwable e) {
             if (exception == null) {
-                exception = new ListenerException(Messages.format("THEN-000401.promise.get.exception"), e);
+                exception = StacklessExceptions.listener("THEN-000401.promise.get.exception", e);
             } else {
                 exception.addSuppressed(e);
             }
@@ -676,28 +1017,16 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
         return exception;
     }
 
-    protected Exception _onGet(final Event[] events, final int length, Exception exception) throws Exception {
+    protected Exception _onGet(final Object[] gets, final int length, Exception exception) throws Exception {
         for (int i = 0; i < length; ++i) {
-            final Event event = events[i];
-            if (event.event != ON_GET) {
-                continue;
-            }
-            @SuppressWarnings("unchecked")
-            final Future<?> on = ((Future<?>)event.value);
-            exception = _callOnGet(exception, on);
+            exception = _callOnGet(exception, (Future<?>) gets[i]);
         }
         return exception;
     }
 
-    protected Exception _onTimedGet(final Event[] events, final int length, final long end, Exception exception) throws Exception {
+    protected Exception _onTimedGet(final Object[] gets, final int length, final long end, Exception exception) throws Exception {
         for (int i = 0; i < length; ++i) {
-            final Event event = events[i];
-            if (event.event != ON_GET) {
-                continue;
-            }
-            @SuppressWarnings("unchecked")
-            final Future<?> on = ((Future<?>)event.value);
-            exception = _callOnTimedGet(exception, on, end);
+            exception = _callOnTimedGet(exception, (Future<?>) gets[i], end);
         }
         return exception;
     }
@@ -708,10 +1037,15 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
                 : new FailureException(msg, failure);
     }
 
+    /**
+     * @param end The deadline from {@link System#nanoTime()}.
+     * @return The nanoseconds remaining until {@code end}.
+     * @throws TimeoutException If {@code end} has passed.
+     */
     protected long _tryTimeout(final long end) throws TimeoutException {
-        final long timeout = end - System.currentTimeMillis();
+        final long timeout = end - System.nanoTime();
         if (timeout <= 0) {
-            throw new TimeoutException(getTimeoutExceptionMessage());
+            throw StacklessExceptions.timeout(getTimeoutExceptionMessage());
         }
         return timeout;
     }
@@ -741,7 +1075,7 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
     }
 
     protected Logger log() {
-        return log;
+        return Log.log;
     }
 
     protected String _stateToString(final int state) {
@@ -762,16 +1096,23 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
         return sb.toString();
     }
 
+    private static final class Waiter {
+        volatile Thread thread = Thread.currentThread();
+        Waiter next;
+
+        private Waiter(final Waiter next) {
+            this.next = next;
+        }
+    }
+
     private interface _OnReject<T,F> extends OnResolve<T>, OnReject<F> {}
     private interface _OnProgress<T,F,P> extends OnResolve<T>, OnReject<F>, OnProgress<P> {}
 
     private static class EventIterable<T> implements Iterable<T> {
-        final Event[] events;
+        final Object[] events;
         final int length;
-        final byte type;
 
-        private EventIterable(final byte type, final Event[] events, final int length) {
-            this.type = type;
+        private EventIterable(final Object[] events, final int length) {
             this.events = events;
             this.length = length;
         }
@@ -782,13 +1123,7 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
                 int i = 0;
                 @Override
                 public boolean hasNext() {
-                    for (; i < length; ++i) {
-                        final Event event = events[i];
-                        if (event.event == type) {
-                            return true;
-                        }
-                    }
-                    return false;
+                    return i < length;
                 }
 
                 @Override
@@ -797,7 +1132,7 @@ public class DeferredImpl<T,F,P> implements Deferred<T,F,P> {
                     if (i >= length) {
                         throw new NoSuchElementException(Messages.get("THEN-000402.promise.interator"));
                     }
-                    return (T)events[i++].value;
+                    return (T)events[i++];
                 }
 
                 @Override
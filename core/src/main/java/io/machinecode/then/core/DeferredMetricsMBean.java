@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+/**
+ * <p>The management interface of the metrics {@link JmxMetrics} records for one class of deferred.</p>
+ *
+ * <p>Times are in nanoseconds and measured from construction until a terminal state is reached. Percentiles
+ * are reported as the upper bound of the histogram bucket they fall in, which is within 12.5% of the
+ * recorded value.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public interface DeferredMetricsMBean {
+
+    /**
+     * @return The name of the class of deferred.
+     */
+    String getType();
+
+    long getCreated();
+
+    long getResolved();
+
+    long getRejected();
+
+    long getCancelled();
+
+    /**
+     * @return The number of deferreds that have reached any terminal state.
+     */
+    long getCompleted();
+
+    /**
+     * @return The number of deferreds that have been constructed but have not reached a terminal state.
+     */
+    long getPending();
+
+    /**
+     * @return The mean rate deferreds reached a terminal state since the metrics for this type were created.
+     *         Reading it does not reset it so every client sees the same rate.
+     */
+    double getCompletionsPerSecond();
+
+    long getCompletionTimeMax();
+
+    double getCompletionTimeMean();
+
+    long getCompletionTime50thPercentile();
+
+    long getCompletionTime90thPercentile();
+
+    long getCompletionTime99thPercentile();
+
+    long getCompletionTime999thPercentile();
+
+    /**
+     * @return The number of listeners run for terminal and progress events.
+     */
+    long getListenersRun();
+
+    /**
+     * @return The number of listeners that threw an exception.
+     */
+    long getListenerFailures();
+
+    /**
+     * @return The fraction of listeners run that threw an exception.
+     */
+    double getListenerFailureRate();
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.ListenerException;
+import io.machinecode.then.api.OnComplete;
+import io.machinecode.then.api.OnProgress;
+import io.machinecode.then.api.OnReject;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static io.machinecode.then.api.Deferred.REJECTED;
+import static io.machinecode.then.api.Deferred.RESOLVED;
+
+/**
+ * <p>Collects the listeners a promise has had registered with a single {@link Executor}. It is registered
+ * with the promise as a regular listener and when the promise completes submits one task to the executor that
+ * runs every collected listener. Each call to {@link #progress(Object)} likewise submits one task for all the
+ * progress listeners.</p>
+ *
+ * <p>Once the promise has completed no more terminal listeners can be added, {@link #addResolve(OnResolve)},
+ * {@link #addReject(OnReject)} and {@link #addComplete(OnComplete)} will return {@code false} and the caller
+ * should use a new instance.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+final class Dispatch<T,F,P> implements OnResolve<T>, OnReject<F>, OnProgress<P>, OnComplete {
+
+    final Executor executor;
+    final Dispatch<T,F,P> next;
+
+    // Dropped once fired, a dispatch is kept by the progress listeners of the promise it is registered with
+    private List<OnResolve<? super T>> resolve = new ArrayList<>(1);
+    private List<OnReject<? super F>> reject = new ArrayList<>(1);
+    private List<OnComplete> complete = new ArrayList<>(1);
+    private volatile List<OnProgress<? super P>> progress;
+
+    private boolean fired = false;
+    private T value;
+    private F failure;
+
+    Dispatch(final Executor executor, final Dispatch<T,F,P> next) {
+        this.executor = executor;
+        this.next = next;
+    }
+
+    /**
+     * @param head The first dispatch in a list.
+     * @param executor The executor to look for.
+     * @return The first dispatch in the list for the executor that has not yet been fired or {@code null}.
+     */
+    static <T,F,P> Dispatch<T,F,P> find(final Dispatch<T,F,P> head, final Executor executor) {
+        for (Dispatch<T,F,P> that = head; that != null; that = that.next) {
+            if (that.executor == executor && !that.isFired()) {
+                return that;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param promise The promise to listen to.
+     * @return This instance.
+     */
+    Dispatch<T,F,P> register(final Promise<T,F,P> promise) {
+        promise.onResolve(this)
+                .onReject(this)
+                .onProgress(this)
+                .onComplete(this);
+        return this;
+    }
+
+    synchronized boolean isFired() {
+        return fired;
+    }
+
+    synchronized boolean addResolve(final OnResolve<? super T> then) {
+        return !fired && resolve.add(then);
+    }
+
+    synchronized boolean addReject(final OnReject<? super F> then) {
+        return !fired && reject.add(then);
+    }
+
+    synchronized boolean addComplete(final OnComplete then) {
+        return !fired && complete.add(then);
+    }
+
+    synchronized void addProgress(final OnProgress<? super P> then) {
+        final List<OnProgress<? super P>> progress = this.progress == null
+                ? new ArrayList<OnProgress<? super P>>(1)
+                : new ArrayList<>(this.progress);
+        progress.add(then);
+        this.progress = progress;
+    }
+
+    @Override
+    public void resolve(final T that) {
+        this.value = that;
+    }
+
+    @Override
+    public void reject(final F that) {
+        this.failure = that;
+    }
+
+    @Override
+    public void complete(final int state) {
+        final List<OnResolve<? super T>> resolve;
+        final List<OnReject<? super F>> reject;
+        final List<OnComplete> complete;
+        final T value = this.value;
+        final F failure = this.failure;
+        this.value = null;
+        this.failure = null;
+        synchronized (this) {
+            if (fired) {
+                return;
+            }
+            fired = true;
+            resolve = state == RESOLVED ? this.resolve : null;
+            reject = state == REJECTED ? this.reject : null;
+            complete = this.complete;
+            this.resolve = null;
+            this.reject = null;
+            this.complete = null;
+            if ((resolve == null || resolve.isEmpty())
+                    && (reject == null || reject.isEmpty())
+                    && complete.isEmpty()) {
+                return;
+            }
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ListenerException exception = null;
+                if (resolve != null) {
+                    for (final OnResolve<? super T> on : resolve) {
+                        try {
+                            on.resolve(value);
+                        } catch (final Throwable e) {
+                            exception = _add(exception, "THEN-000300.promise.on.resolve.exception", e);
+                        }
+                    }
+                }
+                if (reject != null) {
+                    for (final OnReject<? super F> on : reject) {
+                        try {
+                            on.reject(failure);
+                        } catch (final Throwable e) {
+                            exception = _add(exception, "THEN-000301.promise.on.reject.exception", e);
+                        }
+                    }
+                }
+                for (final OnComplete on : complete) {
+                    try {
+                        on.complete(state);
+                    } catch (final Throwable e) {
+                        exception = _add(exception, "THEN-000303.promise.on.complete.exception", e);
+                    }
+                }
+                if (exception != null) {
+                    throw exception;
+                }
+            }
+        });
+    }
+
+    @Override
+    public void progress(final P that) {
+        final List<OnProgress<? super P>> progress = this.progress;
+        if (progress == null) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ListenerException exception = null;
+                for (final OnProgress<? super P> on : progress) {
+                    try {
+                        on.progress(that);
+                    } catch (final Throwable e) {
+                        exception = _add(exception, "THEN-000304.promise.on.progress.exception", e);
+                    }
+                }
+                if (exception != null) {
+                    throw exception;
+                }
+            }
+        });
+    }
+
+    private static ListenerException _add(final ListenerException exception, final String key, final Throwable e) {
+        if (exception == null) {
+            return StacklessExceptions.listener(key, e);
+        }
+        exception.addSuppressed(e);
+        return exception;
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.DoubleDeferred;
+import io.machinecode.then.api.DoublePromise;
+import io.machinecode.then.api.DoubleResolve;
+import io.machinecode.then.api.IntDeferred;
+import io.machinecode.then.api.IntPromise;
+import io.machinecode.then.api.ListenerException;
+import io.machinecode.then.api.LongDeferred;
+import io.machinecode.then.api.LongPromise;
+import io.machinecode.then.api.OnDoubleResolve;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>A {@link DeferredImpl} of a {@code double}. The value is only boxed if it is requested by a listener
+ * registered with {@link #onResolve(OnResolve)} or by {@link #get()}.</p>
+ *
+ * <p>{@link #resolve(Double)} will throw an {@link IllegalArgumentException} if it is passed {@code null}.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class DoubleDeferredImpl<F,P> extends DeferredImpl<Double,F,P> implements DoubleDeferred<F,P> {
+
+    protected double doubleValue;
+
+    public DoubleDeferredImpl() {
+        super();
+    }
+
+    public DoubleDeferredImpl(final int hint) {
+        super(hint);
+    }
+
+    protected boolean setDouble(final double value) {
+        switch (this.state) {
+            case RESOLVED:
+            case REJECTED:
+            case CANCELLED:
+                return true;
+        }
+        this.doubleValue = value;
+        this.state = RESOLVED;
+        return false;
+    }
+
+    @Override
+    public DoublePromise<F,P> promise() {
+        return this;
+    }
+
+    @Override
+    public void resolve(final Double value) throws ListenerException {
+        if (value == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "resolve"));
+        }
+        resolve(value.doubleValue());
+    }
+
+    @Override
+    public void resolve(final double value) throws ListenerException {
+        if (Tracing.ENABLED && log().isTraceEnabled()) {
+            log().tracef(getResolveLogMessage(), value);
+        }
+        final byte state;
+        synchronized (lock) {
+            if (setDouble(value)) {
+                return;
+            }
+            state = this.state;
+        }
+        final ListenerException exception = _complete(state, false);
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    @Override
+    public DoubleDeferred<F,P> onResolveDouble(final OnDoubleResolve then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onResolve"));
+        }
+        return _onResolve(new _Listener(then));
+    }
+
+    private DoubleDeferred<F,P> _onResolve(final _OnDoubleResolve then) {
+        boolean run = false;
+        synchronized (lock) {
+            switch (this.state) {
+                case REJECTED:
+                case CANCELLED:
+                    return this;
+                case RESOLVED:
+                    run = true;
+                    break;
+                case PENDING:
+                default:
+                    addEvent(ON_RESOLVE, then);
+            }
+        }
+        if (run) {
+            then.resolve(this.doubleValue);
+        }
+        return this;
+    }
+
+    @Override
+    public double getDouble() throws InterruptedException, ExecutionException {
+        _await();
+        return doubleValue;
+    }
+
+    @Override
+    public double getDouble(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        _await(timeout, unit);
+        return doubleValue;
+    }
+
+    @Override
+    public IntPromise<F,P> thenInt(final DoubleResolve<? super IntDeferred<F,P>> then) {
+        final IntDeferredImpl<F,P> next = new IntDeferredImpl<>();
+        final Link<P> link = Link.to(next, next);
+        this._onResolve(new _OnDoubleResolve() {
+                    @Override
+                    public void resolve(final double that) {
+                        then.resolve(that, next);
+                    }
+                })
+                .onReject(next)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public LongPromise<F,P> thenLong(final DoubleResolve<? super LongDeferred<F,P>> then) {
+        final LongDeferredImpl<F,P> next = new LongDeferredImpl<>();
+        final Link<P> link = Link.to(next, next);
+        this._onResolve(new _OnDoubleResolve() {
+                    @Override
+                    public void resolve(final double that) {
+                        then.resolve(that, next);
+                    }
+                })
+                .onReject(next)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public DoublePromise<F,P> thenDouble(final DoubleResolve<? super DoubleDeferred<F,P>> then) {
+        final DoubleDeferredImpl<F,P> next = new DoubleDeferredImpl<>();
+        final Link<P> link = Link.to(next, next);
+        this._onResolve(new _OnDoubleResolve() {
+                    @Override
+                    public void resolve(final double that) {
+                        then.resolve(that, next);
+                    }
+                })
+                .onReject(next)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public <Tx> Promise<Tx,F,P> thenObject(final DoubleResolve<? super Deferred<Tx,F,P>> then) {
+        final DeferredImpl<Tx,F,P> next = new DeferredImpl<>();
+        final Link<P> link = Link.to(next, next);
+        this._onResolve(new _OnDoubleResolve() {
+                    @Override
+                    public void resolve(final double that) {
+                        then.resolve(that, next);
+                    }
+                })
+                .onReject(next)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    protected Double _value() {
+        return doubleValue;
+    }
+
+    @Override
+    protected ListenerException _callOnResolve(ListenerException exception, final OnResolve<Double> on) {
+        if (!(on instanceof _OnDoubleResolve)) {
+            return super._callOnResolve(exception, on);
+        }
+        try {
+            ((_OnDoubleResolve) on).resolve(this.doubleValue);
+        } catch (final Throwable e) {
+            if (exception == null) {
+                exception = StacklessExceptions.listener("THEN-000300.promise.on.resolve.exception", e);
+            } else {
+                exception.addSuppressed(e);
+            }
+        }
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("DoubleDeferredImpl{");
+        sb.append("state=").append(state).append(" (").append(_stateToString(state)).append(")");
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * <p>Stored as an {@link #ON_RESOLVE} event so it is called without boxing the value.</p>
+     */
+    private abstract static class _OnDoubleResolve implements OnDoubleResolve, OnResolve<Double> {
+        @Override
+        public void resolve(final Double that) {
+            resolve(that.doubleValue());
+        }
+    }
+
+    private static final class _Listener extends _OnDoubleResolve {
+        final OnDoubleResolve then;
+
+        private _Listener(final OnDoubleResolve then) {
+            this.then = then;
+        }
+
+        @Override
+        public void resolve(final double that) {
+            then.resolve(that);
+        }
+    }
+}
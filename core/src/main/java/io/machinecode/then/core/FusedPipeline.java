@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.Pipeline;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.api.Resolve;
+import io.machinecode.then.api.Transform;
+
+import java.util.concurrent.Executor;
+
+/**
+ * <p>A {@link Pipeline} that runs consecutive {@link #map(Transform)} stages in a single {@link Resolve}
+ * registered with {@link Promise#then(Resolve)}, so a chain of synchronous stages costs one promise rather
+ * than one per stage.</p>
+ *
+ * <p>Each stage is an immutable node linked to the one before it. Nodes are cheap to create and can be
+ * shared, building two pipelines from the same node will run the stages before it once for each unless
+ * {@link #promise()} has been called on it.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public final class FusedPipeline<T,F,P> implements Pipeline<T,F,P> {
+
+    private final FusedPipeline<?,F,P> previous;
+    private final Transform<Object,Object> stage;
+
+    // Set on construction for the first node, otherwise when the pipeline is materialized
+    private volatile Promise<T,F,P> promise;
+
+    /**
+     * @param source The promise the pipeline follows.
+     */
+    public FusedPipeline(final Promise<T,F,P> source) {
+        if (source == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "source"));
+        }
+        this.previous = null;
+        this.stage = null;
+        this.promise = source;
+    }
+
+    @SuppressWarnings("unchecked")
+    private FusedPipeline(final FusedPipeline<?,F,P> previous, final Transform<?,?> stage) {
+        this.previous = previous;
+        this.stage = (Transform<Object,Object>) stage;
+    }
+
+    @Override
+    public <Tx> Pipeline<Tx,F,P> map(final Transform<? super T,? extends Tx> then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "map"));
+        }
+        return new FusedPipeline<Tx,F,P>(this, then);
+    }
+
+    @Override
+    public <Tx> Pipeline<Tx,F,P> then(final Resolve<? super T,Tx,F,P> then) {
+        return new FusedPipeline<>(promise().then(then));
+    }
+
+    @Override
+    public <Tx> Pipeline<Tx,F,P> then(final Executor executor, final Resolve<? super T,Tx,F,P> then) {
+        return new FusedPipeline<>(promise().then(executor, then));
+    }
+
+    @Override
+    public Promise<T,F,P> promise() {
+        final Promise<T,F,P> promise = this.promise;
+        if (promise != null) {
+            return promise;
+        }
+        synchronized (this) {
+            if (this.promise == null) {
+                this.promise = _materialize();
+            }
+            return this.promise;
+        }
+    }
+
+    /**
+     * @return A promise running every stage back to the closest node that has already been materialized.
+     */
+    private Promise<T,F,P> _materialize() {
+        int length = 0;
+        FusedPipeline<?,F,P> node = this;
+        while (node.promise == null) {
+            ++length;
+            node = node.previous;
+        }
+        final Promise<?,F,P> source = node.promise;
+        final Transform<?,?>[] stages = new Transform<?,?>[length];
+        node = this;
+        while (length > 0) {
+            stages[--length] = node.stage;
+            node = node.previous;
+        }
+        return source.then(new Fused<T,F,P>(stages));
+    }
+
+    private static final class Fused<T,F,P> implements Resolve<Object,T,F,P> {
+        final Transform<?,?>[] stages;
+
+        private Fused(final Transform<?,?>[] stages) {
+            this.stages = stages;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void resolve(final Object that, final Deferred<T,F,P> next) {
+            Object value = that;
+            for (final Transform<?,?> stage : stages) {
+                value = ((Transform<Object,Object>) stage).transform(value);
+            }
+            next.resolve((T) value);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.FailureException;
+import io.machinecode.then.api.OnCancel;
+import io.machinecode.then.api.OnReject;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * <p>Completes deferreds from plain {@link Future}s without blocking a thread for each of them.</p>
+ *
+ * <p>Registered futures are checked with {@link Future#isDone()} by a single task on a
+ * {@link ScheduledExecutorService}. After a sweep that finds a completed future the next sweep is scheduled after
+ * the minimum delay, otherwise the delay is doubled up to the maximum delay. Once a future is done its deferred
+ * is completed in the same way as {@link FutureDeferred#getFuture(Future, Deferred, long, TimeUnit)}. The sweep
+ * stops being scheduled while there are no registered futures.</p>
+ *
+ * <p>A {@link Future} that is also a {@link Promise} is never polled, the deferred is completed from a listener
+ * on the promise instead. Subclasses can recognise other types of future with
+ * {@link #_listen(Future, Deferred)}.</p>
+ *
+ * <p>A future is no longer polled once its deferred reaches a terminal state, for example if it is cancelled.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class FuturePoller implements AutoCloseable {
+
+    private static final class Log {
+        static final Logger log = Logger.getLogger(FuturePoller.class);
+    }
+
+    private static final long DEFAULT_MIN_DELAY = MILLISECONDS.toNanos(1);
+    private static final long DEFAULT_MAX_DELAY = MILLISECONDS.toNanos(50);
+
+    private final ScheduledExecutorService scheduler;
+    private final boolean owned;
+    private final long minDelay;
+    private final long maxDelay;
+
+    private final ConcurrentLinkedQueue<Entry<?>> added = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Runnable sweep = new Runnable() {
+        @Override
+        public void run() {
+            _sweep();
+        }
+    };
+
+    // Only accessed by the sweep
+    private final ArrayList<Entry<?>> pending = new ArrayList<>();
+    private long delay;
+
+    /**
+     * <p>Create a poller with its own daemon thread which will be stopped by {@link #close()}.</p>
+     */
+    public FuturePoller() {
+        this(Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "then-future-poller");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }), true, DEFAULT_MIN_DELAY, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * @param scheduler The scheduler to run the sweeps on. It will not be shut down by {@link #close()}.
+     * @param minDelay The delay before a sweep after a sweep that completed a future.
+     * @param maxDelay The longest delay between sweeps.
+     * @param unit The unit of {@code minDelay} and {@code maxDelay}.
+     */
+    public FuturePoller(final ScheduledExecutorService scheduler, final long minDelay, final long maxDelay, final TimeUnit unit) {
+        this(scheduler, false, unit.toNanos(minDelay), unit.toNanos(maxDelay));
+    }
+
+    private FuturePoller(final ScheduledExecutorService scheduler, final boolean owned, final long minDelay, final long maxDelay) {
+        if (scheduler == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "scheduler"));
+        }
+        this.scheduler = scheduler;
+        this.owned = owned;
+        this.minDelay = minDelay < 1 ? 1 : minDelay;
+        this.maxDelay = maxDelay < this.minDelay ? this.minDelay : maxDelay;
+        this.delay = this.minDelay;
+    }
+
+    /**
+     * @param future The future to adapt.
+     * @param <T> The type of the future.
+     * @param <P> The progress type of the returned promise.
+     * @return A promise that will be completed when {@code future} is done.
+     */
+    public <T,P> Promise<T,Throwable,P> poll(final Future<? extends T> future) {
+        final DeferredImpl<T,Throwable,P> def = new DeferredImpl<>();
+        poll(future, def);
+        return def;
+    }
+
+    /**
+     * @param future The future to adapt.
+     * @param def The deferred to complete when {@code future} is done.
+     * @param <T> The type of the future.
+     * @param <P> The progress type of {@code def}.
+     */
+    public <T,P> void poll(final Future<? extends T> future, final Deferred<T,Throwable,P> def) {
+        if (future == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "future"));
+        }
+        if (def == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "def"));
+        }
+        if (_listen(future, def)) {
+            return;
+        }
+        added.add(new Entry<>(future, def));
+        if (scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(sweep, minDelay, NANOSECONDS);
+        }
+    }
+
+    /**
+     * <p>Completes {@code def} from a callback if {@code future} supports them.</p>
+     *
+     * @param future The future to adapt.
+     * @param def The deferred to complete when {@code future} is done.
+     * @return {@code true} if {@code def} will be completed without polling {@code future}.
+     */
+    protected <T,P> boolean _listen(final Future<? extends T> future, final Deferred<T,Throwable,P> def) {
+        if (!(future instanceof Promise)) {
+            return false;
+        }
+        final Forward<T> forward = new Forward<>(def);
+        // Not through get() which would wait for the then() stages linked to the promise
+        ((Promise<? extends T,?,?>) future).onResolve(forward)
+                .onReject(forward)
+                .onCancel(forward);
+        return true;
+    }
+
+    /**
+     * <p>Stops the scheduler if it was created by this poller. Registered futures will no longer be polled.</p>
+     */
+    @Override
+    public void close() {
+        if (owned) {
+            scheduler.shutdown();
+        }
+    }
+
+    private void _sweep() {
+        boolean completed = false;
+        try {
+            Entry<?> entry;
+            while ((entry = added.poll()) != null) {
+                pending.add(entry);
+            }
+            int length = 0;
+            for (int i = 0; i < pending.size(); ++i) {
+                final Entry<?> that = pending.get(i);
+                if (that.def.isDone()) {
+                    continue;
+                }
+                final boolean done;
+                try {
+                    done = that.future.isDone();
+                } catch (final Throwable e) {
+                    completed = true;
+                    that.fail(e);
+                    continue;
+                }
+                if (done) {
+                    completed = true;
+                    try {
+                        that.complete();
+                    } catch (final Throwable e) {
+                        Log.log.warnf(e, Messages.get("THEN-000600.poller.listener.exception"));
+                    }
+                    continue;
+                }
+                pending.set(length++, that);
+            }
+            for (int i = pending.size() - 1; i >= length; --i) {
+                pending.remove(i);
+            }
+        } finally {
+            // Always either reschedule or clear the flag so a failed sweep does not stop polling
+            _reschedule(completed);
+        }
+    }
+
+    private void _reschedule(final boolean completed) {
+        delay = completed
+                ? minDelay
+                : Math.min(delay * 2, maxDelay);
+        if (pending.isEmpty()) {
+            scheduled.set(false);
+            // A future may have been added after the queue was drained but before the flag was cleared
+            if (added.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            delay = minDelay;
+        }
+        try {
+            scheduler.schedule(sweep, delay, NANOSECONDS);
+        } catch (final RuntimeException e) {
+            // Shut down, poll will try again when the next future is added
+            scheduled.set(false);
+            throw e;
+        }
+    }
+
+    private static final class Entry<T> {
+        final Future<? extends T> future;
+        final Deferred<T,Throwable,?> def;
+
+        private Entry(final Future<? extends T> future, final Deferred<T,Throwable,?> def) {
+            this.future = future;
+            this.def = def;
+        }
+
+        void complete() {
+            FutureDeferred.getFuture(future, def, -1, null);
+        }
+
+        void fail(final Throwable failure) {
+            try {
+                def.reject(failure);
+            } catch (final Throwable e) {
+                Log.log.warnf(e, Messages.get("THEN-000600.poller.listener.exception"));
+            }
+        }
+    }
+
+    /**
+     * <p>Completes a deferred from the listeners of a promise in the same way as
+     * {@link FutureDeferred#getFuture(Future, Deferred, long, TimeUnit)} would after it is done.</p>
+     */
+    private static final class Forward<T> implements OnResolve<T>, OnReject<Object>, OnCancel {
+        final Deferred<T,Throwable,?> def;
+
+        private Forward(final Deferred<T,Throwable,?> def) {
+            this.def = def;
+        }
+
+        @Override
+        public void resolve(final T that) {
+            def.resolve(that);
+        }
+
+        @Override
+        public void reject(final Object that) {
+            def.reject(that instanceof Throwable
+                    ? (Throwable) that
+                    : new FailureException(Messages.format("THEN-000201.promise.rejected"), that));
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterrupt) {
+            return def.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import org.jboss.logging.Logger;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * <p>A timer that runs tasks after a delay with a resolution of one tick. Pending tasks are kept in a wheel of
+ * buckets, a task is added to the bucket for the tick it expires in and each tick the timer thread only visits
+ * one bucket. Adding and cancelling a task is constant time and does not take a lock, cancelled tasks are removed
+ * from the wheel on the next tick.</p>
+ *
+ * <p>Tasks are run by the timer thread and should be short. The thread is started when the first task is
+ * scheduled.</p>
+ *
+ * @see #shared()
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public final class HashedWheelTimer implements AutoCloseable {
+
+    private static final class Log {
+        static final Logger log = Logger.getLogger(HashedWheelTimer.class);
+    }
+
+    private static final int PENDING   = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED   = 2;
+
+    // Limits the time a tick can spend moving new timeouts into the wheel
+    private static final int MAX_TRANSFER = 100000;
+
+    private final long tick;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final ThreadFactory factory;
+
+    private final ConcurrentLinkedQueue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private volatile boolean closed = false;
+    private volatile Thread thread;
+
+    private static class Holder {
+        static final HashedWheelTimer SHARED = new HashedWheelTimer(10, MILLISECONDS, 512, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "then-timer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @param tick The duration of a tick.
+     * @param unit The unit of {@code tick}.
+     * @param size The number of buckets in the wheel, rounded up to a power of two.
+     * @param factory Creates the timer thread.
+     */
+    public HashedWheelTimer(final long tick, final TimeUnit unit, final int size, final ThreadFactory factory) {
+        if (unit == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "unit"));
+        }
+        if (factory == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "factory"));
+        }
+        this.tick = Math.max(1, unit.toNanos(tick));
+        int length = 1;
+        while (length < size && length < (1 << 30)) {
+            length <<= 1;
+        }
+        this.wheel = new Bucket[length];
+        for (int i = 0; i < length; ++i) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = length - 1;
+        this.factory = factory;
+    }
+
+    /**
+     * @return A timer with a 10ms tick run by a daemon thread that is shared by the timeout operators.
+     */
+    public static HashedWheelTimer shared() {
+        return Holder.SHARED;
+    }
+
+    /**
+     * @param task The task to run.
+     * @param delay How long to wait before running {@code task}.
+     * @param unit The unit of {@code delay}.
+     * @return A handle that can cancel {@code task}.
+     */
+    public Timeout schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        if (task == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "task"));
+        }
+        if (closed) {
+            throw new IllegalStateException(Messages.format("THEN-000800.timer.closed"));
+        }
+        if (started.compareAndSet(false, true)) {
+            final Thread thread = this.thread = factory.newThread(new Runnable() {
+                @Override
+                public void run() {
+                    _run();
+                }
+            });
+            thread.start();
+        }
+        final Timeout timeout = new Timeout(this, task, System.nanoTime() + Math.max(0, unit.toNanos(delay)));
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * <p>Stops the timer thread. Tasks that have not been run will not be run.</p>
+     */
+    @Override
+    public void close() {
+        closed = true;
+        final Thread thread = this.thread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void _run() {
+        final long start = System.nanoTime();
+        long tick = 0;
+        while (!closed) {
+            final long deadline = start + (tick + 1) * this.tick;
+            long sleep;
+            while ((sleep = deadline - System.nanoTime()) > 0 && !closed) {
+                LockSupport.parkNanos(this, sleep);
+            }
+            if (closed) {
+                return;
+            }
+            _removeCancelled();
+            _transfer(start, tick);
+            wheel[(int) (tick & mask)].expire();
+            ++tick;
+        }
+    }
+
+    private void _removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void _transfer(final long start, final long tick) {
+        for (int i = 0; i < MAX_TRANSFER; ++i) {
+            final Timeout timeout = added.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state != PENDING) {
+                continue;
+            }
+            final long expires = (timeout.deadline - start) / this.tick;
+            timeout.rounds = (expires - tick) / wheel.length;
+            wheel[(int) (Math.max(expires, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * <p>A task waiting to be run by a {@link HashedWheelTimer}.</p>
+     */
+    public static final class Timeout {
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE
+                = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        final HashedWheelTimer timer;
+        final long deadline;
+        volatile int state = PENDING;
+        Runnable task;
+
+        // Only accessed by the timer thread
+        long rounds;
+        Bucket bucket;
+        Timeout prev;
+        Timeout next;
+
+        private Timeout(final HashedWheelTimer timer, final Runnable task, final long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return {@code true} if the task will not be run, {@code false} if it has already been run.
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return state == CANCELLED;
+            }
+            task = null;
+            timer.cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * @return {@code true} if {@link #cancel()} was called before the task was run.
+         */
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        /**
+         * @return {@code true} if the task has been run.
+         */
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) {
+                return;
+            }
+            final Runnable task = this.task;
+            this.task = null;
+            try {
+                task.run();
+            } catch (final Throwable e) {
+                Log.log.warnf(e, Messages.get("THEN-000801.timer.task.exception"));
+            }
+        }
+    }
+
+    /**
+     * <p>The timeouts that expire in one tick of the wheel, or a later tick after {@link Timeout#rounds}
+     * more turns of the wheel.</p>
+     */
+    private static final class Bucket {
+        Timeout head;
+        Timeout tail;
+
+        void add(final Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(final Timeout timeout) {
+            final Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                if (timeout.state != PENDING) {
+                    remove(timeout);
+                } else if (timeout.rounds <= 0) {
+                    remove(timeout);
+                    timeout.expire();
+                } else {
+                    --timeout.rounds;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
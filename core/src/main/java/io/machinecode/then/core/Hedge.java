@@ -0,0 +1,442 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.OnComplete;
+import io.machinecode.then.api.OnReject;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Issues hedged requests. The call passed to {@link #execute(Callable)} is started once and if the promise
+ * it returns has not completed after a delay a backup attempt is started, up to a maximum number of backups
+ * each a further delay apart. The request resolves with the first attempt to resolve and every other attempt
+ * is cancelled. It is rejected with the failure of the last attempt if every attempt that was started is
+ * rejected. Cancelling the request cancels every attempt.</p>
+ *
+ * <p>The delay is either fixed or a percentile of the time taken by the attempts that resolved recent
+ * requests, in which case the fixed delay is used until enough have been sampled.</p>
+ *
+ * <p>Backups add load to whatever serves the call so the number started is capped at a rate per request.
+ * Each request adds the rate to a budget which each backup takes one from and a backup is not started when
+ * the budget is empty. The budget holds at most ten backups so idle periods do not allow
+ * a burst of backups later.</p>
+ *
+ * <p>Backups are started by the thread of a {@link HashedWheelTimer} so the call should return its promise
+ * without blocking. The hedge implements {@link HedgeMBean} so it can be registered with an
+ * {@link javax.management.MBeanServer} to export the hedge rate.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public final class Hedge implements HedgeMBean {
+
+    private static final int MAX_BUDGET = 10;
+    private static final int SAMPLES = 128;
+    // Samples needed before the percentile replaces the fixed delay, also how often it is recalculated
+    private static final int MIN_SAMPLES = 16;
+
+    private final long fixedDelay;
+    private final double percentile;
+    private final int maxBackups;
+    private final double maxHedgeRate;
+    private final HashedWheelTimer timer;
+    private final Ticker ticker;
+
+    private final Object lock = new Object();
+
+    // Guarded by the lock
+    private final long[] samples;
+    private int sampled = 0;
+    private double budget = 0;
+    private long requests = 0;
+    private long hedges = 0;
+    private long hedgeWins = 0;
+    private long throttled = 0;
+
+    private volatile long delay;
+
+    private Hedge(final Builder builder) {
+        this.fixedDelay = builder.delay;
+        this.percentile = builder.percentile;
+        this.maxBackups = builder.maxBackups;
+        this.maxHedgeRate = builder.maxHedgeRate;
+        this.timer = builder.timer;
+        this.ticker = builder.ticker;
+        this.samples = percentile > 0 ? new long[SAMPLES] : null;
+        this.delay = fixedDelay;
+    }
+
+    /**
+     * @param call Starts an attempt, it is run by this thread for the primary and by the timer thread for
+     *             backups.
+     * @param <T> The type the call resolves to.
+     * @return A promise that will complete with the first attempt to resolve.
+     */
+    public <T> Promise<T,Throwable,Void> execute(final Callable<? extends Promise<? extends T,? extends Throwable,?>> call) {
+        if (call == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "call"));
+        }
+        synchronized (lock) {
+            ++requests;
+            budget = Math.min(MAX_BUDGET, budget + maxHedgeRate);
+        }
+        final Request<T> request = new Request<>(call);
+        request.onComplete(request);
+        request.start();
+        return request;
+    }
+
+    /**
+     * @return {@code true} if a backup can be started.
+     */
+    private boolean _acquire() {
+        synchronized (lock) {
+            if (budget < 1) {
+                ++throttled;
+                return false;
+            }
+            budget -= 1;
+            ++hedges;
+            return true;
+        }
+    }
+
+    private void _won(final long latency, final boolean backup) {
+        synchronized (lock) {
+            if (backup) {
+                ++hedgeWins;
+            }
+            if (samples == null) {
+                return;
+            }
+            samples[sampled++ % SAMPLES] = latency;
+            if (sampled % MIN_SAMPLES != 0) {
+                return;
+            }
+            final int length = Math.min(sampled, SAMPLES);
+            final long[] sorted = Arrays.copyOf(samples, length);
+            Arrays.sort(sorted);
+            delay = sorted[Math.max(0, (int) Math.ceil(percentile * length) - 1)];
+            if (sampled >= SAMPLES * 2) {
+                // Keep the index from overflowing
+                sampled -= SAMPLES;
+            }
+        }
+    }
+
+    @Override
+    public long getRequests() {
+        synchronized (lock) {
+            return requests;
+        }
+    }
+
+    @Override
+    public long getHedges() {
+        synchronized (lock) {
+            return hedges;
+        }
+    }
+
+    @Override
+    public long getHedgeWins() {
+        synchronized (lock) {
+            return hedgeWins;
+        }
+    }
+
+    @Override
+    public long getThrottled() {
+        synchronized (lock) {
+            return throttled;
+        }
+    }
+
+    @Override
+    public double getHedgeRate() {
+        synchronized (lock) {
+            return requests == 0 ? 0 : (double) hedges / requests;
+        }
+    }
+
+    @Override
+    public long getDelay() {
+        return delay;
+    }
+
+    /**
+     * <p>The promise returned for a request, it starts attempts and follows the first to resolve.</p>
+     */
+    private final class Request<T> extends DeferredImpl<T,Throwable,Void> implements Runnable, OnComplete {
+        final Callable<? extends Promise<? extends T,? extends Throwable,?>> call;
+        final long delay = Hedge.this.delay;
+        // Latency is sampled from here so a backup win counts the delay before it started
+        final long start = ticker.read();
+
+        final Object guard = new Object();
+
+        // Guarded by the guard
+        final List<Attempt> attempts = new ArrayList<>(2);
+        int failed = 0;
+        boolean finished = false;
+        Attempt winner;
+        HashedWheelTimer.Timeout timeout;
+
+        private Request(final Callable<? extends Promise<? extends T,? extends Throwable,?>> call) {
+            this.call = call;
+        }
+
+        void start() {
+            _attempt(false);
+            if (maxBackups > 0 && !isDone()) {
+                _schedule();
+            }
+        }
+
+        private void _schedule() {
+            final HashedWheelTimer.Timeout timeout = timer.schedule(this, delay, TimeUnit.NANOSECONDS);
+            synchronized (guard) {
+                if (!finished) {
+                    this.timeout = timeout;
+                    return;
+                }
+            }
+            timeout.cancel();
+        }
+
+        /**
+         * <p>Starts a backup if this request has not completed.</p>
+         */
+        @Override
+        public void run() {
+            final int started;
+            synchronized (guard) {
+                if (finished) {
+                    return;
+                }
+                started = attempts.size();
+            }
+            if (!_acquire()) {
+                return;
+            }
+            _attempt(true);
+            if (started < maxBackups) {
+                _schedule();
+            }
+        }
+
+        private void _attempt(final boolean backup) {
+            final Attempt attempt = new Attempt(backup);
+            synchronized (guard) {
+                if (finished) {
+                    return;
+                }
+                attempts.add(attempt);
+            }
+            final Promise<? extends T,? extends Throwable,?> promise;
+            try {
+                promise = call.call();
+            } catch (final Throwable e) {
+                attempt.reject(e);
+                return;
+            }
+            if (promise == null) {
+                attempt.reject(new IllegalStateException(Messages.get("THEN-001400.hedge.call.returned.null")));
+                return;
+            }
+            synchronized (guard) {
+                attempt.promise = promise;
+            }
+            promise.onResolve(attempt)
+                    .onReject(attempt)
+                    .onComplete(attempt);
+            if (isDone()) {
+                promise.cancel(true);
+            }
+        }
+
+        /**
+         * <p>Cancels the timer and every attempt still running once this request has completed.</p>
+         */
+        @Override
+        public void complete(final int state) {
+            final List<Attempt> attempts;
+            final HashedWheelTimer.Timeout timeout;
+            synchronized (guard) {
+                finished = true;
+                attempts = new ArrayList<>(this.attempts);
+                timeout = this.timeout;
+                this.timeout = null;
+            }
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            for (final Attempt attempt : attempts) {
+                final Promise<?,?,?> promise = attempt.promise;
+                if (promise != null && !promise.isDone()) {
+                    promise.cancel(true);
+                }
+            }
+        }
+
+        private final class Attempt implements OnResolve<T>, OnReject<Throwable>, OnComplete {
+            final boolean backup;
+            // Written under the guard
+            volatile Promise<?,?,?> promise;
+
+            private Attempt(final boolean backup) {
+                this.backup = backup;
+            }
+
+            @Override
+            public void resolve(final T that) {
+                final long latency = ticker.read() - Request.this.start;
+                synchronized (guard) {
+                    if (winner != null) {
+                        return;
+                    }
+                    winner = this;
+                }
+                Request.this.resolve(that);
+                if (isResolved()) {
+                    _won(latency, backup);
+                }
+            }
+
+            @Override
+            public void reject(final Throwable that) {
+                synchronized (guard) {
+                    if (finished || ++failed < attempts.size()) {
+                        return;
+                    }
+                    finished = true;
+                }
+                Request.this.reject(that);
+            }
+
+            @Override
+            public void complete(final int state) {
+                if (state == CANCELLED && !isDone()) {
+                    reject(new CancellationException());
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Configures a {@link Hedge}. By default one backup is started after the delay and backups are capped
+     * at one for every ten requests.</p>
+     */
+    public static final class Builder {
+        private long delay = -1;
+        private double percentile = 0;
+        private int maxBackups = 1;
+        private double maxHedgeRate = 0.1;
+        private HashedWheelTimer timer;
+        private Ticker ticker = Ticker.SYSTEM;
+
+        /**
+         * @param delay How long an attempt is given before a backup is started, or until a percentile is
+         *              sampled if one is set.
+         * @param unit The unit of {@code delay}.
+         * @return This builder.
+         */
+        public Builder delay(final long delay, final TimeUnit unit) {
+            if (unit == null) {
+                throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "unit"));
+            }
+            this.delay = unit.toNanos(_notNegative(delay, "delay"));
+            return this;
+        }
+
+        /**
+         * @param percentile The percentile of recent latencies to start a backup after, e.g. {@code 0.95}.
+         * @return This builder.
+         */
+        public Builder percentile(final double percentile) {
+            if (!(percentile > 0 && percentile <= 1)) {
+                throw new IllegalArgumentException(Messages.format("THEN-001401.hedge.percentile.illegal", percentile));
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * @param backups The most backup attempts to start for a request.
+         * @return This builder.
+         */
+        public Builder maxBackups(final int backups) {
+            this.maxBackups = (int) _notNegative(backups, "backups");
+            return this;
+        }
+
+        /**
+         * @param rate The most backups to start per request averaged over recent requests.
+         * @return This builder.
+         */
+        public Builder maxHedgeRate(final double rate) {
+            if (!(rate >= 0)) {
+                throw new IllegalArgumentException(Messages.format("THEN-001402.hedge.argument.negative", "rate"));
+            }
+            this.maxHedgeRate = rate;
+            return this;
+        }
+
+        /**
+         * @param timer The timer to start backups with, {@link HashedWheelTimer#shared()} if not set.
+         * @return This builder.
+         */
+        public Builder timer(final HashedWheelTimer timer) {
+            if (timer == null) {
+                throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "timer"));
+            }
+            this.timer = timer;
+            return this;
+        }
+
+        Builder ticker(final Ticker ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        /**
+         * @return A new hedge.
+         */
+        public Hedge build() {
+            if (delay < 0) {
+                throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "delay"));
+            }
+            if (timer == null) {
+                timer = HashedWheelTimer.shared();
+            }
+            return new Hedge(this);
+        }
+
+        private static long _notNegative(final long value, final String name) {
+            if (value < 0) {
+                throw new IllegalArgumentException(Messages.format("THEN-001402.hedge.argument.negative", name));
+            }
+            return value;
+        }
+    }
+}
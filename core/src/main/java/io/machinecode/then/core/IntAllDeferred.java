@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.IntPromise;
+import io.machinecode.then.api.OnComplete;
+import io.machinecode.then.api.OnIntResolve;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A promise that will be resolved with an array of the values of all the promises
+ * passed to it if they are all resolved. The values are not boxed.</p>
+ *
+ * <p>The value of each promise is stored at the same index in the array as the promise had in the arguments,
+ * regardless of the order they are resolved in. If no promises are passed it will be resolved with an
+ * empty array.</p>
+ *
+ * @see AllDeferred
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class IntAllDeferred<F,P> extends DeferredImpl<int[],F,P> {
+
+    final int[] values;
+    final AtomicInteger remaining;
+
+    public IntAllDeferred(final Collection<? extends IntPromise<F,?>> promises) {
+        this.values = new int[promises.size()];
+        this.remaining = new AtomicInteger(values.length);
+        if (promises.isEmpty()) {
+            resolve(values);
+            return;
+        }
+        int index = 0;
+        for (final IntPromise<F,?> promise : promises) {
+            final Slot slot = new Slot(index++);
+            promise.onResolveInt(slot)
+                    .onReject(this)
+                    .onCancel(this)
+                    .onComplete(slot);
+        }
+    }
+
+    public IntAllDeferred(final IntPromise<F,?>... promises) {
+        this(Arrays.asList(promises));
+    }
+
+    private class Slot implements OnComplete, OnIntResolve {
+        final int index;
+
+        private Slot(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void resolve(final int that) {
+            // Published to the last thread to complete by the decrement
+            values[index] = that;
+        }
+
+        @Override
+        public void complete(final int state) {
+            if (remaining.decrementAndGet() == 0) {
+                IntAllDeferred.this.resolve(values);
+            }
+        }
+    }
+}
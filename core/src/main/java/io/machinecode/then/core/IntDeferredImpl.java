@@ -0,0 +1,259 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.DoubleDeferred;
+import io.machinecode.then.api.DoublePromise;
+import io.machinecode.then.api.IntDeferred;
+import io.machinecode.then.api.IntPromise;
+import io.machinecode.then.api.IntResolve;
+import io.machinecode.then.api.ListenerException;
+import io.machinecode.then.api.LongDeferred;
+import io.machinecode.then.api.LongPromise;
+import io.machinecode.then.api.OnIntResolve;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>A {@link DeferredImpl} of a {@code int}. The value is only boxed if it is requested by a listener
+ * registered with {@link #onResolve(OnResolve)} or by {@link #get()}.</p>
+ *
+ * <p>{@link #resolve(Integer)} will throw an {@link IllegalArgumentException} if it is passed {@code null}.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class IntDeferredImpl<F,P> extends DeferredImpl<Integer,F,P> implements IntDeferred<F,P> {
+
+    protected int intValue;
+
+    public IntDeferredImpl() {
+        super();
+    }
+
+    public IntDeferredImpl(final int hint) {
+        super(hint);
+    }
+
+    protected boolean setInt(final int value) {
+        switch (this.state) {
+            case RESOLVED:
+            case REJECTED:
+            case CANCELLED:
+                return true;
+        }
+        this.intValue = value;
+        this.state = RESOLVED;
+        return false;
+    }
+
+    @Override
+    public IntPromise<F,P> promise() {
+        return this;
+    }
+
+    @Override
+    public void resolve(final Integer value) throws ListenerException {
+        if (value == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "resolve"));
+        }
+        resolve(value.intValue());
+    }
+
+    @Override
+    public void resolve(final int value) throws ListenerException {
+        if (Tracing.ENABLED && log().isTraceEnabled()) {
+            log().tracef(getResolveLogMessage(), value);
+        }
+        final byte state;
+        synchronized (lock) {
+            if (setInt(value)) {
+                return;
+            }
+            state = this.state;
+        }
+        final ListenerException exception = _complete(state, false);
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    @Override
+    public IntDeferred<F,P> onResolveInt(final OnIntResolve then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onResolve"));
+        }
+        return _onResolve(new _Listener(then));
+    }
+
+    private IntDeferred<F,P> _onResolve(final _OnIntResolve then) {
+        boolean run = false;
+        synchronized (lock) {
+            switch (this.state) {
+                case REJECTED:
+                case CANCELLED:
+                    return this;
+                case RESOLVED:
+                    run = true;
+                    break;
+                case PENDING:
+                default:
+                    addEvent(ON_RESOLVE, then);
+            }
+        }
+        if (run) {
+            then.resolve(this.intValue);
+        }
+        return this;
+    }
+
+    @Override
+    public int getInt() throws InterruptedException, ExecutionException {
+        _await();
+        return intValue;
+    }
+
+    @Override
+    public int getInt(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        _await(timeout, unit);
+        return intValue;
+    }
+
+    @Override
+    public IntPromise<F,P> thenInt(final IntResolve<? super IntDeferred<F,P>> then) {
+        final IntDeferredImpl<F,P> next = new IntDeferredImpl<>();
+        final Link<P> link = Link.to(next, next);
+        this._onResolve(new _OnIntResolve() {
+                    @Override
+                    public void resolve(final int that) {
+                        then.resolve(that, next);
+                    }
+                })
+                .onReject(next)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public LongPromise<F,P> thenLong(final IntResolve<? super LongDeferred<F,P>> then) {
+        final LongDeferredImpl<F,P> next = new LongDeferredImpl<>();
+        final Link<P> link = Link.to(next, next);
+        this._onResolve(new _OnIntResolve() {
+                    @Override
+                    public void resolve(final int that) {
+                        then.resolve(that, next);
+                    }
+                })
+                .onReject(next)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public DoublePromise<F,P> thenDouble(final IntResolve<? super DoubleDeferred<F,P>> then) {
+        final DoubleDeferredImpl<F,P> next = new DoubleDeferredImpl<>();
+        final Link<P> link = Link.to(next, next);
+        this._onResolve(new _OnIntResolve() {
+                    @Override
+                    public void resolve(final int that) {
+                        then.resolve(that, next);
+                    }
+                })
+                .onReject(next)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public <Tx> Promise<Tx,F,P> thenObject(final IntResolve<? super Deferred<Tx,F,P>> then) {
+        final DeferredImpl<Tx,F,P> next = new DeferredImpl<>();
+        final Link<P> link = Link.to(next, next);
+        this._onResolve(new _OnIntResolve() {
+                    @Override
+                    public void resolve(final int that) {
+                        then.resolve(that, next);
+                    }
+                })
+                .onReject(next)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    protected Integer _value() {
+        return intValue;
+    }
+
+    @Override
+    protected ListenerException _callOnResolve(ListenerException exception, final OnResolve<Integer> on) {
+        if (!(on instanceof _OnIntResolve)) {
+            return super._callOnResolve(exception, on);
+        }
+        try {
+            ((_OnIntResolve) on).resolve(this.intValue);
+        } catch (final Throwable e) {
+            if (exception == null) {
+                exception = StacklessExceptions.listener("THEN-000300.promise.on.resolve.exception", e);
+            } else {
+                exception.addSuppressed(e);
+            }
+        }
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("IntDeferredImpl{");
+        sb.append("state=").append(state).append(" (").append(_stateToString(state)).append(")");
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * <p>Stored as an {@link #ON_RESOLVE} event so it is called without boxing the value.</p>
+     */
+    private abstract static class _OnIntResolve implements OnIntResolve, OnResolve<Integer> {
+        @Override
+        public void resolve(final Integer that) {
+            resolve(that.intValue());
+        }
+    }
+
+    private static final class _Listener extends _OnIntResolve {
+        final OnIntResolve then;
+
+        private _Listener(final OnIntResolve then) {
+            this.then = then;
+        }
+
+        @Override
+        public void resolve(final int that) {
+            then.resolve(that);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import org.jboss.logging.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static io.machinecode.then.api.Deferred.CANCELLED;
+import static io.machinecode.then.api.Deferred.REJECTED;
+import static io.machinecode.then.api.Deferred.RESOLVED;
+
+/**
+ * <p>{@link Metrics} that keeps counters and a completion time histogram for each class of deferred and
+ * registers them as a {@link DeferredMetricsMBean} named {@code io.machinecode.then:type=Deferred,name="<class>"}
+ * the first time a deferred of that class is constructed.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class JmxMetrics implements Metrics, AutoCloseable {
+
+    private static final class Log {
+        static final Logger log = Logger.getLogger(JmxMetrics.class);
+    }
+
+    public static final String DOMAIN = "io.machinecode.then";
+
+    private final MBeanServer server;
+    private final String domain;
+    private final ConcurrentMap<Class<?>,DeferredMetrics> recorders = new ConcurrentHashMap<>();
+
+    /**
+     * <p>Registers with the platform MBean server.</p>
+     */
+    public JmxMetrics() {
+        this(ManagementFactory.getPlatformMBeanServer(), DOMAIN);
+    }
+
+    /**
+     * @param server The server to register with.
+     * @param domain The domain of the registered names.
+     */
+    public JmxMetrics(final MBeanServer server, final String domain) {
+        if (server == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "server"));
+        }
+        if (domain == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "domain"));
+        }
+        this.server = server;
+        this.domain = domain;
+    }
+
+    @Override
+    public Recorder recorder(final Class<?> type) {
+        final DeferredMetrics recorder = recorders.get(type);
+        if (recorder != null) {
+            return recorder;
+        }
+        final DeferredMetrics created = new DeferredMetrics(type.getName());
+        final DeferredMetrics existing = recorders.putIfAbsent(type, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            server.registerMBean(new StandardMBean(created, DeferredMetricsMBean.class), getObjectName(type));
+        } catch (final Exception e) {
+            Log.log.warnf(e, Messages.get("THEN-000901.metrics.register.failed"), type.getName());
+        }
+        return created;
+    }
+
+    /**
+     * @param type The class of deferred.
+     * @return The name the metrics for {@code type} are registered with.
+     * @throws MalformedObjectNameException If the domain is not valid.
+     */
+    public ObjectName getObjectName(final Class<?> type) throws MalformedObjectNameException {
+        return new ObjectName(domain + ":type=Deferred,name=" + ObjectName.quote(type.getName()));
+    }
+
+    /**
+     * <p>Unregisters every MBean this has registered. Recording can continue after this is called
+     * but nothing will be registered for classes that have already been seen.</p>
+     */
+    @Override
+    public void close() {
+        for (final Map.Entry<Class<?>,DeferredMetrics> entry : recorders.entrySet()) {
+            try {
+                final ObjectName name = getObjectName(entry.getKey());
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (final Exception e) {
+                Log.log.warnf(e, Messages.get("THEN-000902.metrics.unregister.failed"), entry.getKey().getName());
+            }
+        }
+    }
+
+    static final class DeferredMetrics implements DeferredMetricsMBean, Recorder {
+
+        // Eight linear sub-buckets for each power of two
+        private static final int SUB_BITS = 3;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+        private final String type;
+
+        final AtomicLong created = new AtomicLong();
+        final AtomicLong resolved = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong cancelled = new AtomicLong();
+        final AtomicLong listeners = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong total = new AtomicLong();
+        final AtomicLong max = new AtomicLong();
+        final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        private final long start = System.nanoTime();
+
+        DeferredMetrics(final String type) {
+            this.type = type;
+        }
+
+        @Override
+        public void created() {
+            created.incrementAndGet();
+        }
+
+        @Override
+        public void completed(final int state, final long nanos) {
+            switch (state) {
+                case RESOLVED:
+                    resolved.incrementAndGet();
+                    break;
+                case REJECTED:
+                    rejected.incrementAndGet();
+                    break;
+                case CANCELLED:
+                    cancelled.incrementAndGet();
+                    break;
+            }
+            histogram.incrementAndGet(_bucket(nanos));
+            total.addAndGet(nanos);
+            long max;
+            while (nanos > (max = this.max.get()) && !this.max.compareAndSet(max, nanos)) {
+                // retry
+            }
+        }
+
+        @Override
+        public void dispatched(final int listeners, final int failures) {
+            if (listeners != 0) {
+                this.listeners.addAndGet(listeners);
+            }
+            if (failures != 0) {
+                this.failures.addAndGet(failures);
+            }
+        }
+
+        @Override
+        public String getType() {
+            return type;
+        }
+
+        @Override
+        public long getCreated() {
+            return created.get();
+        }
+
+        @Override
+        public long getResolved() {
+            return resolved.get();
+        }
+
+        @Override
+        public long getRejected() {
+            return rejected.get();
+        }
+
+        @Override
+        public long getCancelled() {
+            return cancelled.get();
+        }
+
+        @Override
+        public long getCompleted() {
+            return resolved.get() + rejected.get() + cancelled.get();
+        }
+
+        @Override
+        public long getPending() {
+            final long completed = getCompleted();
+            return created.get() - completed;
+        }
+
+        @Override
+        public double getCompletionsPerSecond() {
+            final long elapsed = System.nanoTime() - start;
+            return elapsed <= 0
+                    ? 0
+                    : getCompleted() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        }
+
+        @Override
+        public long getCompletionTimeMax() {
+            return max.get();
+        }
+
+        @Override
+        public double getCompletionTimeMean() {
+            final long completed = getCompleted();
+            return completed == 0 ? 0 : (double) total.get() / completed;
+        }
+
+        @Override
+        public long getCompletionTime50thPercentile() {
+            return _percentile(0.5);
+        }
+
+        @Override
+        public long getCompletionTime90thPercentile() {
+            return _percentile(0.9);
+        }
+
+        @Override
+        public long getCompletionTime99thPercentile() {
+            return _percentile(0.99);
+        }
+
+        @Override
+        public long getCompletionTime999thPercentile() {
+            return _percentile(0.999);
+        }
+
+        @Override
+        public long getListenersRun() {
+            return listeners.get();
+        }
+
+        @Override
+        public long getListenerFailures() {
+            return failures.get();
+        }
+
+        @Override
+        public double getListenerFailureRate() {
+            final long listeners = this.listeners.get();
+            return listeners == 0 ? 0 : (double) failures.get() / listeners;
+        }
+
+        long _percentile(final double percentile) {
+            final long[] counts = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; ++i) {
+                count += counts[i] = histogram.get(i);
+            }
+            if (count == 0) {
+                return 0;
+            }
+            final long target = Math.max(1, (long) Math.ceil(percentile * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; ++i) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(_upper(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        static int _bucket(final long nanos) {
+            if (nanos < SUB_COUNT) {
+                return nanos < 0 ? 0 : (int) nanos;
+            }
+            final int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            final int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+            return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+        }
+
+        static long _upper(final int bucket) {
+            if (bucket < SUB_COUNT) {
+                return bucket;
+            }
+            final int shift = bucket / SUB_COUNT - 1;
+            final long sub = bucket % SUB_COUNT;
+            return ((SUB_COUNT + sub + 1) << shift) - 1;
+        }
+    }
+}
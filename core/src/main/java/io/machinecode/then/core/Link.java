@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.OnComplete;
+import io.machinecode.then.api.OnProgress;
+import io.machinecode.then.api.Promise;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>Registered as the progress and get listener of a promise in place of the stage chained after it. Progress
+ * and get listeners are kept for as long as the promise is, so the link lets go of the stage once the stage has
+ * completed rather than keeping it and the value it completed with alive.</p>
+ *
+ * <p>Once released progress is dropped and get returns immediately as the stage has nothing left to wait
+ * for.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+final class Link<P> implements OnProgress<P>, Future<Object>, OnComplete {
+
+    private volatile OnProgress<? super P> progress;
+    private volatile Future<?> next;
+
+    private Link(final OnProgress<? super P> progress, final Future<?> next) {
+        this.progress = progress;
+        this.next = next;
+    }
+
+    /**
+     * @param next The stage to forward progress and get to until it completes.
+     * @return A link to register in place of {@code next}.
+     */
+    static <P> Link<P> to(final Promise<?,?,?> next, final OnProgress<? super P> progress) {
+        final Link<P> link = new Link<P>(progress, next);
+        next.onComplete(link);
+        return link;
+    }
+
+    @Override
+    public void complete(final int state) {
+        progress = null;
+        next = null;
+    }
+
+    @Override
+    public void progress(final P that) {
+        final OnProgress<? super P> progress = this.progress;
+        if (progress != null) {
+            progress.progress(that);
+        }
+    }
+
+    @Override
+    public boolean cancel(final boolean interrupt) {
+        final Future<?> next = this.next;
+        return next != null && next.cancel(interrupt);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        final Future<?> next = this.next;
+        return next != null && next.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        final Future<?> next = this.next;
+        return next == null || next.isDone();
+    }
+
+    @Override
+    public Object get() throws InterruptedException, ExecutionException {
+        final Future<?> next = this.next;
+        return next == null ? null : next.get();
+    }
+
+    @Override
+    public Object get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        final Future<?> next = this.next;
+        return next == null ? null : next.get(timeout, unit);
+    }
+}
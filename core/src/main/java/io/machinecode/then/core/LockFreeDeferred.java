@@ -0,0 +1,1030 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.FailureException;
+import io.machinecode.then.api.ListenerException;
+import io.machinecode.then.api.OnCancel;
+import io.machinecode.then.api.OnComplete;
+import io.machinecode.then.api.OnProgress;
+import io.machinecode.then.api.OnReject;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Pipeline;
+import io.machinecode.then.api.Progress;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.api.Reject;
+import io.machinecode.then.api.Resolve;
+import org.jboss.logging.Logger;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * <p>A thread safe {@link Deferred} implementation that silently drops multiple calls to terminal methods and
+ * never blocks a thread calling a terminal method or registering a listener.</p>
+ *
+ * <p>All of the state of this deferred is held in a single reference. While pending it is the head of a stack
+ * of listeners, listeners are registered by pushing onto the stack with a CAS. A terminal method wins by swapping
+ * the head for a node holding the terminal state and result, the winner then owns the stack it replaced and drains
+ * it exactly once. Progress listeners are kept apart in an array that is replaced on each registration so
+ * {@link #progress(Object)} can walk them without copying. Threads blocked in {@link #get()} are kept on a
+ * separate stack that a waiter unlinks itself from when it times out or is interrupted and are unparked as soon
+ * as the terminal node is in place, before the listeners are run.</p>
+ *
+ * It will not report progress to a listener if the listener is added after the call to {@link #progress(Object)}
+ *
+ * @see DeferredImpl
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class LockFreeDeferred<T,F,P> implements Deferred<T,F,P> {
+
+    private static final class Log {
+        static final Logger log = Logger.getLogger(LockFreeDeferred.class);
+    }
+
+    protected static final byte ON_RESOLVE     = 100;
+    protected static final byte ON_REJECT      = 101;
+    protected static final byte ON_CANCEL      = 102;
+    protected static final byte ON_COMPLETE    = 103;
+    protected static final byte ON_PROGRESS    = 104;
+    protected static final byte ON_GET         = 105;
+
+    private static final Node[] EMPTY = new Node[0];
+    private static final Object[] NONE = new Object[0];
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<LockFreeDeferred,Node> HEAD
+            = AtomicReferenceFieldUpdater.newUpdater(LockFreeDeferred.class, Node.class, "head");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<LockFreeDeferred,Dispatch> DISPATCH
+            = AtomicReferenceFieldUpdater.newUpdater(LockFreeDeferred.class, Dispatch.class, "dispatch");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<LockFreeDeferred,Object[]> PROGRESSES
+            = AtomicReferenceFieldUpdater.newUpdater(LockFreeDeferred.class, Object[].class, "progresses");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<LockFreeDeferred,Waiter> WAITERS
+            = AtomicReferenceFieldUpdater.newUpdater(LockFreeDeferred.class, Waiter.class, "waiters");
+
+    /**
+     * <p>Either {@code null}, the top of the listener stack or a terminal node. A terminal node has an event
+     * lower than {@link #ON_RESOLVE}, the event being the terminal state, its value the result and its next the
+     * listeners that were registered before the transition.</p>
+     */
+    private volatile Node head;
+
+    private volatile Dispatch<T,F,P> dispatch;
+
+    // Replaced rather than modified when a listener is added
+    private volatile Object[] progresses = NONE;
+
+    // Threads blocked in get, the thread is cleared when the waiter leaves
+    private volatile Waiter waiters;
+
+    // Null unless metrics were installed when this was constructed
+    private final Metrics.Recorder recorder;
+    private final long created;
+
+    public LockFreeDeferred() {
+        final Metrics.Recorder recorder = this.recorder = Monitoring.recorder(getClass());
+        if (recorder == null) {
+            this.created = 0;
+        } else {
+            this.created = System.nanoTime();
+            recorder.created();
+        }
+    }
+
+    private static final class Node {
+        final byte event;
+        final Object value;
+        final Node next;
+
+        private Node(final byte event, final Object value, final Node next) {
+            this.event = event;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    private static final class Waiter {
+        volatile Thread thread = Thread.currentThread();
+        volatile Waiter next;
+    }
+
+    private static boolean _isTerminal(final Node head) {
+        return head != null && head.event < ON_RESOLVE;
+    }
+
+    private static byte _state(final Node head) {
+        return _isTerminal(head) ? head.event : PENDING;
+    }
+
+    /**
+     * @param next The top of a stack.
+     * @return The nodes in the stack in the order they were pushed.
+     */
+    private static Node[] _events(final Node next) {
+        int length = 0;
+        for (Node node = next; node != null; node = node.next) {
+            ++length;
+        }
+        if (length == 0) {
+            return EMPTY;
+        }
+        final Node[] events = new Node[length];
+        for (Node node = next; node != null; node = node.next) {
+            events[--length] = node;
+        }
+        return events;
+    }
+
+    /**
+     * @param state The terminal state to move to.
+     * @param result The value or failure to complete with.
+     * @return The terminal node if this call won the transition, otherwise {@code null}.
+     */
+    private Node _transition(final byte state, final Object result) {
+        for (;;) {
+            final Node head = this.head;
+            if (_isTerminal(head)) {
+                _repeated(head.event, state);
+                return null;
+            }
+            final Node terminal = new Node(state, result, head);
+            if (HEAD.compareAndSet(this, head, terminal)) {
+                return terminal;
+            }
+        }
+    }
+
+    /**
+     * @param event The listener type.
+     * @param then The listener.
+     * @return {@code null} if the listener was pushed while pending, otherwise the terminal node.
+     */
+    private Node _push(final byte event, final Object then) {
+        for (;;) {
+            final Node head = this.head;
+            if (_isTerminal(head)) {
+                return head;
+            }
+            if (HEAD.compareAndSet(this, head, new Node(event, then, head))) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * <p>Add a listener that should be retained after this deferred has reached a terminal state.</p>
+     *
+     * @param event The listener type.
+     * @param then The listener.
+     */
+    private void _pushRetained(final byte event, final Object then) {
+        for (;;) {
+            final Node head = this.head;
+            final Node next = _isTerminal(head)
+                    ? new Node(head.event, head.value, new Node(event, then, head.next))
+                    : new Node(event, then, head);
+            if (HEAD.compareAndSet(this, head, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * <p>Called when a terminal method is called after this deferred has reached a terminal state. This
+     * implementation drops the call.</p>
+     *
+     * @param state The terminal state this deferred is in.
+     * @param attempt The terminal state the call attempted to move this deferred to.
+     */
+    protected void _repeated(final byte state, final byte attempt) {
+        //
+    }
+
+    @Override
+    public Promise<T,F,P> promise() {
+        return this;
+    }
+
+    @Override
+    public void resolve(final T value) throws ListenerException {
+        if (Tracing.ENABLED && log().isTraceEnabled()) {
+            log().tracef(getResolveLogMessage(), value);
+        }
+        final Node terminal = _transition(RESOLVED, value);
+        if (terminal == null) {
+            return;
+        }
+        final ListenerException exception = _complete(terminal, false);
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    @Override
+    public void reject(final F failure) throws ListenerException {
+        if (Tracing.ENABLED && log().isTraceEnabled()) {
+            log().tracef(getRejectLogMessage(), failure);
+        }
+        final Node terminal = _transition(REJECTED, failure);
+        if (terminal == null) {
+            return;
+        }
+        final ListenerException exception = _complete(terminal, false);
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    @Override
+    public void progress(final P that) throws ListenerException {
+        if (Tracing.ENABLED && log().isTraceEnabled()) {
+            log().tracef(getProgressLogMessage(), that);
+        }
+        final Object[] progresses = this.progresses;
+        ListenerException exception = null;
+        for (final Object progress : progresses) {
+            @SuppressWarnings("unchecked")
+            final OnProgress<P> on = ((OnProgress<P>)progress);
+            exception = _callOnProgress(exception, on, that);
+        }
+        if (recorder != null) {
+            recorder.dispatched(progresses.length, DeferredImpl._failures(exception));
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    @Override
+    public boolean cancel(final boolean interrupt) throws ListenerException {
+        if (Tracing.ENABLED && log().isTraceEnabled()) {
+            log().tracef(getCancelLogMessage());
+        }
+        final Node terminal = _transition(CANCELLED, null);
+        if (terminal == null) {
+            return isCancelled();
+        }
+        final ListenerException exception = _complete(terminal, interrupt);
+        if (exception != null) {
+            throw exception;
+        }
+        return true;
+    }
+
+    /**
+     * <p>Runs the listeners for a terminal state, on a {@link Trampoline} if it is enabled.</p>
+     *
+     * @param terminal The node this deferred completed with.
+     * @param interrupt The argument to pass to {@link OnCancel} listeners.
+     * @return An exception if any listener threw one, otherwise {@code null}.
+     */
+    private ListenerException _complete(final Node terminal, final boolean interrupt) {
+        if (recorder != null) {
+            recorder.completed(terminal.event, System.nanoTime() - created);
+        }
+        // Threads blocked in get only need the terminal node, they are not held up by listeners queued on a trampoline
+        _signal();
+        if (!Trampoline.isEnabled()) {
+            return _fire(terminal, interrupt);
+        }
+        return Trampoline.run(new Trampoline.Task() {
+            @Override
+            public ListenerException run() {
+                return _fire(terminal, interrupt);
+            }
+        });
+    }
+
+    private ListenerException _fire(final Node terminal, final boolean interrupt) {
+        final byte state = terminal.event;
+        final Node[] events = _events(terminal.next);
+        ListenerException exception = null;
+        int listeners = 0;
+        for (final Node event : events) {
+            switch (event.event) {
+                case ON_RESOLVE:
+                    if (state == RESOLVED) {
+                        @SuppressWarnings("unchecked")
+                        final OnResolve<T> on = ((OnResolve<T>)event.value);
+                        @SuppressWarnings("unchecked")
+                        final T value = (T) terminal.value;
+                        exception = _callOnResolve(exception, on, value);
+                        ++listeners;
+                    }
+                    break;
+                case ON_REJECT:
+                    if (state == REJECTED) {
+                        @SuppressWarnings("unchecked")
+                        final OnReject<F> on = ((OnReject<F>)event.value);
+                        @SuppressWarnings("unchecked")
+                        final F failure = (F) terminal.value;
+                        exception = _callOnReject(exception, on, failure);
+                        ++listeners;
+                    }
+                    break;
+                case ON_CANCEL:
+                    if (state == CANCELLED) {
+                        exception = _callOnCancel(exception, (OnCancel) event.value, interrupt);
+                        ++listeners;
+                    }
+                    break;
+            }
+        }
+        for (final Node event : events) {
+            if (event.event != ON_COMPLETE) {
+                continue;
+            }
+            exception = _callOnComplete(exception, (OnComplete) event.value, state);
+            ++listeners;
+        }
+        if (recorder != null) {
+            recorder.dispatched(listeners, DeferredImpl._failures(exception));
+        }
+        _release();
+        return exception;
+    }
+
+    /**
+     * <p>Drops the nodes that can not be used again now the terminal listeners have run so they are not retained
+     * for as long as this deferred is. Only the get listeners are kept as {@link #get()} still calls them.
+     * Progress listeners are not held in the nodes so this leaves them to {@link #progress(Object)}. The stages
+     * added by {@code then} are registered for both through a {@link Link} that lets go of the stage once it
+     * completes.</p>
+     */
+    private void _release() {
+        this.dispatch = null;
+        for (;;) {
+            final Node head = this.head;
+            final Node[] events = _events(head.next);
+            Node next = null;
+            boolean dropped = false;
+            for (int i = events.length - 1; i >= 0; --i) {
+                final Node event = events[i];
+                if (event.event == ON_GET) {
+                    next = new Node(event.event, event.value, next);
+                } else {
+                    dropped = true;
+                }
+            }
+            if (!dropped || HEAD.compareAndSet(this, head, new Node(head.event, head.value, next))) {
+                return;
+            }
+        }
+    }
+
+    private void _signal() {
+        for (Waiter waiter = WAITERS.getAndSet(this, null); waiter != null; waiter = waiter.next) {
+            final Thread thread = waiter.thread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    /**
+     * <p>Pushes a waiter for the current thread. The caller must check for a terminal state after this returns
+     * and before parking as {@link #_signal()} may already have run.</p>
+     */
+    private Waiter _addWaiter() {
+        final Waiter waiter = new Waiter();
+        for (;;) {
+            final Waiter head = this.waiters;
+            waiter.next = head;
+            if (WAITERS.compareAndSet(this, head, waiter)) {
+                return waiter;
+            }
+        }
+    }
+
+    /**
+     * <p>Clears the thread of {@code waiter} and unlinks every waiter whose thread has been cleared. Restarts from
+     * the head if it races with another thread unlinking.</p>
+     */
+    private void _removeWaiter(final Waiter waiter) {
+        waiter.thread = null;
+        retry:
+        for (;;) {
+            for (Waiter prev = null, current = this.waiters, next; current != null; current = next) {
+                next = current.next;
+                if (current.thread != null) {
+                    prev = current;
+                } else if (prev != null) {
+                    prev.next = next;
+                    if (prev.thread == null) {
+                        continue retry;
+                    }
+                } else if (!WAITERS.compareAndSet(this, current, next)) {
+                    continue retry;
+                }
+            }
+            return;
+        }
+    }
+
+    @Override
+    public boolean isDone() {
+        return _isTerminal(this.head);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return _state(this.head) == CANCELLED;
+    }
+
+    @Override
+    public boolean isRejected() {
+        return _state(this.head) == REJECTED;
+    }
+
+    @Override
+    public boolean isResolved() {
+        return _state(this.head) == RESOLVED;
+    }
+
+    @Override
+    public Deferred<T,F,P> onResolve(final OnResolve<? super T> then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onResolve"));
+        }
+        final Node terminal = _push(ON_RESOLVE, then);
+        if (terminal != null && terminal.event == RESOLVED) {
+            @SuppressWarnings("unchecked")
+            final T value = (T) terminal.value;
+            then.resolve(value);
+        }
+        return this;
+    }
+
+    @Override
+    public Deferred<T,F,P> onReject(final OnReject<? super F> then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onReject"));
+        }
+        final Node terminal = _push(ON_REJECT, then);
+        if (terminal != null && terminal.event == REJECTED) {
+            @SuppressWarnings("unchecked")
+            final F failure = (F) terminal.value;
+            then.reject(failure);
+        }
+        return this;
+    }
+
+    @Override
+    public Deferred<T,F,P> onCancel(final OnCancel then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onCancel"));
+        }
+        final Node terminal = _push(ON_CANCEL, then);
+        if (terminal != null && terminal.event == CANCELLED) {
+            then.cancel(true);
+        }
+        return this;
+    }
+
+    @Override
+    public Deferred<T,F,P> onComplete(final OnComplete then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onComplete"));
+        }
+        final Node terminal = _push(ON_COMPLETE, then);
+        if (terminal != null) {
+            then.complete(terminal.event);
+        }
+        return this;
+    }
+
+    @Override
+    public Deferred<T,F,P> onProgress(final OnProgress<? super P> then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onProgress"));
+        }
+        for (;;) {
+            final Object[] progresses = this.progresses;
+            final Object[] next = Arrays.copyOf(progresses, progresses.length + 1);
+            next[progresses.length] = then;
+            if (PROGRESSES.compareAndSet(this, progresses, next)) {
+                return this;
+            }
+        }
+    }
+
+    @Override
+    public Deferred<T,F,P> onGet(final Future<?> then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onGet"));
+        }
+        _pushRetained(ON_GET, then);
+        return this;
+    }
+
+    @Override
+    public Deferred<T,F,P> onResolve(final Executor executor, final OnResolve<? super T> then) {
+        if (executor == null || then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onResolve"));
+        }
+        final Dispatch<T,F,P> dispatch = _dispatch(executor);
+        if (dispatch == null || !dispatch.addResolve(then)) {
+            final Dispatch<T,F,P> single = new Dispatch<>(executor, null);
+            single.addResolve(then);
+            single.register(this);
+        }
+        return this;
+    }
+
+    @Override
+    public Deferred<T,F,P> onReject(final Executor executor, final OnReject<? super F> then) {
+        if (executor == null || then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onReject"));
+        }
+        final Dispatch<T,F,P> dispatch = _dispatch(executor);
+        if (dispatch == null || !dispatch.addReject(then)) {
+            final Dispatch<T,F,P> single = new Dispatch<>(executor, null);
+            single.addReject(then);
+            single.register(this);
+        }
+        return this;
+    }
+
+    @Override
+    public Deferred<T,F,P> onComplete(final Executor executor, final OnComplete then) {
+        if (executor == null || then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onComplete"));
+        }
+        final Dispatch<T,F,P> dispatch = _dispatch(executor);
+        if (dispatch == null || !dispatch.addComplete(then)) {
+            final Dispatch<T,F,P> single = new Dispatch<>(executor, null);
+            single.addComplete(then);
+            single.register(this);
+        }
+        return this;
+    }
+
+    @Override
+    public Deferred<T,F,P> onProgress(final Executor executor, final OnProgress<? super P> then) {
+        if (executor == null || then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onProgress"));
+        }
+        final Dispatch<T,F,P> dispatch = _dispatch(executor);
+        if (dispatch == null) {
+            final Dispatch<T,F,P> single = new Dispatch<>(executor, null);
+            single.addProgress(then);
+            this.onProgress(single);
+        } else {
+            dispatch.addProgress(then);
+        }
+        return this;
+    }
+
+    /**
+     * @param executor The executor listeners will be run on.
+     * @return The dispatch collecting listeners for {@code executor} or {@code null} if this deferred has
+     *         already reached a terminal state.
+     */
+    private Dispatch<T,F,P> _dispatch(final Executor executor) {
+        for (;;) {
+            if (isDone()) {
+                return null;
+            }
+            final Dispatch<T,F,P> head = this.dispatch;
+            final Dispatch<T,F,P> found = Dispatch.find(head, executor);
+            if (found != null) {
+                return found;
+            }
+            final Dispatch<T,F,P> dispatch = new Dispatch<>(executor, head);
+            if (DISPATCH.compareAndSet(this, head, dispatch)) {
+                return dispatch.register(this);
+            }
+        }
+    }
+
+    @Override
+    public <Tx> Promise<Tx,F,P> then(final Resolve<? super T,Tx,F,P> then) {
+        final LockFreeDeferred<Tx,F,P> next = new LockFreeDeferred<>();
+        final OnResolve<T> callback = new OnResolve<T>() {
+            @Override
+            public void resolve(final T that) {
+                then.resolve(that, next);
+            }
+        };
+        final Link<P> link = Link.to(next, next);
+        this.onResolve(callback)
+                .onReject(next)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public <Tx,Fx> Promise<Tx,Fx,P> then(final Reject<? super T,? super F,Tx,Fx,P> then) {
+        final LockFreeDeferred<Tx,Fx,P> next = new LockFreeDeferred<>();
+        final _OnReject<T,F> callback = new _OnReject<T,F>() {
+            @Override
+            public void resolve(final T that) {
+                then.resolve(that, next);
+            }
+
+            @Override
+            public void reject(final F fail) {
+                then.reject(fail, next);
+            }
+        };
+        final Link<P> link = Link.to(next, next);
+        this.onResolve(callback)
+                .onReject(callback)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public <Tx,Fx,Px> Promise<Tx,Fx,Px> then(final Progress<? super T,? super F,? super P,Tx,Fx,Px> then) {
+        final LockFreeDeferred<Tx,Fx,Px> next = new LockFreeDeferred<>();
+        final _OnProgress<T,F,P> callback = new _OnProgress<T,F,P>() {
+            @Override
+            public void resolve(final T that) {
+                then.resolve(that, next);
+            }
+
+            @Override
+            public void reject(final F fail) {
+                then.reject(fail, next);
+            }
+
+            @Override
+            public void progress(final P that) {
+                then.progress(that, next);
+            }
+        };
+        final Link<P> link = Link.to(next, callback);
+        this.onResolve(callback)
+                .onReject(callback)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public <Tx> Promise<Tx,F,P> then(final Executor executor, final Resolve<? super T,Tx,F,P> then) {
+        final LockFreeDeferred<Tx,F,P> next = new LockFreeDeferred<>();
+        final OnResolve<T> callback = new OnResolve<T>() {
+            @Override
+            public void resolve(final T that) {
+                then.resolve(that, next);
+            }
+        };
+        final Link<P> link = Link.to(next, next);
+        this.onResolve(executor, callback)
+                .onReject(next)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public <Tx,Fx> Promise<Tx,Fx,P> then(final Executor executor, final Reject<? super T,? super F,Tx,Fx,P> then) {
+        final LockFreeDeferred<Tx,Fx,P> next = new LockFreeDeferred<>();
+        final _OnReject<T,F> callback = new _OnReject<T,F>() {
+            @Override
+            public void resolve(final T that) {
+                then.resolve(that, next);
+            }
+
+            @Override
+            public void reject(final F fail) {
+                then.reject(fail, next);
+            }
+        };
+        final Link<P> link = Link.to(next, next);
+        this.onResolve(executor, callback)
+                .onReject(executor, callback)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public <Tx,Fx,Px> Promise<Tx,Fx,Px> then(final Executor executor, final Progress<? super T,? super F,? super P,Tx,Fx,Px> then) {
+        final LockFreeDeferred<Tx,Fx,Px> next = new LockFreeDeferred<>();
+        final _OnProgress<T,F,P> callback = new _OnProgress<T,F,P>() {
+            @Override
+            public void resolve(final T that) {
+                then.resolve(that, next);
+            }
+
+            @Override
+            public void reject(final F fail) {
+                then.reject(fail, next);
+            }
+
+            @Override
+            public void progress(final P that) {
+                then.progress(that, next);
+            }
+        };
+        final Link<P> link = Link.to(next, callback);
+        this.onResolve(executor, callback)
+                .onReject(executor, callback)
+                .onProgress(executor, link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public Promise<T,F,P> orTimeout(final long timeout, final TimeUnit unit, final F failure) {
+        return TimeoutDeferred.orTimeout(this, timeout, unit, failure, HashedWheelTimer.shared());
+    }
+
+    @Override
+    public Promise<T,F,P> completeOnTimeout(final T value, final long timeout, final TimeUnit unit) {
+        return TimeoutDeferred.completeOnTimeout(this, value, timeout, unit, HashedWheelTimer.shared());
+    }
+
+    @Override
+    public Pipeline<T,F,P> pipeline() {
+        return new FusedPipeline<>(this);
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException(getInterruptedExceptionMessage());
+        }
+        Node head = this.head;
+        if (!_isTerminal(head)) {
+            final Waiter waiter = _addWaiter();
+            try {
+                while (!_isTerminal(head = this.head)) {
+                    LockSupport.park(this);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException(getInterruptedExceptionMessage());
+                    }
+                }
+            } finally {
+                _removeWaiter(waiter);
+            }
+        }
+        final Node[] events = _events(head.next);
+        try {
+            switch (head.event) {
+                case CANCELLED:
+                    throw _onGet(events, StacklessExceptions.cancelled());
+                case REJECTED:
+                    final String msg = Messages.format("THEN-000201.promise.rejected");
+                    throw _onGet(events, StacklessExceptions.rejected(msg, _getFailureCause(msg, head.value)));
+                case RESOLVED:
+                    _onGet(events, null);
+                    @SuppressWarnings("unchecked")
+                    final T value = (T) head.value;
+                    return value;
+                default:
+                    throw new IllegalStateException(Messages.format("THEN-000200.promise.illegal.state", _stateToString(head.event)));
+            }
+        } catch (final InterruptedException | ExecutionException | RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public T get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException(getInterruptedExceptionMessage());
+        }
+        final long end = System.nanoTime() + unit.toNanos(timeout);
+        Node head = this.head;
+        if (!_isTerminal(head)) {
+            final Waiter waiter = _addWaiter();
+            try {
+                while (!_isTerminal(head = this.head)) {
+                    LockSupport.parkNanos(this, _tryTimeout(end));
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException(getInterruptedExceptionMessage());
+                    }
+                }
+            } finally {
+                _removeWaiter(waiter);
+            }
+        }
+        final Node[] events = _events(head.next);
+        try {
+            switch (head.event) {
+                case CANCELLED:
+                    throw _onTimedGet(events, end, StacklessExceptions.cancelled());
+                case REJECTED:
+                    final String msg = Messages.format("THEN-000201.promise.rejected");
+                    throw _onTimedGet(events, end, StacklessExceptions.rejected(msg, _getFailureCause(msg, head.value)));
+                case RESOLVED:
+                    _onTimedGet(events, end, null);
+                    @SuppressWarnings("unchecked")
+                    final T value = (T) head.value;
+                    return value;
+                default:
+                    throw new IllegalStateException(Messages.format("THEN-000200.promise.illegal.state", _stateToString(head.event)));
+            }
+        } catch (final InterruptedException | ExecutionException | TimeoutException | RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    protected ListenerException _callOnResolve(ListenerException exception, final OnResolve<T> on, final T value) {
+        try {
+            on.resolve(value);
+        } catch (final Throwable e) {
+            if (exception == null) {
+                exception = StacklessExceptions.listener("THEN-000300.promise.on.resolve.exception", e);
+            } else {
+                exception.addSuppressed(e);
+            }
+        }
+        return exception;
+    }
+
+    protected ListenerException _callOnComplete(ListenerException exception, final OnComplete on, final int state) {
+        try {
+            on.complete(state);
+        } catch (final Throwable e) {
+            if (exception == null) {
+                exception = StacklessExceptions.listener("THEN-000303.promise.on.complete.exception", e);
+            } else {
+                exception.addSuppressed(e);
+            }
+        }
+        return exception;
+    }
+
+    protected ListenerException _callOnReject(ListenerException exception, final OnReject<F> on, final F failure) {
+        try {
+            on.reject(failure);
+        } catch (final Throwable e) {
+            if (exception == null) {
+                exception = StacklessExceptions.listener("THEN-000301.promise.on.reject.exception", e);
+            } else {
+                exception.addSuppressed(e);
+            }
+        }
+        return exception;
+    }
+
+    protected ListenerException _callOnCancel(ListenerException exception, final OnCancel on, final boolean interrupt) {
+        try {
+            on.cancel(interrupt);
+        } catch (final Throwable e) {
+            if (exception == null) {
+                exception = StacklessExceptions.listener("THEN-000302.promise.on.cancel.exception", e);
+            } else {
+                exception.addSuppressed(e);
+            }
+        }
+        return exception;
+    }
+
+    protected ListenerException _callOnProgress(ListenerException exception, final OnProgress<P> on, final P that) {
+        try {
+            on.progress(that);
+        } catch (final Throwable e) {
+            if (exception == null) {
+                exception = StacklessExceptions.listener("THEN-000304.promise.on.progress.exception", e);
+            } else {
+                exception.addSuppressed(e);
+            }
+        }
+        return exception;
+    }
+
+    private Exception _onGet(final Node[] events, Exception exception) {
+        for (final Node event : events) {
+            if (event.event != ON_GET) {
+                continue;
+            }
+            try {
+                ((Future<?>) event.value).get();
+            } catch (final Throwable e) {
+                if (exception == null) {
+                    exception = StacklessExceptions.listener("THEN-000401.promise.get.exception", e);
+                } else {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+        return exception;
+    }
+
+    private Exception _onTimedGet(final Node[] events, final long end, Exception exception) {
+        for (final Node event : events) {
+            if (event.event != ON_GET) {
+                continue;
+            }
+            try {
+                ((Future<?>) event.value).get(_tryTimeout(end), NANOSECONDS);
+            } catch (final Throwable e) {
+                if (exception == null) {
+                    exception = StacklessExceptions.listener("THEN-000401.promise.get.exception", e);
+                } else {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+        return exception;
+    }
+
+    protected Throwable _getFailureCause(final String msg, final Object failure) {
+        return failure instanceof Throwable
+                ? (Throwable)failure
+                : new FailureException(msg, failure);
+    }
+
+    protected long _tryTimeout(final long end) throws TimeoutException {
+        final long timeout = end - System.nanoTime();
+        if (timeout <= 0) {
+            throw StacklessExceptions.timeout(getTimeoutExceptionMessage());
+        }
+        return timeout;
+    }
+
+    protected String getResolveLogMessage() {
+        return Messages.get("THEN-000000.promise.resolve");
+    }
+
+    protected String getRejectLogMessage() {
+        return Messages.get("THEN-000001.promise.reject");
+    }
+
+    protected String getCancelLogMessage() {
+        return Messages.get("THEN-000002.promise.cancel");
+    }
+
+    protected String getProgressLogMessage() {
+        return Messages.get("THEN-000003.promise.progress");
+    }
+
+    protected String getTimeoutExceptionMessage() {
+        return Messages.get("THEN-000100.promise.timeout");
+    }
+
+    protected String getInterruptedExceptionMessage() {
+        return Messages.format("THEN-000101.promise.interrupted");
+    }
+
+    protected Logger log() {
+        return Log.log;
+    }
+
+    protected String _stateToString(final int state) {
+        switch (state) {
+            case PENDING: return "PENDING";
+            case RESOLVED: return "RESOLVED";
+            case REJECTED: return "REJECTED";
+            case CANCELLED: return "CANCELLED";
+            default: return "UNKNOWN";
+        }
+    }
+
+    @Override
+    public String toString() {
+        final byte state = _state(this.head);
+        final StringBuilder sb = new StringBuilder("LockFreeDeferred{");
+        sb.append("state=").append(state).append(" (").append(_stateToString(state)).append(")");
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private interface _OnReject<T,F> extends OnResolve<T>, OnReject<F> {}
+    private interface _OnProgress<T,F,P> extends OnResolve<T>, OnReject<F>, OnProgress<P> {}
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.DoubleDeferred;
+import io.machinecode.then.api.DoublePromise;
+import io.machinecode.then.api.IntDeferred;
+import io.machinecode.then.api.IntPromise;
+import io.machinecode.then.api.ListenerException;
+import io.machinecode.then.api.LongDeferred;
+import io.machinecode.then.api.LongPromise;
+import io.machinecode.then.api.LongResolve;
+import io.machinecode.then.api.OnLongResolve;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>A {@link DeferredImpl} of a {@code long}. The value is only boxed if it is requested by a listener
+ * registered with {@link #onResolve(OnResolve)} or by {@link #get()}.</p>
+ *
+ * <p>{@link #resolve(Long)} will throw an {@link IllegalArgumentException} if it is passed {@code null}.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class LongDeferredImpl<F,P> extends DeferredImpl<Long,F,P> implements LongDeferred<F,P> {
+
+    protected long longValue;
+
+    public LongDeferredImpl() {
+        super();
+    }
+
+    public LongDeferredImpl(final int hint) {
+        super(hint);
+    }
+
+    protected boolean setLong(final long value) {
+        switch (this.state) {
+            case RESOLVED:
+            case REJECTED:
+            case CANCELLED:
+                return true;
+        }
+        this.longValue = value;
+        this.state = RESOLVED;
+        return false;
+    }
+
+    @Override
+    public LongPromise<F,P> promise() {
+        return this;
+    }
+
+    @Override
+    public void resolve(final Long value) throws ListenerException {
+        if (value == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "resolve"));
+        }
+        resolve(value.longValue());
+    }
+
+    @Override
+    public void resolve(final long value) throws ListenerException {
+        if (Tracing.ENABLED && log().isTraceEnabled()) {
+            log().tracef(getResolveLogMessage(), value);
+        }
+        final byte state;
+        synchronized (lock) {
+            if (setLong(value)) {
+                return;
+            }
+            state = this.state;
+        }
+        final ListenerException exception = _complete(state, false);
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    @Override
+    public LongDeferred<F,P> onResolveLong(final OnLongResolve then) {
+        if (then == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "onResolve"));
+        }
+        return _onResolve(new _Listener(then));
+    }
+
+    private LongDeferred<F,P> _onResolve(final _OnLongResolve then) {
+        boolean run = false;
+        synchronized (lock) {
+            switch (this.state) {
+                case REJECTED:
+                case CANCELLED:
+                    return this;
+                case RESOLVED:
+                    run = true;
+                    break;
+                case PENDING:
+                default:
+                    addEvent(ON_RESOLVE, then);
+            }
+        }
+        if (run) {
+            then.resolve(this.longValue);
+        }
+        return this;
+    }
+
+    @Override
+    public long getLong() throws InterruptedException, ExecutionException {
+        _await();
+        return longValue;
+    }
+
+    @Override
+    public long getLong(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        _await(timeout, unit);
+        return longValue;
+    }
+
+    @Override
+    public IntPromise<F,P> thenInt(final LongResolve<? super IntDeferred<F,P>> then) {
+        final IntDeferredImpl<F,P> next = new IntDeferredImpl<>();
+        final Link<P> link = Link.to(next, next);
+        this._onResolve(new _OnLongResolve() {
+                    @Override
+                    public void resolve(final long that) {
+                        then.resolve(that, next);
+                    }
+                })
+                .onReject(next)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public LongPromise<F,P> thenLong(final LongResolve<? super LongDeferred<F,P>> then) {
+        final LongDeferredImpl<F,P> next = new LongDeferredImpl<>();
+        final Link<P> link = Link.to(next, next);
+        this._onResolve(new _OnLongResolve() {
+                    @Override
+                    public void resolve(final long that) {
+                        then.resolve(that, next);
+                    }
+                })
+                .onReject(next)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public DoublePromise<F,P> thenDouble(final LongResolve<? super DoubleDeferred<F,P>> then) {
+        final DoubleDeferredImpl<F,P> next = new DoubleDeferredImpl<>();
+        final Link<P> link = Link.to(next, next);
+        this._onResolve(new _OnLongResolve() {
+                    @Override
+                    public void resolve(final long that) {
+                        then.resolve(that, next);
+                    }
+                })
+                .onReject(next)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    public <Tx> Promise<Tx,F,P> thenObject(final LongResolve<? super Deferred<Tx,F,P>> then) {
+        final DeferredImpl<Tx,F,P> next = new DeferredImpl<>();
+        final Link<P> link = Link.to(next, next);
+        this._onResolve(new _OnLongResolve() {
+                    @Override
+                    public void resolve(final long that) {
+                        then.resolve(that, next);
+                    }
+                })
+                .onReject(next)
+                .onProgress(link)
+                .onCancel(next)
+                .onGet(link);
+        return next;
+    }
+
+    @Override
+    protected Long _value() {
+        return longValue;
+    }
+
+    @Override
+    protected ListenerException _callOnResolve(ListenerException exception, final OnResolve<Long> on) {
+        if (!(on instanceof _OnLongResolve)) {
+            return super._callOnResolve(exception, on);
+        }
+        try {
+            ((_OnLongResolve) on).resolve(this.longValue);
+        } catch (final Throwable e) {
+            if (exception == null) {
+                exception = StacklessExceptions.listener("THEN-000300.promise.on.resolve.exception", e);
+            } else {
+                exception.addSuppressed(e);
+            }
+        }
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LongDeferredImpl{");
+        sb.append("state=").append(state).append(" (").append(_stateToString(state)).append(")");
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * <p>Stored as an {@link #ON_RESOLVE} event so it is called without boxing the value.</p>
+     */
+    private abstract static class _OnLongResolve implements OnLongResolve, OnResolve<Long> {
+        @Override
+        public void resolve(final Long that) {
+            resolve(that.longValue());
+        }
+    }
+
+    private static final class _Listener extends _OnLongResolve {
+        final OnLongResolve then;
+
+        private _Listener(final OnLongResolve then) {
+            this.then = then;
+        }
+
+        @Override
+        public void resolve(final long that) {
+            then.resolve(that);
+        }
+    }
+}
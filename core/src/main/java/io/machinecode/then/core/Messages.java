@@ -14,13 +14,22 @@
  */
 package io.machinecode.then.core;
 
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Formattable;
 import java.util.Formatter;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 
 /**
  * <p>Message bundle for Then library.</p>
  *
+ * <p>Every message is read from the bundle and prefixed with its id once, when the first message is needed. Messages
+ * that only contain {@code %s} conversions are formatted by concatenation rather than by a {@link Formatter}.</p>
+ *
  * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
  * @since 1.0
  */
@@ -28,16 +37,27 @@ public final class Messages {
 
     private Messages(){}
 
-    private static final ResourceBundle MESSAGES;
+    private static final String BUNDLE = "ThenMessages";
+
+    // The bundle is not loaded until the first message is needed
+    private static final class Table {
+        static final Map<String,Message> MESSAGES = _load();
+    }
 
-    static {
+    private static Map<String,Message> _load() {
         ResourceBundle bundle;
         try {
-            bundle = ResourceBundle.getBundle("ThenMessages", Locale.getDefault(), Messages.class.getClassLoader());
+            bundle = ResourceBundle.getBundle(BUNDLE, Locale.getDefault(), Messages.class.getClassLoader());
         } catch (final Exception e) {
-            bundle = ResourceBundle.getBundle("ThenMessages", Locale.ENGLISH, Messages.class.getClassLoader());
+            bundle = ResourceBundle.getBundle(BUNDLE, Locale.ENGLISH, Messages.class.getClassLoader());
+        }
+        final Map<String,Message> messages = new HashMap<>();
+        final Enumeration<String> keys = bundle.getKeys();
+        while (keys.hasMoreElements()) {
+            final String key = keys.nextElement();
+            messages.put(key, new Message(key, bundle.getString(key)));
         }
-        MESSAGES = bundle;
+        return Collections.unmodifiableMap(messages);
     }
 
     /**
@@ -45,7 +65,7 @@ public final class Messages {
      * @return A localised message prepended with the message id.
      */
     public static String get(final String key) {
-        return key.split("\\.")[0] + ": " + raw(key);
+        return _message(key).text;
     }
 
     /**
@@ -54,7 +74,24 @@ public final class Messages {
      * @return A formatted localised message prepended with the message id and format it.
      */
     public static String format(final String key, final Object... args) {
-        return new Formatter().format(get(key), args).toString();
+        final Message message = _message(key);
+        final String[] parts = message.parts;
+        if (parts == null || args.length < parts.length - 1) {
+            return new Formatter().format(message.text, args).toString();
+        }
+        if (parts.length == 1) {
+            return message.text;
+        }
+        final StringBuilder builder = new StringBuilder(message.text.length() + 16 * args.length);
+        builder.append(parts[0]);
+        for (int i = 1; i < parts.length; ++i) {
+            final Object arg = args[i - 1];
+            if (arg instanceof Formattable) {
+                return new Formatter().format(message.text, args).toString();
+            }
+            builder.append(arg).append(parts[i]);
+        }
+        return builder.toString();
     }
 
     /**
@@ -62,6 +99,37 @@ public final class Messages {
      * @return A localised message as found in the bundle.
      */
     public static String raw(final String key) {
-        return MESSAGES.getString(key);
+        return _message(key).raw;
+    }
+
+    private static Message _message(final String key) {
+        final Message message = Table.MESSAGES.get(key);
+        if (message == null) {
+            throw new MissingResourceException("Can't find resource for bundle " + BUNDLE + ", key " + key, BUNDLE, key);
+        }
+        return message;
+    }
+
+    private static final class Message {
+        final String raw;
+        final String text;
+        // The text split around each %s, or null if it contains other conversions
+        final String[] parts;
+
+        private Message(final String key, final String raw) {
+            final int id = key.indexOf('.');
+            this.raw = raw;
+            this.text = (id == -1 ? key : key.substring(0, id)) + ": " + raw;
+            this.parts = _split(this.text);
+        }
+
+        private static String[] _split(final String text) {
+            for (int i = text.indexOf('%'); i != -1; i = text.indexOf('%', i + 2)) {
+                if (i + 1 == text.length() || text.charAt(i + 1) != 's') {
+                    return null;
+                }
+            }
+            return text.split("%s", -1);
+        }
     }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+/**
+ * <p>Receives events from the deferreds in this package. An implementation is installed with
+ * {@link Monitoring#setMetrics(Metrics)}.</p>
+ *
+ * <p>Deferreds look up their {@link Recorder} when they are constructed so {@link #recorder(Class)} is called
+ * for every deferred created while an implementation is installed. It should be cheap and must be thread
+ * safe.</p>
+ *
+ * @see JmxMetrics
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public interface Metrics {
+
+    /**
+     * @param type The class of the deferred being constructed.
+     * @return The recorder for deferreds of {@code type} or {@code null} if they should not be recorded.
+     */
+    Recorder recorder(final Class<?> type);
+
+    /**
+     * <p>Receives the events of deferreds of a single class. Called concurrently by any thread that
+     * uses one of those deferreds.</p>
+     */
+    interface Recorder {
+
+        /**
+         * <p>Called when a deferred is constructed.</p>
+         */
+        void created();
+
+        /**
+         * <p>Called by the thread that moved a deferred into a terminal state, before any listeners are run.</p>
+         *
+         * @param state The terminal state, one of {@link io.machinecode.then.api.Deferred#RESOLVED},
+         *              {@link io.machinecode.then.api.Deferred#REJECTED} or
+         *              {@link io.machinecode.then.api.Deferred#CANCELLED}.
+         * @param nanos The time since the deferred was constructed.
+         */
+        void completed(final int state, final long nanos);
+
+        /**
+         * <p>Called after the listeners for a terminal state or a progress event have been run.</p>
+         *
+         * @param listeners The number of listeners that were run.
+         * @param failures The number of those listeners that threw an exception.
+         */
+        void dispatched(final int listeners, final int failures);
+    }
+}
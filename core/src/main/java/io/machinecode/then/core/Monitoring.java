@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import org.jboss.logging.Logger;
+
+/**
+ * <p>Controls the {@link Metrics} the deferreds in this package report to.</p>
+ *
+ * <p>No metrics are recorded by default and a deferred constructed while no {@link Metrics} is installed
+ * records nothing for its whole life, so the only cost is a single read when it is constructed.</p>
+ *
+ * <p>An implementation can be installed by calling {@link #setMetrics(Metrics)} or by setting the system property
+ * {@code io.machinecode.then.metrics} to the name of a class implementing {@link Metrics} that has a public
+ * no-arg constructor. The value {@code jmx} installs a {@link JmxMetrics}.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public final class Monitoring {
+
+    private static volatile Metrics metrics = _load(System.getProperty("io.machinecode.then.metrics"));
+
+    private Monitoring(){}
+
+    /**
+     * @return The installed metrics or {@code null} if none are installed.
+     */
+    public static Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * <p>Deferreds that have already been constructed keep reporting to the metrics that were installed when
+     * they were constructed.</p>
+     *
+     * @param metrics The metrics to report to or {@code null} to stop recording.
+     */
+    public static void setMetrics(final Metrics metrics) {
+        Monitoring.metrics = metrics;
+    }
+
+    static Metrics.Recorder recorder(final Class<?> type) {
+        final Metrics metrics = Monitoring.metrics;
+        return metrics == null ? null : metrics.recorder(type);
+    }
+
+    private static Metrics _load(final String name) {
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        if ("jmx".equals(name)) {
+            return new JmxMetrics();
+        }
+        try {
+            return (Metrics) Class.forName(name, true, Monitoring.class.getClassLoader()).getDeclaredConstructor().newInstance();
+        } catch (final Exception e) {
+            Logger.getLogger(Monitoring.class).warnf(e, Messages.get("THEN-000900.metrics.load.failed"), name);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,658 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.OnCancel;
+import io.machinecode.then.api.OnReject;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A cache of promises for values that are expensive to load. Concurrent calls to {@link #get(Object)} for a
+ * key that is not cached share a single call to the {@link Loader}.</p>
+ *
+ * <p>Entries are bounded by count or by the weight reported by a {@link Weigher} using a segmented LRU policy.
+ * New entries start in a probationary segment and move to a protected segment, holding at most 80% of the
+ * maximum, when they are read again. Entries evicted from the protected segment go back to the head of the
+ * probationary segment, so entries that are only read once can not push out those read repeatedly.</p>
+ *
+ * <p>An entry can expire a fixed time after it was loaded. If a refresh interval is also set the first read
+ * after it has elapsed reloads the entry in the background, the old value is returned until the reload
+ * resolves and is kept if it fails. Rejected loads are removed as soon as they complete unless a failure
+ * expiry is set, in which case the rejection is returned until it expires. A cancelled load is always
+ * removed. As the cached promise is shared, cancelling it cancels the load for every caller.</p>
+ *
+ * <p>Expired entries are removed when they are next read or by {@link #cleanUp()}.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public final class PromiseCache<K,V> {
+
+    private static final long NEVER = Long.MAX_VALUE;
+    private static final long UNBOUNDED = Long.MAX_VALUE;
+
+    private static final byte UNLINKED = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<Entry> REFRESHING
+            = AtomicIntegerFieldUpdater.newUpdater(Entry.class, "refreshing");
+
+    private final ConcurrentMap<K,Entry<K,V>> map = new ConcurrentHashMap<>();
+    private final Loader<K,V> loader;
+    private final Weigher<? super K,? super V> weigher;
+    private final long maximum;
+    private final long protectedMaximum;
+    private final long expireAfterWrite;
+    private final long refreshAfterWrite;
+    private final long expireAfterFailure;
+    private final Ticker ticker;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loadSuccesses = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong loadTime = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final Object lock = new Object();
+
+    // Circular lists guarded by the lock, the most recently read entry is next from the head
+    private final Entry<K,V> probation = new Entry<>(null, 0);
+    private final Entry<K,V> protect = new Entry<>(null, 0);
+    private long probationWeight = 0;
+    private long protectedWeight = 0;
+
+    private PromiseCache(final Builder<K,V> builder, final Loader<K,V> loader) {
+        this.loader = loader;
+        this.weigher = builder.weigher;
+        this.maximum = builder.maximum;
+        this.protectedMaximum = builder.maximum - builder.maximum / 5;
+        this.expireAfterWrite = builder.expireAfterWrite;
+        this.refreshAfterWrite = builder.refreshAfterWrite;
+        this.expireAfterFailure = builder.expireAfterFailure;
+        this.ticker = builder.ticker;
+    }
+
+    /**
+     * @param key The key to look up.
+     * @return The cached promise for {@code key}, starting a load if there is no live entry for it.
+     */
+    public Promise<V,Throwable,Void> get(final K key) {
+        if (key == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "key"));
+        }
+        final long now = ticker.read();
+        final Entry<K,V> entry = map.get(key);
+        if (entry != null) {
+            if (!_expired(entry, now)) {
+                return _hit(entry, now);
+            }
+            _remove(entry, true);
+        }
+        final DeferredImpl<V,Throwable,Void> deferred = new DeferredImpl<>();
+        final Entry<K,V> created = new Entry<>(key, weigher == null ? 1 : 0);
+        created.promise = deferred;
+        final Entry<K,V> existing = map.putIfAbsent(key, created);
+        if (existing != null) {
+            // Another thread started loading first
+            return _hit(existing, now);
+        }
+        misses.incrementAndGet();
+        _link(created);
+        _load(created, deferred, now);
+        return deferred;
+    }
+
+    /**
+     * @param key The key to look up.
+     * @return The cached promise for {@code key} or {@code null} if there is no live entry for it.
+     */
+    public Promise<V,Throwable,Void> getIfPresent(final K key) {
+        if (key == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "key"));
+        }
+        final long now = ticker.read();
+        final Entry<K,V> entry = map.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (_expired(entry, now)) {
+            _remove(entry, true);
+            misses.incrementAndGet();
+            return null;
+        }
+        return _hit(entry, now);
+    }
+
+    /**
+     * <p>Remove the entry for {@code key}. A load in progress is not cancelled.</p>
+     *
+     * @param key The key to remove.
+     */
+    public void invalidate(final K key) {
+        if (key == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "key"));
+        }
+        final Entry<K,V> entry = map.get(key);
+        if (entry != null) {
+            _remove(entry, false);
+        }
+    }
+
+    public void invalidateAll() {
+        for (final Entry<K,V> entry : map.values()) {
+            _remove(entry, false);
+        }
+    }
+
+    /**
+     * <p>Remove every entry that has expired.</p>
+     */
+    public void cleanUp() {
+        final long now = ticker.read();
+        for (final Entry<K,V> entry : map.values()) {
+            if (_expired(entry, now)) {
+                _remove(entry, true);
+            }
+        }
+    }
+
+    /**
+     * @return The number of entries, including those loading and those expired but not yet removed.
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * @return The total weight of the entries. Each entry weighs one in a cache bounded by
+     *         {@link Builder#maximumSize(long)}, and an unbounded cache does not track weight so this is
+     *         always {@code 0}.
+     */
+    public long weight() {
+        synchronized (lock) {
+            return probationWeight + protectedWeight;
+        }
+    }
+
+    /**
+     * @return A snapshot of the statistics recorded since the cache was created.
+     */
+    public Stats stats() {
+        return new Stats(hits.get(), misses.get(), loadSuccesses.get(), loadFailures.get(), loadTime.get(), evictions.get());
+    }
+
+    private Promise<V,Throwable,Void> _hit(final Entry<K,V> entry, final long now) {
+        hits.incrementAndGet();
+        _touch(entry);
+        final long refresh = entry.refresh;
+        if (refresh != NEVER && now - refresh >= 0 && REFRESHING.compareAndSet(entry, 0, 1)) {
+            _refresh(entry, now);
+        }
+        return entry.promise;
+    }
+
+    private static boolean _expired(final Entry<?,?> entry, final long now) {
+        final long expires = entry.expires;
+        return expires != NEVER && now - expires >= 0;
+    }
+
+    private static long _deadline(final long now, final long after) {
+        return after == 0 ? NEVER : now + after;
+    }
+
+    private void _load(final Entry<K,V> entry, final Deferred<V,Throwable,Void> deferred, final long start) {
+        final Promise<? extends V,? extends Throwable,?> loading;
+        try {
+            loading = loader.load(entry.key);
+        } catch (final Throwable e) {
+            _failed(entry, start);
+            deferred.reject(e);
+            return;
+        }
+        if (loading == null) {
+            _failed(entry, start);
+            deferred.reject(new IllegalStateException(Messages.format("THEN-001001.cache.loader.returned.null", entry.key)));
+            return;
+        }
+        final Load load = new Load(entry, deferred, loading, start);
+        deferred.onCancel(load);
+        loading.onResolve(load)
+                .onReject(load)
+                .onCancel(load);
+    }
+
+    private void _refresh(final Entry<K,V> entry, final long start) {
+        final Promise<? extends V,? extends Throwable,?> loading;
+        try {
+            loading = loader.load(entry.key);
+        } catch (final Throwable e) {
+            _refreshFailed(entry, start);
+            return;
+        }
+        if (loading == null) {
+            _refreshFailed(entry, start);
+            return;
+        }
+        final Load load = new Load(entry, null, loading, start);
+        loading.onResolve(load)
+                .onReject(load)
+                .onCancel(load);
+    }
+
+    private void _loaded(final Entry<K,V> entry, final V value, final long start) {
+        final long now = ticker.read();
+        loadSuccesses.incrementAndGet();
+        loadTime.addAndGet(now - start);
+        entry.expires = _deadline(now, expireAfterWrite);
+        entry.refresh = _deadline(now, refreshAfterWrite);
+        if (weigher != null) {
+            final int weight = weigher.weigh(entry.key, value);
+            synchronized (lock) {
+                switch (entry.segment) {
+                    case PROBATION: probationWeight += weight - entry.weight; break;
+                    case PROTECTED: protectedWeight += weight - entry.weight; break;
+                }
+                entry.weight = weight;
+                _evict();
+            }
+        }
+    }
+
+    private void _failed(final Entry<K,V> entry, final long start) {
+        final long now = ticker.read();
+        loadFailures.incrementAndGet();
+        loadTime.addAndGet(now - start);
+        if (expireAfterFailure == 0) {
+            _remove(entry, false);
+        } else {
+            entry.expires = now + expireAfterFailure;
+        }
+    }
+
+    private void _refreshFailed(final Entry<K,V> entry, final long start) {
+        final long now = ticker.read();
+        loadFailures.incrementAndGet();
+        loadTime.addAndGet(now - start);
+        entry.refresh = _deadline(now, refreshAfterWrite);
+        entry.refreshing = 0;
+    }
+
+    private void _remove(final Entry<K,V> entry, final boolean evicted) {
+        if (!map.remove(entry.key, entry)) {
+            return;
+        }
+        if (evicted) {
+            evictions.incrementAndGet();
+        }
+        synchronized (lock) {
+            _unlink(entry);
+        }
+    }
+
+    private void _link(final Entry<K,V> entry) {
+        if (maximum == UNBOUNDED) {
+            return;
+        }
+        synchronized (lock) {
+            // Don't link an entry that was removed before it could be linked
+            if (map.get(entry.key) != entry) {
+                return;
+            }
+            _push(probation, entry);
+            entry.segment = PROBATION;
+            probationWeight += entry.weight;
+            _evict();
+        }
+    }
+
+    private void _touch(final Entry<K,V> entry) {
+        if (maximum == UNBOUNDED) {
+            return;
+        }
+        synchronized (lock) {
+            switch (entry.segment) {
+                case PROBATION:
+                    _unlink(entry);
+                    _push(protect, entry);
+                    entry.segment = PROTECTED;
+                    protectedWeight += entry.weight;
+                    while (protectedWeight > protectedMaximum && protect.prev != entry) {
+                        final Entry<K,V> demoted = protect.prev;
+                        _unlink(demoted);
+                        _push(probation, demoted);
+                        demoted.segment = PROBATION;
+                        probationWeight += demoted.weight;
+                    }
+                    break;
+                case PROTECTED:
+                    _unlink(entry);
+                    _push(protect, entry);
+                    entry.segment = PROTECTED;
+                    protectedWeight += entry.weight;
+                    break;
+            }
+        }
+    }
+
+    private void _evict() {
+        while (probationWeight + protectedWeight > maximum) {
+            final Entry<K,V> victim = probation.prev != probation
+                    ? probation.prev
+                    : protect.prev;
+            if (victim == protect) {
+                return;
+            }
+            _unlink(victim);
+            if (map.remove(victim.key, victim)) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static <K,V> void _push(final Entry<K,V> head, final Entry<K,V> entry) {
+        entry.prev = head;
+        entry.next = head.next;
+        head.next.prev = entry;
+        head.next = entry;
+    }
+
+    private void _unlink(final Entry<K,V> entry) {
+        switch (entry.segment) {
+            case PROBATION: probationWeight -= entry.weight; break;
+            case PROTECTED: protectedWeight -= entry.weight; break;
+            default: return;
+        }
+        entry.prev.next = entry.next;
+        entry.next.prev = entry.prev;
+        entry.prev = entry.next = null;
+        entry.segment = UNLINKED;
+    }
+
+    /**
+     * <p>Completes the cached promise, or replaces the value of an entry being refreshed.</p>
+     */
+    private final class Load implements OnResolve<V>, OnReject<Throwable>, OnCancel {
+        final Entry<K,V> entry;
+        final Deferred<V,Throwable,Void> deferred;
+        final Promise<?,?,?> loading;
+        final long start;
+
+        private Load(final Entry<K,V> entry, final Deferred<V,Throwable,Void> deferred, final Promise<?,?,?> loading, final long start) {
+            this.entry = entry;
+            this.deferred = deferred;
+            this.loading = loading;
+            this.start = start;
+        }
+
+        @Override
+        public void resolve(final V that) {
+            if (deferred == null) {
+                if (map.get(entry.key) == entry) {
+                    entry.promise = new ResolvedPromise<>(that);
+                    _loaded(entry, that, start);
+                }
+                entry.refreshing = 0;
+                return;
+            }
+            _loaded(entry, that, start);
+            deferred.resolve(that);
+        }
+
+        @Override
+        public void reject(final Throwable that) {
+            if (deferred == null) {
+                _refreshFailed(entry, start);
+                return;
+            }
+            _failed(entry, start);
+            deferred.reject(that);
+        }
+
+        @Override
+        public boolean cancel(final boolean interrupt) {
+            if (deferred == null) {
+                entry.refresh = _deadline(ticker.read(), refreshAfterWrite);
+                entry.refreshing = 0;
+                return true;
+            }
+            _remove(entry, false);
+            loading.cancel(interrupt);
+            return deferred.cancel(interrupt);
+        }
+    }
+
+    private static final class Entry<K,V> {
+        final K key;
+        volatile Promise<V,Throwable,Void> promise;
+        volatile long expires = NEVER;
+        volatile long refresh = NEVER;
+        volatile int refreshing = 0;
+
+        // Guarded by the cache lock
+        Entry<K,V> prev;
+        Entry<K,V> next;
+        byte segment = UNLINKED;
+        int weight;
+
+        private Entry(final K key, final int weight) {
+            this.key = key;
+            this.weight = weight;
+            this.prev = this.next = this;
+        }
+    }
+
+    /**
+     * <p>Loads the value for a key that is not cached.</p>
+     */
+    public interface Loader<K,V> {
+
+        /**
+         * @param key The key to load.
+         * @return A promise for the value of {@code key}.
+         * @throws Exception If the load could not be started, the cached promise will be rejected with it.
+         */
+        Promise<? extends V,? extends Throwable,?> load(final K key) throws Exception;
+    }
+
+    /**
+     * <p>Calculates the weight of a loaded value for a cache bounded with
+     * {@link Builder#maximumWeight(long, Weigher)}. Entries have no weight while they are loading.</p>
+     */
+    public interface Weigher<K,V> {
+
+        /**
+         * @param key The key that was loaded.
+         * @param value The value that was loaded.
+         * @return The weight of the entry, which must not be negative.
+         */
+        int weigh(final K key, final V value);
+    }
+
+    /**
+     * <p>Counts recorded by a {@link PromiseCache}. Load time is measured in nanoseconds and includes both
+     * successful and failed loads and refreshes.</p>
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long loadSuccesses;
+        private final long loadFailures;
+        private final long loadTime;
+        private final long evictions;
+
+        private Stats(final long hits, final long misses, final long loadSuccesses, final long loadFailures, final long loadTime, final long evictions) {
+            this.hits = hits;
+            this.misses = misses;
+            this.loadSuccesses = loadSuccesses;
+            this.loadFailures = loadFailures;
+            this.loadTime = loadTime;
+            this.evictions = evictions;
+        }
+
+        public long getHitCount() {
+            return hits;
+        }
+
+        public long getMissCount() {
+            return misses;
+        }
+
+        public double getHitRate() {
+            final long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+
+        public long getLoadSuccessCount() {
+            return loadSuccesses;
+        }
+
+        public long getLoadFailureCount() {
+            return loadFailures;
+        }
+
+        public long getTotalLoadTime() {
+            return loadTime;
+        }
+
+        public double getAverageLoadTime() {
+            final long loads = loadSuccesses + loadFailures;
+            return loads == 0 ? 0.0 : (double) loadTime / loads;
+        }
+
+        public long getEvictionCount() {
+            return evictions;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{hits=" + hits
+                    + ", misses=" + misses
+                    + ", loadSuccesses=" + loadSuccesses
+                    + ", loadFailures=" + loadFailures
+                    + ", loadTime=" + loadTime
+                    + ", evictions=" + evictions
+                    + "}";
+        }
+    }
+
+    /**
+     * <p>Configures a {@link PromiseCache}. A cache is unbounded and entries never expire unless set here.</p>
+     */
+    public static final class Builder<K,V> {
+        private long maximum = UNBOUNDED;
+        private Weigher<? super K,? super V> weigher;
+        private long expireAfterWrite = 0;
+        private long refreshAfterWrite = 0;
+        private long expireAfterFailure = 0;
+        private Ticker ticker = Ticker.SYSTEM;
+
+        /**
+         * @param size The maximum number of entries.
+         * @return This builder.
+         */
+        public Builder<K,V> maximumSize(final long size) {
+            this.maximum = _notNegative(size, "size");
+            this.weigher = null;
+            return this;
+        }
+
+        /**
+         * @param weight The maximum total weight of the entries.
+         * @param weigher Calculates the weight of each entry once it is loaded.
+         * @return This builder.
+         */
+        public Builder<K,V> maximumWeight(final long weight, final Weigher<? super K,? super V> weigher) {
+            if (weigher == null) {
+                throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "weigher"));
+            }
+            this.maximum = _notNegative(weight, "weight");
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * @param duration How long after being loaded an entry is removed, {@code 0} to keep it.
+         * @param unit The unit of {@code duration}.
+         * @return This builder.
+         */
+        public Builder<K,V> expireAfterWrite(final long duration, final TimeUnit unit) {
+            this.expireAfterWrite = _nanos(duration, unit);
+            return this;
+        }
+
+        /**
+         * @param duration How long after being loaded the next read of an entry reloads it, {@code 0} to
+         *                 never reload it.
+         * @param unit The unit of {@code duration}.
+         * @return This builder.
+         */
+        public Builder<K,V> refreshAfterWrite(final long duration, final TimeUnit unit) {
+            this.refreshAfterWrite = _nanos(duration, unit);
+            return this;
+        }
+
+        /**
+         * @param duration How long a rejected load is kept, {@code 0} to remove it as soon as it is rejected.
+         * @param unit The unit of {@code duration}.
+         * @return This builder.
+         */
+        public Builder<K,V> expireAfterFailure(final long duration, final TimeUnit unit) {
+            this.expireAfterFailure = _nanos(duration, unit);
+            return this;
+        }
+
+        Builder<K,V> ticker(final Ticker ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        /**
+         * @param loader Loads values that are not cached.
+         * @return A new cache.
+         */
+        public PromiseCache<K,V> build(final Loader<K,V> loader) {
+            if (loader == null) {
+                throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "loader"));
+            }
+            return new PromiseCache<>(this, loader);
+        }
+
+        private static long _notNegative(final long value, final String name) {
+            if (value < 0) {
+                throw new IllegalArgumentException(Messages.format("THEN-001000.cache.argument.negative", name));
+            }
+            return value;
+        }
+
+        private static long _nanos(final long duration, final TimeUnit unit) {
+            if (unit == null) {
+                throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "unit"));
+            }
+            return unit.toNanos(_notNegative(duration, "duration"));
+        }
+    }
+}
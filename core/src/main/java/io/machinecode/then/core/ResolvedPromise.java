@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.machinecode.then.api.Deferred.RESOLVED;
+
+/**
+ * <p>An immutable promise in the {@link io.machinecode.then.api.Deferred#RESOLVED} state.</p>
+ *
+ * <p>The static factories return shared instances for {@code null}, booleans and empty collections.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public final class ResolvedPromise<T,F,P> extends CompletedPromise<T,F,P> {
+
+    private static final ResolvedPromise<?,?,?> NULL = new ResolvedPromise<>(null);
+    private static final ResolvedPromise<?,?,?> TRUE = new ResolvedPromise<>(Boolean.TRUE);
+    private static final ResolvedPromise<?,?,?> FALSE = new ResolvedPromise<>(Boolean.FALSE);
+    private static final ResolvedPromise<?,?,?> EMPTY_LIST = new ResolvedPromise<>(Collections.emptyList());
+    private static final ResolvedPromise<?,?,?> EMPTY_SET = new ResolvedPromise<>(Collections.emptySet());
+    private static final ResolvedPromise<?,?,?> EMPTY_MAP = new ResolvedPromise<>(Collections.emptyMap());
+
+    public ResolvedPromise(final T value) {
+        super(RESOLVED, value, null, false);
+    }
+
+    /**
+     * @param value The value to resolve with.
+     * @return A shared instance if {@code value} is {@code null} or a {@link Boolean}, otherwise a new instance.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T,F,P> ResolvedPromise<T,F,P> of(final T value) {
+        if (value == null) {
+            return (ResolvedPromise<T,F,P>) NULL;
+        }
+        if (value instanceof Boolean) {
+            return (ResolvedPromise<T,F,P>) ((Boolean) value ? TRUE : FALSE);
+        }
+        return new ResolvedPromise<>(value);
+    }
+
+    /**
+     * @return A shared promise resolved with {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T,F,P> ResolvedPromise<T,F,P> ofNull() {
+        return (ResolvedPromise<T,F,P>) NULL;
+    }
+
+    /**
+     * @param value The value to resolve with.
+     * @return A shared promise resolved with {@code value}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <F,P> ResolvedPromise<Boolean,F,P> of(final boolean value) {
+        return (ResolvedPromise<Boolean,F,P>) (value ? TRUE : FALSE);
+    }
+
+    /**
+     * @return A shared promise resolved with {@link Collections#emptyList()}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T,F,P> ResolvedPromise<List<T>,F,P> emptyList() {
+        return (ResolvedPromise<List<T>,F,P>) EMPTY_LIST;
+    }
+
+    /**
+     * @return A shared promise resolved with {@link Collections#emptySet()}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T,F,P> ResolvedPromise<Set<T>,F,P> emptySet() {
+        return (ResolvedPromise<Set<T>,F,P>) EMPTY_SET;
+    }
+
+    /**
+     * @return A shared promise resolved with {@link Collections#emptyMap()}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K,V,F,P> ResolvedPromise<Map<K,V>,F,P> emptyMap() {
+        return (ResolvedPromise<Map<K,V>,F,P>) EMPTY_MAP;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.OnCancel;
+import io.machinecode.then.api.OnComplete;
+import io.machinecode.then.api.Promise;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * <p>Runs a {@link Callable} for a key on an {@link Executor}, sharing the call with every caller that asks
+ * for the same key while it is running. The key is released as soon as the call completes so results are
+ * never cached, a caller arriving after that starts a new call.</p>
+ *
+ * <p>Each caller is given its own promise following the shared call. Cancelling it only detaches that caller,
+ * the shared call is cancelled once every caller waiting on it has cancelled. A call that is cancelled before
+ * it has started is not run, one that is already running is not interrupted but its result is discarded.</p>
+ *
+ * <p>Finding a call in flight is a read of a {@link ConcurrentHashMap} and a CAS on the call's count of
+ * waiters, the listeners of each caller are added to a {@link LockFreeDeferred} so callers joining a popular
+ * key don't contend on a lock.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public final class SingleFlight<K,V> {
+
+    // Set once the last waiter has cancelled, no further waiters can join
+    private static final int ABANDONED = -1;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<SingleFlight.Flight> WAITERS
+            = AtomicIntegerFieldUpdater.newUpdater(SingleFlight.Flight.class, "waiters");
+
+    private final ConcurrentMap<K,Flight> flights = new ConcurrentHashMap<>();
+    private final Executor executor;
+
+    /**
+     * @param executor Runs each call.
+     */
+    public SingleFlight(final Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "executor"));
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * @param key The key identifying the call.
+     * @param call The call to run if there is none in flight for {@code key}.
+     * @return A promise for this caller that will complete with the call in flight for {@code key}.
+     */
+    public Promise<V,Throwable,Void> execute(final K key, final Callable<? extends V> call) {
+        if (key == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "key"));
+        }
+        if (call == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "call"));
+        }
+        for (;;) {
+            Flight flight = flights.get(key);
+            if (flight == null) {
+                final Flight created = new Flight(key, call);
+                flight = flights.putIfAbsent(key, created);
+                if (flight == null) {
+                    final Promise<V,Throwable,Void> view = created.join();
+                    try {
+                        executor.execute(created);
+                    } catch (final RuntimeException e) {
+                        created.shared.reject(e);
+                    }
+                    return view;
+                }
+            }
+            final Promise<V,Throwable,Void> view = flight.join();
+            if (view != null) {
+                return view;
+            }
+            // Every waiter cancelled before this caller could join
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return The number of keys with a call in flight.
+     */
+    public int size() {
+        return flights.size();
+    }
+
+    private final class Flight implements Runnable, OnComplete, OnCancel {
+        final K key;
+        final Callable<? extends V> call;
+        final LockFreeDeferred<V,Throwable,Void> shared = new LockFreeDeferred<>();
+        volatile int waiters = 0;
+
+        private Flight(final K key, final Callable<? extends V> call) {
+            this.key = key;
+            this.call = call;
+            shared.onComplete(this);
+        }
+
+        /**
+         * @return A promise following the shared call or {@code null} if it has been abandoned.
+         */
+        Promise<V,Throwable,Void> join() {
+            for (;;) {
+                final int waiters = this.waiters;
+                if (waiters == ABANDONED) {
+                    return null;
+                }
+                if (WAITERS.compareAndSet(this, waiters, waiters + 1)) {
+                    break;
+                }
+            }
+            final DeferredImpl<V,Throwable,Void> view = new DeferredImpl<>();
+            view.onCancel(this);
+            shared.onResolve(view)
+                    .onReject(view)
+                    .onCancel(view);
+            return view;
+        }
+
+        @Override
+        public void run() {
+            if (shared.isDone()) {
+                return;
+            }
+            final V that;
+            try {
+                that = call.call();
+            } catch (final Throwable e) {
+                shared.reject(e);
+                return;
+            }
+            shared.resolve(that);
+        }
+
+        @Override
+        public void complete(final int state) {
+            flights.remove(key, this);
+        }
+
+        /**
+         * <p>Called when a waiter cancels its promise.</p>
+         */
+        @Override
+        public boolean cancel(final boolean interrupt) {
+            for (;;) {
+                final int waiters = this.waiters;
+                if (waiters <= 0) {
+                    return true;
+                }
+                final int next = waiters == 1 ? ABANDONED : waiters - 1;
+                if (WAITERS.compareAndSet(this, waiters, next)) {
+                    if (next == ABANDONED) {
+                        flights.remove(key, this);
+                        shared.cancel(interrupt);
+                    }
+                    return true;
+                }
+            }
+        }
+    }
+}
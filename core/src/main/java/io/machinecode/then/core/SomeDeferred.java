@@ -28,20 +28,34 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <p>A promise that will be resolved with the values of each of the resolved promises
  * passed in once all the promises are complete. If none complete it will be rejected.</p>
  *
+ * <p>The values are in the same order as the promises that produced them were passed in, regardless of the
+ * order they are resolved in.</p>
+ *
  * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
  * @since 1.0
  */
 public class SomeDeferred<T,F,P> extends DeferredImpl<List<T>,F,P> {
 
+    private final Object[] values;
+    private final boolean[] resolved;
+    private final AtomicInteger remaining;
+
     public SomeDeferred(final Collection<? extends Promise<T,?,?>> promises) {
         if (promises.isEmpty()) {
+            this.values = null;
+            this.resolved = null;
+            this.remaining = null;
             reject(null);
             return;
         }
-        final Callback callback = new Callback(promises.size());
+        this.values = new Object[promises.size()];
+        this.resolved = new boolean[values.length];
+        this.remaining = new AtomicInteger(values.length);
+        int index = 0;
         for (final Promise<T,?,?> promise : promises) {
-            promise.onResolve(callback)
-                    .onComplete(callback);
+            final Slot slot = new Slot(index++);
+            promise.onResolve(slot)
+                    .onComplete(slot);
         }
     }
 
@@ -49,30 +63,37 @@ public class SomeDeferred<T,F,P> extends DeferredImpl<List<T>,F,P> {
         this(Arrays.asList(promises));
     }
 
-    private class Callback implements OnResolve<T>, OnComplete {
-        final AtomicInteger count = new AtomicInteger(0);
-        final int size;
-        final List<T> ret;
+    private class Slot implements OnResolve<T>, OnComplete {
+        final int index;
 
-        private Callback(final int size) {
-            this.size = size;
-            this.ret = new ArrayList<>(size);
+        private Slot(final int index) {
+            this.index = index;
         }
 
         @Override
         public void resolve(final T that) {
-            ret.add(that);
+            // Published to the last thread to complete by the decrement
+            values[index] = that;
+            resolved[index] = true;
         }
 
         @Override
+        @SuppressWarnings("unchecked")
         public void complete(final int state) {
-            if (count.incrementAndGet() == size) {
-                if (ret.isEmpty()) {
-                    reject(null);
-                } else {
-                    SomeDeferred.this.resolve(ret);
+            if (remaining.decrementAndGet() != 0) {
+                return;
+            }
+            final List<T> ret = new ArrayList<>(values.length);
+            for (int i = 0; i < values.length; ++i) {
+                if (resolved[i]) {
+                    ret.add((T) values[i]);
                 }
             }
+            if (ret.isEmpty()) {
+                reject(null);
+            } else {
+                SomeDeferred.this.resolve(ret);
+            }
         }
     }
 }
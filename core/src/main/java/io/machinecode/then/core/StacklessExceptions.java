@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.ListenerException;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>Controls the exceptions the deferreds in this package create when a listener fails or a get observes a
+ * promise that was not resolved.</p>
+ *
+ * <p>By default every one of these exceptions is a new instance with a stack trace. When stackless exceptions
+ * are enabled they are created without filling in a stack trace. They are still created for each call as a
+ * shared instance could have exceptions added to it by {@link Throwable#addSuppressed(Throwable)} and neither
+ * {@link CancellationException} nor {@link TimeoutException} can be constructed with suppression disabled.</p>
+ *
+ * <p>Filling in a stack trace is usually the most expensive part of throwing an exception so this is worth
+ * enabling when a large fraction of gets end in cancellation or timeout, e.g. when shedding load. The cost
+ * is that the exceptions no longer show where they were thrown.</p>
+ *
+ * <p>Stackless exceptions can be enabled by setting the system property {@code io.machinecode.then.stackless}
+ * to {@code true} or by calling {@link #setEnabled(boolean)}.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public final class StacklessExceptions {
+
+    private static volatile boolean enabled = Boolean.getBoolean("io.machinecode.then.stackless");
+
+    private StacklessExceptions(){}
+
+    /**
+     * @return {@code true} if exceptions are created without stack traces.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param enabled {@code true} if exceptions should be created without stack traces.
+     */
+    public static void setEnabled(final boolean enabled) {
+        StacklessExceptions.enabled = enabled;
+    }
+
+    /**
+     * @param key The message id.
+     * @param cause The exception the listener threw.
+     * @return An exception for a failed listener.
+     */
+    static ListenerException listener(final String key, final Throwable cause) {
+        return enabled
+                ? new StacklessListenerException(Messages.format(key), cause)
+                : new ListenerException(Messages.format(key), cause);
+    }
+
+    /**
+     * @return An exception for a get on a cancelled promise.
+     */
+    static CancellationException cancelled() {
+        return enabled
+                ? new StacklessCancellationException(Messages.format("THEN-000202.promise.cancelled"))
+                : new CancellationException(Messages.format("THEN-000202.promise.cancelled"));
+    }
+
+    /**
+     * @param message The message.
+     * @param cause The failure the promise was rejected with.
+     * @return An exception for a get on a rejected promise.
+     */
+    static ExecutionException rejected(final String message, final Throwable cause) {
+        return enabled
+                ? new StacklessExecutionException(message, cause)
+                : new ExecutionException(message, cause);
+    }
+
+    /**
+     * @param message The message.
+     * @return An exception for a get that timed out.
+     */
+    static TimeoutException timeout(final String message) {
+        return enabled
+                ? new StacklessTimeoutException(message)
+                : new TimeoutException(message);
+    }
+
+    private static final class StacklessListenerException extends ListenerException {
+        private static final long serialVersionUID = 1L;
+
+        private StacklessListenerException(final String message, final Throwable cause) {
+            super(message, cause);
+        }
+
+        @Override
+        public Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final class StacklessExecutionException extends ExecutionException {
+        private static final long serialVersionUID = 1L;
+
+        private StacklessExecutionException(final String message, final Throwable cause) {
+            super(message, cause);
+        }
+
+        @Override
+        public Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final class StacklessCancellationException extends CancellationException {
+        private static final long serialVersionUID = 1L;
+
+        private StacklessCancellationException(final String message) {
+            super(message);
+        }
+
+        @Override
+        public Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final class StacklessTimeoutException extends TimeoutException {
+        private static final long serialVersionUID = 1L;
+
+        private StacklessTimeoutException(final String message) {
+            super(message);
+        }
+
+        @Override
+        public Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
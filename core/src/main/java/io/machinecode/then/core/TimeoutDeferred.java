@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.ListenerException;
+import io.machinecode.then.api.Promise;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A promise that follows another promise until a deadline passes, after which it is either rejected or
+ * resolved with a fallback value. The original promise is not cancelled when the deadline passes.</p>
+ *
+ * <p>The deadline is tracked by a {@link HashedWheelTimer} and the timer entry is cancelled as soon as this
+ * promise reaches a terminal state, so a promise that completes normally costs the timer nothing more
+ * than an insertion and a removal.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class TimeoutDeferred<T,F,P> extends DeferredImpl<T,F,P> {
+
+    protected final boolean fallback;
+    protected final T fallbackValue;
+    protected final F timeoutFailure;
+    private volatile HashedWheelTimer.Timeout timeout;
+
+    /**
+     * <p>Called by the timer when the deadline passes.</p>
+     */
+    private final Runnable expire = new Runnable() {
+        @Override
+        public void run() {
+            if (fallback) {
+                resolve(fallbackValue);
+            } else {
+                reject(timeoutFailure);
+            }
+        }
+    };
+
+    protected TimeoutDeferred(final boolean fallback, final T fallbackValue, final F timeoutFailure) {
+        this.fallback = fallback;
+        this.fallbackValue = fallbackValue;
+        this.timeoutFailure = timeoutFailure;
+    }
+
+    /**
+     * @param source The promise to follow.
+     * @param timeout How long to wait for {@code source}.
+     * @param unit The unit of {@code timeout}.
+     * @param failure The value to reject with if {@code source} is not done in time.
+     * @param timer The timer to track the deadline.
+     * @return A promise that will be rejected with {@code failure} if {@code source} is not done in time.
+     */
+    public static <T,F,P> Promise<T,F,P> orTimeout(final Promise<T,F,P> source, final long timeout, final TimeUnit unit, final F failure, final HashedWheelTimer timer) {
+        return new TimeoutDeferred<T,F,P>(false, null, failure).follow(source, timeout, unit, timer);
+    }
+
+    /**
+     * @param source The promise to follow.
+     * @param value The value to resolve with if {@code source} is not done in time.
+     * @param timeout How long to wait for {@code source}.
+     * @param unit The unit of {@code timeout}.
+     * @param timer The timer to track the deadline.
+     * @return A promise that will be resolved with {@code value} if {@code source} is not done in time.
+     */
+    public static <T,F,P> Promise<T,F,P> completeOnTimeout(final Promise<T,F,P> source, final T value, final long timeout, final TimeUnit unit, final HashedWheelTimer timer) {
+        return new TimeoutDeferred<T,F,P>(true, value, null).follow(source, timeout, unit, timer);
+    }
+
+    protected TimeoutDeferred<T,F,P> follow(final Promise<T,F,P> source, final long timeout, final TimeUnit unit, final HashedWheelTimer timer) {
+        if (source == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "source"));
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "unit"));
+        }
+        if (timer == null) {
+            throw new IllegalArgumentException(Messages.format("THEN-000400.promise.argument.required", "timer"));
+        }
+        source.onResolve(this)
+                .onReject(this)
+                .onProgress(this)
+                .onCancel(this);
+        if (isDone()) {
+            return this;
+        }
+        final HashedWheelTimer.Timeout entry = this.timeout = timer.schedule(expire, timeout, unit);
+        // Completed between the check and the write so _complete may not have seen the entry
+        if (isDone()) {
+            entry.cancel();
+        }
+        return this;
+    }
+
+    @Override
+    protected ListenerException _complete(final byte state, final boolean interrupt) {
+        final HashedWheelTimer.Timeout timeout = this.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+            this.timeout = null;
+        }
+        return super._complete(state, interrupt);
+    }
+}
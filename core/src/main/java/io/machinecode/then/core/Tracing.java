@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * <p>Whether the deferreds in this package trace their terminal and progress methods.</p>
+ *
+ * <p>Tracing is disabled when core is built with the {@code no-trace} profile or when the system property
+ * {@code io.machinecode.then.trace} is {@code false}. As the flag is a constant once this class is loaded
+ * the JIT removes the trace calls entirely, otherwise they are only made when the logger has trace
+ * enabled.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+final class Tracing {
+
+    static final boolean ENABLED = _enabled();
+
+    private Tracing(){}
+
+    private static boolean _enabled() {
+        if ("false".equals(System.getProperty("io.machinecode.then.trace"))) {
+            return false;
+        }
+        final Properties build = new Properties();
+        try (final InputStream in = Tracing.class.getResourceAsStream("then-build.properties")) {
+            if (in != null) {
+                build.load(in);
+            }
+        } catch (final Exception e) {
+            return true;
+        }
+        return !"false".equals(build.getProperty("trace"));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.ListenerException;
+
+import java.util.ArrayDeque;
+
+/**
+ * <p>Controls how the deferreds in this package run their listeners when a terminal method is called from
+ * inside another deferred's listener.</p>
+ *
+ * <p>By default listeners are run directly by the terminal method, so resolving the head of a chain of
+ * {@link io.machinecode.then.api.Promise#then(io.machinecode.then.api.Resolve)} stages uses a stack frame
+ * for every stage. When trampolining is enabled the first terminal method called on a thread runs its listeners
+ * and any terminal method they call only queues its listeners on a thread local queue. The first call then runs
+ * the queued listeners one after another, so the stack depth stays the same however long the chain is.</p>
+ *
+ * <p>While trampolining a nested terminal method returns before its listeners have run and any
+ * {@link ListenerException} they cause is thrown from the outermost terminal method instead. Only the listeners
+ * are queued, threads blocked in {@code get} are woken by the nested terminal method itself.</p>
+ *
+ * <p>Trampolining can be enabled by setting the system property {@code io.machinecode.then.trampoline} to
+ * {@code true} or by calling {@link #setEnabled(boolean)}.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public final class Trampoline {
+
+    private static volatile boolean enabled = Boolean.getBoolean("io.machinecode.then.trampoline");
+
+    private static final ThreadLocal<Trampoline> CURRENT = new ThreadLocal<Trampoline>() {
+        @Override
+        protected Trampoline initialValue() {
+            return new Trampoline();
+        }
+    };
+
+    private final ArrayDeque<Task> queue = new ArrayDeque<>();
+    private boolean running = false;
+
+    private Trampoline(){}
+
+    /**
+     * @return {@code true} if nested completions will be queued rather than run directly.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param enabled {@code true} if nested completions should be queued rather than run directly.
+     */
+    public static void setEnabled(final boolean enabled) {
+        Trampoline.enabled = enabled;
+    }
+
+    /**
+     * <p>Run the task if no other task is running on this thread, otherwise queue it to be run once the
+     * current task finishes.</p>
+     *
+     * @param task The listeners to run.
+     * @return The exception from this task and any it caused to be queued, or {@code null} if they
+     *         either did not throw or the task was queued.
+     */
+    static ListenerException run(final Task task) {
+        final Trampoline trampoline = CURRENT.get();
+        if (trampoline.running) {
+            trampoline.queue.add(task);
+            return null;
+        }
+        trampoline.running = true;
+        ListenerException exception = null;
+        try {
+            Task next = task;
+            do {
+                final ListenerException e = next.run();
+                if (e == null) {
+                    continue;
+                }
+                if (exception == null) {
+                    exception = e;
+                } else {
+                    exception.addSuppressed(e);
+                }
+            } while ((next = trampoline.queue.poll()) != null);
+        } finally {
+            trampoline.running = false;
+            trampoline.queue.clear();
+        }
+        return exception;
+    }
+
+    /**
+     * <p>The listeners of a single terminal method call.</p>
+     */
+    interface Task {
+
+        /**
+         * @return An exception if any listener threw one, otherwise {@code null}.
+         */
+        ListenerException run();
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Promise;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class AdaptiveLimiterTest extends UnitTest {
+
+    @Test
+    public void queueTest() throws Exception {
+        final ManualTicker ticker = new ManualTicker();
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(2, 2, 2, 2, ticker);
+        final Backend backend = new Backend();
+        final Promise<Integer,Throwable,Void> a = limiter.execute(backend);
+        final Promise<Integer,Throwable,Void> b = limiter.execute(backend);
+        final Promise<Integer,Throwable,Void> c = limiter.execute(backend);
+        final Promise<Integer,Throwable,Void> d = limiter.execute(backend);
+        final Promise<Integer,Throwable,Void> e = limiter.execute(backend);
+        assertEquals(2, backend.pending.size());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(2, limiter.getQueued());
+        try {
+            e.get(0, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (final ExecutionException x) {
+            assertTrue(x.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(1, limiter.getRejected());
+
+        // A queued call that is cancelled is never started
+        assertTrue(c.cancel(true));
+        ticker.advance(100);
+        backend.pending.get(0).resolve(0);
+        assertEquals(0, (int) a.get(0, TimeUnit.MILLISECONDS));
+        assertEquals(100, limiter.getRtt());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+        assertEquals(3, backend.pending.size());
+        backend.pending.get(1).resolve(1);
+        backend.pending.get(2).resolve(2);
+        assertEquals(1, (int) b.get(0, TimeUnit.MILLISECONDS));
+        assertEquals(2, (int) d.get(0, TimeUnit.MILLISECONDS));
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void growTest() throws Exception {
+        final ManualTicker ticker = new ManualTicker();
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 100, 1000, ticker);
+        final Backend backend = new Backend();
+        for (int i = 0; i < 1000; ++i) {
+            limiter.execute(backend);
+        }
+        int last = limiter.getLimit();
+        for (int i = 0; i < 10; ++i) {
+            ticker.advance(TimeUnit.MILLISECONDS.toNanos(10));
+            backend.resolveAll();
+            assertTrue(limiter.getLimit() >= last);
+            last = limiter.getLimit();
+        }
+        assertTrue(last > 10);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), limiter.getLongRtt());
+    }
+
+    @Test
+    public void shrinkTest() throws Exception {
+        final ManualTicker ticker = new ManualTicker();
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(50, 1, 100, 10000, ticker);
+        final Backend backend = new Backend();
+        for (int i = 0; i < 10000; ++i) {
+            limiter.execute(backend);
+        }
+        ticker.advance(TimeUnit.MILLISECONDS.toNanos(10));
+        backend.resolveAll();
+        final int before = limiter.getLimit();
+        // The backend slows down as it is given more work
+        ticker.advance(TimeUnit.MILLISECONDS.toNanos(50));
+        backend.resolveAll();
+        final int after = limiter.getLimit();
+        assertTrue(after < before);
+        assertEquals(after, backend.pending.size());
+        // Until the average catches up with the new latency
+        for (int i = 0; i < 5; ++i) {
+            ticker.advance(TimeUnit.MILLISECONDS.toNanos(50));
+            backend.resolveAll();
+        }
+        assertTrue(limiter.getLimit() > after);
+    }
+
+    @Test
+    public void fastFailureTest() throws Exception {
+        final ManualTicker ticker = new ManualTicker();
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 100, 1000, ticker);
+        final Backend backend = new Backend();
+        for (int i = 0; i < 1000; ++i) {
+            limiter.execute(backend);
+        }
+        for (int i = 0; i < 10; ++i) {
+            ticker.advance(TimeUnit.MILLISECONDS.toNanos(10));
+            backend.resolveAll();
+        }
+        final int before = limiter.getLimit();
+        final long rtt = limiter.getLongRtt();
+        // Failures that return immediately are not samples of the backend's latency
+        final Exception failure = new Exception();
+        for (int i = 0; i < 200; ++i) {
+            limiter.execute(new Callable<Promise<Integer,Throwable,Void>>() {
+                @Override
+                public Promise<Integer,Throwable,Void> call() throws Exception {
+                    throw failure;
+                }
+            });
+            final DeferredImpl<Integer,Throwable,Void> rejected = new DeferredImpl<>();
+            rejected.reject(failure);
+            limiter.execute(new Callable<Promise<Integer,Throwable,Void>>() {
+                @Override
+                public Promise<Integer,Throwable,Void> call() throws Exception {
+                    return rejected;
+                }
+            });
+        }
+        assertEquals(rtt, limiter.getLongRtt());
+        for (int i = 0; i < 10; ++i) {
+            ticker.advance(TimeUnit.MILLISECONDS.toNanos(10));
+            backend.resolveAll();
+        }
+        assertTrue(limiter.getLimit() >= before);
+    }
+
+    @Test
+    public void idleTest() throws Exception {
+        final ManualTicker ticker = new ManualTicker();
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 100, 0, ticker);
+        final Backend backend = new Backend();
+        for (int i = 0; i < 20; ++i) {
+            limiter.execute(backend);
+            ticker.advance(TimeUnit.MILLISECONDS.toNanos(10));
+            backend.resolveAll();
+        }
+        // Fewer than half the limit was ever in use
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        final ManualTicker ticker = new ManualTicker();
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 0, ticker);
+        final Backend backend = new Backend();
+        final Promise<Integer,Throwable,Void> a = limiter.execute(backend);
+        ticker.advance(100);
+        assertTrue(a.cancel(true));
+        assertTrue(backend.pending.get(0).isCancelled());
+        assertEquals(0, limiter.getInFlight());
+        // Not sampled
+        assertEquals(0, limiter.getRtt());
+        limiter.execute(backend);
+        assertEquals(2, backend.pending.size());
+    }
+
+    @Test
+    public void cancelQueuedTest() throws Exception {
+        final ManualTicker ticker = new ManualTicker();
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 1, ticker);
+        final Backend backend = new Backend();
+        limiter.execute(backend);
+        final Promise<Integer,Throwable,Void> b = limiter.execute(backend);
+        assertTrue(limiter.execute(backend).isRejected());
+        assertEquals(1, limiter.getQueued());
+        // The cancelled call gives up its place in the queue
+        assertTrue(b.cancel(true));
+        assertEquals(0, limiter.getQueued());
+        final Promise<Integer,Throwable,Void> d = limiter.execute(backend);
+        assertFalse(d.isDone());
+        assertEquals(1, limiter.getQueued());
+        backend.resolveAll();
+        assertEquals(1, backend.pending.size());
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test
+    public void failTest() throws Exception {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 0, new ManualTicker());
+        final Exception failure = new Exception();
+        final Promise<Integer,Throwable,Void> a = limiter.execute(new Callable<Promise<Integer,Throwable,Void>>() {
+            @Override
+            public Promise<Integer,Throwable,Void> call() throws Exception {
+                throw failure;
+            }
+        });
+        try {
+            a.get(0, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        final Promise<Integer,Throwable,Void> b = limiter.execute(new Callable<Promise<Integer,Throwable,Void>>() {
+            @Override
+            public Promise<Integer,Throwable,Void> call() throws Exception {
+                return null;
+            }
+        });
+        assertTrue(b.isRejected());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void argumentsTest() throws Exception {
+        try {
+            new AdaptiveLimiter(0, 10, 0);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+        try {
+            new AdaptiveLimiter(10, 1, 5, 0);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+        try {
+            new AdaptiveLimiter(1, 10, 0).execute(null);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+    }
+
+    private static final class Backend implements Callable<Promise<Integer,Throwable,Void>> {
+        final List<DeferredImpl<Integer,Throwable,Void>> pending = new ArrayList<>();
+
+        @Override
+        public Promise<Integer,Throwable,Void> call() throws Exception {
+            final DeferredImpl<Integer,Throwable,Void> that = new DeferredImpl<>();
+            pending.add(that);
+            return that;
+        }
+
+        void resolveAll() {
+            final List<DeferredImpl<Integer,Throwable,Void>> started = new ArrayList<>(pending);
+            pending.clear();
+            for (final DeferredImpl<Integer,Throwable,Void> that : started) {
+                that.resolve(0);
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ import org.junit.Test;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -189,4 +190,55 @@ public class AllDeferredTest  extends Assert {
         assertEquals(1, res.count);
         assertTrue(pres.isResolved());
     }
+
+    @Test
+    public void resolveOrderTest() throws Exception {
+        final DeferredImpl<Object,Throwable,Void>[] ares = new DeferredImpl[] {
+                new DeferredImpl<Object,Throwable,Void>(),
+                new DeferredImpl<Object,Throwable,Void>(),
+                new DeferredImpl<Object,Throwable,Void>()
+        };
+        final Promise<List<Object>,Throwable,Void> pres = new AllDeferred<>(ares);
+        final Object[] results = new Object[] { new Object(), null, new Object() };
+        ares[2].resolve(results[2]);
+        ares[0].resolve(results[0]);
+        ares[1].resolve(results[1]);
+        assertTrue(pres.isResolved());
+        final List<Object> that = pres.get();
+        assertEquals(results.length, that.size());
+        for (int i = 0; i < results.length; ++i) {
+            assertSame(results[i], that.get(i));
+        }
+    }
+
+    @Test
+    public void concurrentResolveTest() throws Exception {
+        final int size = 10000;
+        final int threads = 4;
+        final DeferredImpl<Object,Throwable,Void>[] ares = new DeferredImpl[size];
+        for (int i = 0; i < size; ++i) {
+            ares[i] = new DeferredImpl<>();
+        }
+        final Promise<List<Object>,Throwable,Void> pres = new AllDeferred<>(ares);
+        final CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; ++t) {
+            final int offset = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = offset; i < size; i += threads) {
+                        ares[i].resolve(i);
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        assertTrue(pres.isResolved());
+        final List<Object> that = pres.get();
+        assertEquals(size, that.size());
+        for (int i = 0; i < size; ++i) {
+            assertEquals(i, that.get(i));
+        }
+    }
 }
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Promise;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class BatchLoaderTest extends UnitTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            command.run();
+        }
+    };
+
+    @Test
+    public void dispatchTest() throws Exception {
+        final Upper bulk = new Upper();
+        final BatchLoader<String,String> loader = new BatchLoader<>(bulk, DIRECT, 100);
+        final Promise<String,Throwable,Void> a = loader.load("a");
+        final Promise<String,Throwable,Void> b = loader.load("b");
+        final Promise<String,Throwable,Void> again = loader.load("a");
+        assertSame(a, again);
+        assertFalse(a.isDone());
+        assertEquals(0, bulk.batches.size());
+        loader.dispatch();
+        assertEquals(1, bulk.batches.size());
+        assertEquals(2, bulk.batches.get(0).size());
+        assertEquals("A", a.get(0, MILLISECONDS));
+        assertEquals("B", b.get(0, MILLISECONDS));
+        // Nothing to dispatch
+        loader.dispatch();
+        assertEquals(1, bulk.batches.size());
+        // A new batch starts after a dispatch
+        assertNotSame(a, loader.load("a"));
+    }
+
+    @Test
+    public void maxBatchSizeTest() throws Exception {
+        final Upper bulk = new Upper();
+        final BatchLoader<String,String> loader = new BatchLoader<>(bulk, DIRECT, 2);
+        final Promise<String,Throwable,Void> a = loader.load("a");
+        loader.load("a");
+        assertEquals(0, bulk.batches.size());
+        final Promise<String,Throwable,Void> b = loader.load("b");
+        assertEquals(1, bulk.batches.size());
+        assertEquals("A", a.get(0, MILLISECONDS));
+        assertEquals("B", b.get(0, MILLISECONDS));
+        final Promise<String,Throwable,Void> c = loader.load("c");
+        assertFalse(c.isDone());
+    }
+
+    @Test
+    public void windowTest() throws Exception {
+        final Upper bulk = new Upper();
+        try (final HashedWheelTimer timer = new HashedWheelTimer(1, MILLISECONDS, 8, Executors.defaultThreadFactory())) {
+            final BatchLoader<String,String> loader = new BatchLoader<>(bulk, DIRECT, 100, 20, MILLISECONDS, timer);
+            final Promise<String,Throwable,Void> a = loader.load("a");
+            final Promise<String,Throwable,Void> b = loader.load("b");
+            assertEquals("A", a.get(1, TimeUnit.SECONDS));
+            assertEquals("B", b.get(1, TimeUnit.SECONDS));
+            assertEquals(1, bulk.batches.size());
+
+            // The window of a batch dispatched early does not dispatch the next batch
+            final Promise<String,Throwable,Void> c = loader.load("c");
+            loader.dispatch();
+            assertTrue(c.isResolved());
+            final Promise<String,Throwable,Void> d = loader.load("d");
+            assertEquals("D", d.get(1, TimeUnit.SECONDS));
+            assertEquals(3, bulk.batches.size());
+        }
+    }
+
+    @Test
+    public void earlyDispatchReleasesTest() throws Exception {
+        final Upper bulk = new Upper();
+        try (final HashedWheelTimer timer = new HashedWheelTimer(1, MILLISECONDS, 8, Executors.defaultThreadFactory())) {
+            final BatchLoader<String,String> loader = new BatchLoader<>(bulk, DIRECT, 2, 1, TimeUnit.HOURS, timer);
+            // The timer must not hold the batches until their window elapses
+            final WeakReference<?> full = _load(loader, false);
+            final WeakReference<?> dispatched = _load(loader, true);
+            assertEquals(2, bulk.batches.size());
+            for (int i = 0; i < 20 && (full.get() != null || dispatched.get() != null); ++i) {
+                System.gc();
+            }
+            assertNull(full.get());
+            assertNull(dispatched.get());
+        }
+    }
+
+    private static WeakReference<?> _load(final BatchLoader<String,String> loader, final boolean dispatch) throws Exception {
+        final Promise<String,Throwable,Void> a = loader.load("a");
+        if (dispatch) {
+            loader.dispatch();
+        } else {
+            loader.load("b");
+        }
+        assertEquals("A", a.get(0, MILLISECONDS));
+        return new WeakReference<>(a);
+    }
+
+    @Test
+    public void missingKeyTest() throws Exception {
+        final BatchLoader<String,String> loader = new BatchLoader<>(new BatchLoader.Bulk<String,String>() {
+            @Override
+            public Map<String,String> load(final Set<String> keys) {
+                final Map<String,String> values = new HashMap<>();
+                values.put("a", "A");
+                values.put("n", null);
+                return values;
+            }
+        }, DIRECT, 100);
+        final Promise<String,Throwable,Void> a = loader.load("a");
+        final Promise<String,Throwable,Void> b = loader.load("b");
+        final Promise<String,Throwable,Void> n = loader.load("n");
+        loader.dispatch();
+        assertEquals("A", a.get(0, MILLISECONDS));
+        assertNull(n.get(0, MILLISECONDS));
+        try {
+            b.get(0, MILLISECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof NoSuchElementException);
+        }
+    }
+
+    @Test
+    public void bulkThrowsTest() throws Exception {
+        final IllegalStateException failure = new IllegalStateException();
+        final BatchLoader<String,String> loader = new BatchLoader<>(new BatchLoader.Bulk<String,String>() {
+            @Override
+            public Map<String,String> load(final Set<String> keys) {
+                throw failure;
+            }
+        }, DIRECT, 100);
+        final Promise<String,Throwable,Void> a = loader.load("a");
+        final Promise<String,Throwable,Void> b = loader.load("b");
+        loader.dispatch();
+        for (final Promise<String,Throwable,Void> that : new Promise[]{ a, b }) {
+            try {
+                that.get(0, MILLISECONDS);
+                fail();
+            } catch (final ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        }
+    }
+
+    @Test
+    public void executorRejectedTest() throws Exception {
+        final BatchLoader<String,String> loader = new BatchLoader<>(new Upper(), new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        }, 100);
+        final Promise<String,Throwable,Void> a = loader.load("a");
+        loader.dispatch();
+        assertTrue(a.isRejected());
+    }
+
+    @Test
+    public void cancelledTest() throws Exception {
+        final Upper bulk = new Upper();
+        final BatchLoader<String,String> loader = new BatchLoader<>(bulk, DIRECT, 100);
+        final Promise<String,Throwable,Void> a = loader.load("a");
+        final Promise<String,Throwable,Void> b = loader.load("b");
+        a.cancel(true);
+        loader.dispatch();
+        assertEquals(1, bulk.batches.get(0).size());
+        assertTrue(bulk.batches.get(0).contains("b"));
+        assertTrue(b.isResolved());
+
+        loader.load("c").cancel(true);
+        loader.dispatch();
+        assertEquals(1, bulk.batches.size());
+    }
+
+    @Test
+    public void argumentTest() throws Exception {
+        try {
+            new BatchLoader<String,String>(null, DIRECT, 1);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+        try {
+            new BatchLoader<String,String>(new Upper(), null, 1);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+        try {
+            new BatchLoader<String,String>(new Upper(), DIRECT, 1).load(null);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+    }
+
+    private static final class Upper implements BatchLoader.Bulk<String,String> {
+        final List<Set<String>> batches = new ArrayList<>();
+
+        @Override
+        public synchronized Map<String,String> load(final Set<String> keys) {
+            batches.add(keys);
+            final Map<String,String> values = new HashMap<>();
+            for (final String key : keys) {
+                values.put(key, key.toUpperCase());
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.OnProgress;
+import io.machinecode.then.api.Promise;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class BoundedMapDeferredTest extends UnitTest {
+
+    @Test
+    public void orderedTest() throws Exception {
+        final Started started = new Started();
+        final Results results = new Results();
+        final BoundedMapDeferred<Integer,Integer> d = new BoundedMapDeferred<>(Arrays.asList(0, 1, 2, 3, 4, 5), started, 3, true, results);
+        assertEquals(3, started.size());
+        started.resolve(2);
+        started.resolve(1);
+        // The first result holds back the others and no more elements are taken
+        assertEquals(Collections.emptyList(), results.values);
+        assertEquals(3, started.size());
+        started.resolve(0);
+        assertEquals(Arrays.asList(0, 10, 20), results.values);
+        assertEquals(6, started.size());
+        started.resolve(5);
+        started.resolve(3);
+        started.resolve(4);
+        assertEquals(Arrays.asList(0, 10, 20, 30, 40, 50), results.values);
+        assertEquals(6, (long) d.get(0, MILLISECONDS));
+    }
+
+    @Test
+    public void unorderedTest() throws Exception {
+        final Started started = new Started();
+        final Results results = new Results();
+        final BoundedMapDeferred<Integer,Integer> d = new BoundedMapDeferred<>(Arrays.asList(0, 1, 2, 3, 4), started, 2, false, results);
+        assertEquals(2, started.size());
+        started.resolve(1);
+        assertEquals(Arrays.asList(10), results.values);
+        assertEquals(3, started.size());
+        started.resolve(2);
+        started.resolve(0);
+        assertEquals(Arrays.asList(10, 20, 0), results.values);
+        assertEquals(5, started.size());
+        assertFalse(d.isDone());
+        started.resolve(4);
+        started.resolve(3);
+        assertEquals(Arrays.asList(10, 20, 0, 40, 30), results.values);
+        assertEquals(5, (long) d.get(0, MILLISECONDS));
+    }
+
+    @Test
+    public void emptyTest() throws Exception {
+        final BoundedMapDeferred<Integer,Integer> d = new BoundedMapDeferred<>(Collections.<Integer>emptyList(), new Started(), 2, true, null);
+        assertEquals(0, (long) d.get(0, MILLISECONDS));
+    }
+
+    @Test
+    public void synchronousTest() throws Exception {
+        final int count = 1000000;
+        final AtomicLong sum = new AtomicLong();
+        final BoundedMapDeferred<Integer,Integer> d = new BoundedMapDeferred<>(new Range(count), new BoundedMapDeferred.Operation<Integer,Integer>() {
+            @Override
+            public Promise<Integer,Throwable,Void> apply(final Integer that) {
+                return new ResolvedPromise<>(that);
+            }
+        }, 4, true, new OnProgress<Integer>() {
+            private int expected = 0;
+
+            @Override
+            public void progress(final Integer that) {
+                assertEquals(expected++, (int) that);
+                sum.addAndGet(that);
+            }
+        });
+        // Completes without recursing once per element
+        assertEquals(count, (long) d.get(0, MILLISECONDS));
+        assertEquals((long) count * (count - 1) / 2, sum.get());
+    }
+
+    @Test
+    public void concurrentTest() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final AtomicInteger inFlight = new AtomicInteger();
+            final AtomicInteger max = new AtomicInteger();
+            final AtomicLong sum = new AtomicLong();
+            final BoundedMapDeferred<Integer,Integer> d = new BoundedMapDeferred<>(new Range(10000), new BoundedMapDeferred.Operation<Integer,Integer>() {
+                @Override
+                public Promise<Integer,Throwable,Void> apply(final Integer that) {
+                    final int now = inFlight.incrementAndGet();
+                    for (int seen = max.get(); now > seen && !max.compareAndSet(seen, now); seen = max.get()) {}
+                    final DeferredImpl<Integer,Throwable,Void> deferred = new DeferredImpl<>();
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            inFlight.decrementAndGet();
+                            deferred.resolve(that);
+                        }
+                    });
+                    return deferred;
+                }
+            }, 16, false, new OnProgress<Integer>() {
+                @Override
+                public void progress(final Integer that) {
+                    sum.addAndGet(that);
+                }
+            });
+            assertEquals(10000, (long) d.get(10, TimeUnit.SECONDS));
+            assertEquals(10000L * 9999 / 2, sum.get());
+            assertTrue(max.get() <= 16);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rejectTest() throws Exception {
+        final Started started = new Started();
+        final BoundedMapDeferred<Integer,Integer> d = new BoundedMapDeferred<>(Arrays.asList(0, 1, 2, 3, 4), started, 3, true, null);
+        final Exception failure = new Exception();
+        started.get(1).reject(failure);
+        assertTrue(d.isRejected());
+        try {
+            d.get(0, MILLISECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        assertTrue(started.get(0).isCancelled());
+        assertTrue(started.get(2).isCancelled());
+        assertEquals(3, started.size());
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        final Started started = new Started();
+        final BoundedMapDeferred<Integer,Integer> d = new BoundedMapDeferred<>(Arrays.asList(0, 1, 2, 3), started, 2, false, null);
+        assertTrue(d.cancel(true));
+        assertTrue(started.get(0).isCancelled());
+        assertTrue(started.get(1).isCancelled());
+        assertEquals(2, started.size());
+
+        final Started other = new Started();
+        final BoundedMapDeferred<Integer,Integer> e = new BoundedMapDeferred<>(Arrays.asList(0, 1, 2, 3), other, 2, false, null);
+        other.get(0).cancel(true);
+        assertTrue(e.isCancelled());
+        assertTrue(other.get(1).isCancelled());
+    }
+
+    @Test
+    public void iteratorThrowsTest() throws Exception {
+        final IllegalStateException failure = new IllegalStateException();
+        final Started started = new Started();
+        final BoundedMapDeferred<Integer,Integer> d = new BoundedMapDeferred<>(new Iterator<Integer>() {
+            int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (i == 2) {
+                    throw failure;
+                }
+                return i++;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        }, started, 5, true, null);
+        assertTrue(d.isRejected());
+        assertTrue(started.get(0).isCancelled());
+        assertTrue(started.get(1).isCancelled());
+    }
+
+    @Test
+    public void argumentTest() throws Exception {
+        try {
+            new BoundedMapDeferred<Integer,Integer>((Iterable<Integer>) null, new Started(), 1, true, null);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+        try {
+            new BoundedMapDeferred<Integer,Integer>(Arrays.asList(1), null, 1, true, null);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+    }
+
+    private static final class Started implements BoundedMapDeferred.Operation<Integer,Integer> {
+        final List<Deferred<Integer,Throwable,Void>> started = new ArrayList<>();
+        final List<Integer> elements = new ArrayList<>();
+
+        @Override
+        public synchronized Promise<Integer,Throwable,Void> apply(final Integer that) {
+            final Deferred<Integer,Throwable,Void> deferred = new DeferredImpl<>();
+            started.add(deferred);
+            elements.add(that);
+            return deferred;
+        }
+
+        synchronized int size() {
+            return started.size();
+        }
+
+        synchronized Deferred<Integer,Throwable,Void> get(final int index) {
+            return started.get(index);
+        }
+
+        void resolve(final int index) {
+            final int element;
+            synchronized (this) {
+                element = elements.get(index);
+            }
+            get(index).resolve(element * 10);
+        }
+    }
+
+    private static final class Results implements OnProgress<Integer> {
+        final List<Integer> values = new ArrayList<>();
+
+        @Override
+        public void progress(final Integer that) {
+            values.add(that);
+        }
+    }
+
+    private static final class Range implements Iterator<Integer> {
+        final int end;
+        int next = 0;
+
+        private Range(final int end) {
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        @Override
+        public Integer next() {
+            return next++;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.OnProgress;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class CoalescingProgressTest extends UnitTest {
+
+    @Test
+    public void executorTest() throws Exception {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                tasks.add(command);
+            }
+        };
+        final List<Integer> values = new ArrayList<>();
+        final DeferredImpl<Void,Throwable,Integer> deferred = new DeferredImpl<>();
+        deferred.onProgress(new OnProgress<Integer>() {
+            @Override
+            public void progress(final Integer that) {
+                values.add(that);
+            }
+        });
+        final CoalescingProgress<Integer> progress = new CoalescingProgress<>(deferred, executor);
+        for (int i = 0; i < 100; ++i) {
+            progress.progress(i);
+        }
+        assertEquals(1, tasks.size());
+        assertTrue(values.isEmpty());
+        tasks.poll().run();
+        assertEquals(Collections.singletonList(99), values);
+
+        progress.progress(100);
+        progress.progress(101);
+        assertEquals(1, tasks.size());
+        progress.flush();
+        assertEquals(101, (int) values.get(1));
+        // The value was taken by the flush
+        tasks.poll().run();
+        assertEquals(2, values.size());
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void concurrentExecutorTest() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final AtomicInteger active = new AtomicInteger();
+            final AtomicBoolean overlapped = new AtomicBoolean();
+            final AtomicBoolean reordered = new AtomicBoolean();
+            final AtomicInteger last = new AtomicInteger(-1);
+            final CountDownLatch latch = new CountDownLatch(1);
+            final int count = 100000;
+            final CoalescingProgress<Integer> progress = new CoalescingProgress<>(new OnProgress<Integer>() {
+                @Override
+                public void progress(final Integer that) {
+                    if (active.incrementAndGet() != 1) {
+                        overlapped.set(true);
+                    }
+                    if (that <= last.getAndSet(that)) {
+                        reordered.set(true);
+                    }
+                    Thread.yield();
+                    active.decrementAndGet();
+                    if (that == count - 1) {
+                        latch.countDown();
+                    }
+                }
+            }, executor);
+            for (int i = 0; i < count; ++i) {
+                progress.progress(i);
+                if (i % 1000 == 0) {
+                    progress.flush();
+                }
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertFalse(overlapped.get());
+            assertFalse(reordered.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void intervalTest() throws Exception {
+        final List<Integer> values = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CoalescingProgress<Integer> progress = new CoalescingProgress<>(new OnProgress<Integer>() {
+            @Override
+            public void progress(final Integer that) {
+                values.add(that);
+                if (that == 999) {
+                    latch.countDown();
+                }
+            }
+        }, 1, TimeUnit.HOURS);
+        // The first value is delivered straight away as no notification has been sent
+        progress.progress(-1);
+        assertEquals(Collections.singletonList(-1), values);
+        for (int i = 0; i < 1000; ++i) {
+            progress.progress(i);
+        }
+        assertEquals(1, values.size());
+        progress.flush();
+        assertTrue(latch.await(0, TimeUnit.SECONDS));
+        assertEquals(2, values.size());
+    }
+
+    @Test
+    public void timerTest() throws Exception {
+        final List<Integer> values = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CoalescingProgress<Integer> progress = new CoalescingProgress<>(new OnProgress<Integer>() {
+            @Override
+            public void progress(final Integer that) {
+                values.add(that);
+                if (that == 999) {
+                    latch.countDown();
+                }
+            }
+        }, 20, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 1000; ++i) {
+            progress.progress(i);
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(values.size() < 1000);
+        assertEquals(999, (int) values.get(values.size() - 1));
+    }
+}
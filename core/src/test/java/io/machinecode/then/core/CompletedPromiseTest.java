@@ -0,0 +1,228 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.OnCancel;
+import io.machinecode.then.api.OnComplete;
+import io.machinecode.then.api.OnProgress;
+import io.machinecode.then.api.OnReject;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.api.Reject;
+import io.machinecode.then.api.Resolve;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class CompletedPromiseTest extends UnitTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            command.run();
+        }
+    };
+
+    @Test
+    public void resolvedTest() throws Exception {
+        final Promise<String,Throwable,Void> p = new ResolvedPromise<>("a");
+        final List<String> events = _listen(p);
+        assertEquals(Arrays.asList("resolve a", "complete 1", "resolve a", "complete 1"), events);
+        assertTrue(p.isDone());
+        assertTrue(p.isResolved());
+        assertFalse(p.isRejected());
+        assertFalse(p.isCancelled());
+        assertFalse(p.cancel(true));
+        assertFalse(p.isCancelled());
+        assertEquals("a", p.get());
+        assertEquals("a", p.get(0, TimeUnit.MILLISECONDS));
+        assertSame(p, p.orTimeout(1, TimeUnit.MILLISECONDS, new Exception()));
+
+        final Promise<Integer,Throwable,Void> next = p.then(new Resolve<String,Integer,Throwable,Void>() {
+            @Override
+            public void resolve(final String that, final Deferred<Integer,Throwable,Void> next) {
+                next.resolve(that.length());
+            }
+        });
+        assertEquals(1, (int) next.get(0, TimeUnit.MILLISECONDS));
+        final Promise<Integer,Throwable,Void> executed = p.then(DIRECT, new Resolve<String,Integer,Throwable,Void>() {
+            @Override
+            public void resolve(final String that, final Deferred<Integer,Throwable,Void> next) {
+                next.resolve(that.length() + 1);
+            }
+        });
+        assertEquals(2, (int) executed.get(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void rejectedTest() throws Exception {
+        final Exception failure = new Exception();
+        final Promise<String,Throwable,Void> p = new RejectedPromise<>(failure);
+        final List<String> events = _listen(p);
+        assertEquals(Arrays.asList("reject", "complete 2", "reject", "complete 2"), events);
+        assertTrue(p.isRejected());
+        assertFalse(p.cancel(true));
+        try {
+            p.get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        final Promise<String,String,Void> next = p.then(new Reject<String,Throwable,String,String,Void>() {
+            @Override
+            public void resolve(final String that, final Deferred<String,String,Void> next) {
+                fail();
+            }
+
+            @Override
+            public void reject(final Throwable that, final Deferred<String,String,Void> next) {
+                next.resolve("recovered");
+            }
+        });
+        assertEquals("recovered", next.get(0, TimeUnit.MILLISECONDS));
+        assertTrue(p.then(new Resolve<String,String,Throwable,Void>() {
+            @Override
+            public void resolve(final String that, final Deferred<String,Throwable,Void> next) {
+                fail();
+            }
+        }).isRejected());
+    }
+
+    @Test
+    public void cancelledTest() throws Exception {
+        final Promise<String,Throwable,Void> p = CancelledPromise.of(true);
+        final List<String> events = _listen(p);
+        assertEquals(Arrays.asList("cancel true", "complete 3", "complete 3"), events);
+        assertTrue(p.isCancelled());
+        assertTrue(p.cancel(false));
+        try {
+            p.get();
+            fail();
+        } catch (final CancellationException e) {
+            //
+        }
+        assertTrue(p.then(DIRECT, new Reject<String,Throwable,String,String,Void>() {
+            @Override
+            public void resolve(final String that, final Deferred<String,String,Void> next) {
+                fail();
+            }
+
+            @Override
+            public void reject(final Throwable that, final Deferred<String,String,Void> next) {
+                fail();
+            }
+        }).isCancelled());
+        assertSame(CancelledPromise.of(true), p);
+        assertNotSame(CancelledPromise.of(false), p);
+    }
+
+    @Test
+    public void sharedTest() throws Exception {
+        assertSame(ResolvedPromise.ofNull(), ResolvedPromise.of((Object) null));
+        assertSame(ResolvedPromise.of(true), ResolvedPromise.of(Boolean.TRUE));
+        assertSame(ResolvedPromise.of(false), ResolvedPromise.of(Boolean.FALSE));
+        assertNotSame(ResolvedPromise.of(true), ResolvedPromise.of(false));
+        assertTrue(ResolvedPromise.of(true).get());
+        assertFalse(ResolvedPromise.of(false).get());
+        assertNull(ResolvedPromise.ofNull().get());
+        assertSame(Collections.emptyList(), ResolvedPromise.emptyList().get());
+        assertSame(Collections.emptySet(), ResolvedPromise.emptySet().get());
+        assertSame(Collections.emptyMap(), ResolvedPromise.emptyMap().get());
+        assertNotSame(ResolvedPromise.of("a"), ResolvedPromise.of("a"));
+    }
+
+    @Test
+    public void listenerExceptionTest() throws Exception {
+        final Promise<String,Throwable,Void> p = new ResolvedPromise<>("a");
+        try {
+            p.onResolve(new OnResolve<String>() {
+                @Override
+                public void resolve(final String that) {
+                    throw new IllegalStateException();
+                }
+            });
+            fail();
+        } catch (final IllegalStateException e) {
+            //
+        }
+        // Nothing was retained
+        final AtomicReference<String> value = new AtomicReference<>();
+        p.onResolve(new OnResolve<String>() {
+            @Override
+            public void resolve(final String that) {
+                value.set(that);
+            }
+        });
+        assertEquals("a", value.get());
+    }
+
+    private static List<String> _listen(final Promise<String,Throwable,Void> p) {
+        final List<String> events = new ArrayList<>();
+        final OnResolve<String> resolve = new OnResolve<String>() {
+            @Override
+            public void resolve(final String that) {
+                events.add("resolve " + that);
+            }
+        };
+        final OnReject<Throwable> reject = new OnReject<Throwable>() {
+            @Override
+            public void reject(final Throwable that) {
+                events.add("reject");
+            }
+        };
+        final OnCancel cancel = new OnCancel() {
+            @Override
+            public boolean cancel(final boolean interrupt) {
+                events.add("cancel " + interrupt);
+                return true;
+            }
+        };
+        final OnComplete complete = new OnComplete() {
+            @Override
+            public void complete(final int state) {
+                events.add("complete " + state);
+            }
+        };
+        final OnProgress<Void> progress = new OnProgress<Void>() {
+            @Override
+            public void progress(final Void that) {
+                events.add("progress");
+            }
+        };
+        p.onResolve(resolve)
+                .onReject(reject)
+                .onCancel(cancel)
+                .onComplete(complete)
+                .onProgress(progress)
+                .onResolve(DIRECT, resolve)
+                .onReject(DIRECT, reject)
+                .onComplete(DIRECT, complete)
+                .onProgress(DIRECT, progress);
+        return events;
+    }
+}
@@ -946,6 +946,95 @@ public class DeferredImplTest extends UnitTest {
         }
     }
 
+    @Test
+    public void waitersTest() throws Exception {
+        final DeferredImpl<String,Throwable,Void> d = new DeferredImpl<>();
+        for (int i = 0; i < 3; ++i) {
+            try {
+                d.get(1, TimeUnit.MILLISECONDS);
+                fail();
+            } catch (final TimeoutException e) {
+                //
+            }
+        }
+        final int threads = 4;
+        final CountDownLatch started = new CountDownLatch(threads);
+        final CountDownLatch finished = new CountDownLatch(threads);
+        for (int i = 0; i < threads; ++i) {
+            final boolean timed = i % 2 == 0;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        assertEquals("done", timed ? d.get(10, TimeUnit.SECONDS) : d.get());
+                        finished.countDown();
+                    } catch (final Exception e) {
+                        // The latch will time out
+                    }
+                }
+            }).start();
+        }
+        started.await();
+        Thread.sleep(50);
+        d.resolve("done");
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void interruptedWaiterTest() throws Exception {
+        final DeferredImpl<String,Throwable,Void> d = new DeferredImpl<>();
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    d.get();
+                } catch (final InterruptedException e) {
+                    interrupted.countDown();
+                } catch (final Exception e) {
+                    //
+                }
+            }
+        });
+        thread.start();
+        Thread.sleep(50);
+        thread.interrupt();
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        d.resolve("done");
+        assertEquals("done", d.get());
+    }
+
+    @Test
+    public void listenerOrderTest() throws Exception {
+        final DeferredImpl<Void,Void,Void> d = new DeferredImpl<>(1);
+        final StringBuilder order = new StringBuilder();
+        for (int i = 0; i < 5; ++i) {
+            final int index = i;
+            d.onResolve(new OnResolve<Void>() {
+                @Override
+                public void resolve(final Void that) {
+                    order.append('r').append(index);
+                }
+            }).onComplete(new OnComplete() {
+                @Override
+                public void complete(final int state) {
+                    order.append('c').append(index);
+                }
+            }).onProgress(new OnProgress<Void>() {
+                @Override
+                public void progress(final Void that) {
+                    order.append('p').append(index);
+                }
+            });
+        }
+        d.progress(null);
+        assertEquals("p0p1p2p3p4", order.toString());
+        order.setLength(0);
+        d.resolve(null);
+        assertEquals("r0r1r2r3r4c0c1c2c3c4", order.toString());
+    }
+
     @Test
     public void iteratorTest() {
         final TestItDef<Void,Void,Void> d = new TestItDef<>();
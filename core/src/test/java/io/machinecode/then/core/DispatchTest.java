@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.api.Reject;
+import io.machinecode.then.api.Resolve;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class DispatchTest extends UnitTest {
+
+    static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterClass
+    public static void after() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void batchedResolveTest() throws Exception {
+        _batchedResolve(new DeferredImpl<Object,Throwable,Void>());
+        _batchedResolve(new LockFreeDeferred<Object,Throwable,Void>());
+    }
+
+    private void _batchedResolve(final Deferred<Object,Throwable,Void> d) {
+        final Counting a = new Counting();
+        final Counting b = new Counting();
+        final Count<Object,Throwable,Void> c = new Count<>();
+        d.onResolve(a, c)
+                .onResolve(a, c)
+                .onReject(a, c)
+                .onComplete(a, c)
+                .onResolve(b, c)
+                .onComplete(b, c);
+        assertEquals(0, a.count);
+        assertEquals(0, b.count);
+        d.resolve(null);
+        assertEquals(1, a.count);
+        assertEquals(1, b.count);
+        assertEquals(5, c.count);
+
+        d.onResolve(a, c);
+        assertEquals(2, a.count);
+        assertEquals(6, c.count);
+        d.onReject(a, c);
+        assertEquals(6, c.count);
+    }
+
+    @Test
+    public void batchedRejectTest() throws Exception {
+        _batchedReject(new DeferredImpl<Object,Throwable,Void>());
+        _batchedReject(new LockFreeDeferred<Object,Throwable,Void>());
+    }
+
+    private void _batchedReject(final Deferred<Object,Throwable,Void> d) {
+        final Counting a = new Counting();
+        final Count<Object,Throwable,Void> c = new Count<>();
+        d.onReject(a, c)
+                .onResolve(a, c)
+                .onComplete(a, c);
+        d.cancel(true);
+        assertEquals(1, a.count);
+        assertEquals(1, c.count);
+
+        final Deferred<Object,Throwable,Void> r = new DeferredImpl<>();
+        r.onReject(a, c)
+                .onResolve(a, c)
+                .onComplete(a, c);
+        r.reject(new Throwable());
+        assertEquals(2, a.count);
+        assertEquals(3, c.count);
+    }
+
+    @Test
+    public void batchedProgressTest() throws Exception {
+        _batchedProgress(new DeferredImpl<Object,Throwable,Void>());
+        _batchedProgress(new LockFreeDeferred<Object,Throwable,Void>());
+    }
+
+    private void _batchedProgress(final Deferred<Object,Throwable,Void> d) {
+        final Counting a = new Counting();
+        final Count<Object,Throwable,Void> c = new Count<>();
+        d.onProgress(a, c)
+                .onProgress(a, c);
+        d.progress(null);
+        assertEquals(1, a.count);
+        assertEquals(2, c.count);
+        d.progress(null);
+        assertEquals(2, a.count);
+        assertEquals(4, c.count);
+    }
+
+    @Test
+    public void executorThreadTest() throws Exception {
+        final DeferredImpl<Object,Throwable,Void> d = new DeferredImpl<>();
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        d.onResolve(executor, new OnResolve<Object>() {
+            @Override
+            public void resolve(final Object that) {
+                thread.set(Thread.currentThread());
+                latch.countDown();
+            }
+        });
+        d.resolve(null);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertNotNull(thread.get());
+        assertNotSame(Thread.currentThread(), thread.get());
+    }
+
+    @Test
+    public void thenTest() throws Exception {
+        _then(new DeferredImpl<String,Throwable,Void>());
+        _then(new LockFreeDeferred<String,Throwable,Void>());
+    }
+
+    private void _then(final Deferred<String,Throwable,Void> d) throws Exception {
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        final Promise<Integer,Throwable,Void> p = d.then(executor, new Resolve<String,Integer,Throwable,Void>() {
+            @Override
+            public void resolve(final String that, final Deferred<Integer,Throwable,Void> next) {
+                thread.set(Thread.currentThread());
+                next.resolve(that.length());
+            }
+        });
+        d.resolve("asdf");
+        assertEquals(4, (int) p.get(1, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), thread.get());
+
+        final Counting a = new Counting();
+        final Promise<String,String,Void> r = new DeferredImpl<String,Throwable,Void>().then(a, new Reject<String,Throwable,String,String,Void>() {
+            @Override
+            public void resolve(final String that, final Deferred<String,String,Void> next) {
+                next.resolve(that);
+            }
+
+            @Override
+            public void reject(final Throwable that, final Deferred<String,String,Void> next) {
+                next.reject(that.getMessage());
+            }
+        });
+        assertFalse(r.isDone());
+    }
+
+    private static class Counting implements Executor {
+        int count = 0;
+
+        @Override
+        public void execute(final Runnable command) {
+            ++count;
+            command.run();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.DoubleDeferred;
+import io.machinecode.then.api.DoublePromise;
+import io.machinecode.then.api.DoubleResolve;
+import io.machinecode.then.api.IntDeferred;
+import io.machinecode.then.api.IntPromise;
+import io.machinecode.then.api.LongDeferred;
+import io.machinecode.then.api.LongPromise;
+import io.machinecode.then.api.OnDoubleResolve;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class DoubleDeferredImplTest extends UnitTest {
+
+    @Test
+    public void resolveTest() throws Exception {
+        final DoubleDeferredImpl<Throwable,Void> d = new DoubleDeferredImpl<>();
+        final AtomicInteger count = new AtomicInteger();
+        final Count<Object,Throwable,Void> c = new Count<>();
+        d.onResolveDouble(new OnDoubleResolve() {
+            @Override
+            public void resolve(final double that) {
+                assertEquals((double) 3, that, 0);
+                count.incrementAndGet();
+            }
+        }).onResolve(new OnResolve<Double>() {
+            @Override
+            public void resolve(final Double that) {
+                assertEquals((double) 3, that, 0);
+                count.incrementAndGet();
+            }
+        }).onComplete(c);
+        d.resolve((double) 3);
+        assertEquals(2, count.get());
+        assertEquals(1, c.count);
+        assertTrue(d.isResolved());
+        assertEquals((double) 3, d.getDouble(), 0);
+        assertEquals((double) 3, d.getDouble(1, TimeUnit.MILLISECONDS), 0);
+        assertEquals((double) 3, d.get(), 0);
+
+        d.resolve((double) 4);
+        d.reject(new Throwable());
+        assertEquals((double) 3, d.getDouble(), 0);
+        assertEquals(1, c.count);
+
+        d.onResolveDouble(new OnDoubleResolve() {
+            @Override
+            public void resolve(final double that) {
+                assertEquals((double) 3, that, 0);
+                count.incrementAndGet();
+            }
+        });
+        assertEquals(3, count.get());
+    }
+
+    @Test
+    public void boxedResolveTest() throws Exception {
+        final DoubleDeferredImpl<Throwable,Void> d = new DoubleDeferredImpl<>();
+        d.resolve(Double.valueOf((double) 7));
+        assertEquals((double) 7, d.getDouble(), 0);
+        try {
+            new DoubleDeferredImpl<Throwable,Void>().resolve((Double) null);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+    }
+
+    @Test
+    public void rejectTest() throws Exception {
+        final DoubleDeferredImpl<Throwable,Void> d = new DoubleDeferredImpl<>();
+        final Count<Object,Throwable,Void> c = new Count<>();
+        d.onResolveDouble(new OnDoubleResolve() {
+            @Override
+            public void resolve(final double that) {
+                fail();
+            }
+        }).onReject(c);
+        d.reject(new Throwable());
+        assertEquals(1, c.count);
+        try {
+            d.getDouble();
+            fail();
+        } catch (final ExecutionException e) {
+            //
+        }
+        final DoubleDeferredImpl<Throwable,Void> x = new DoubleDeferredImpl<>();
+        x.cancel(true);
+        try {
+            x.getDouble();
+            fail();
+        } catch (final CancellationException e) {
+            //
+        }
+    }
+
+    @Test
+    public void thenTest() throws Exception {
+        final DoubleDeferredImpl<Throwable,Void> d = new DoubleDeferredImpl<>();
+        final IntPromise<Throwable,Void> i = d.thenInt(new DoubleResolve<IntDeferred<Throwable,Void>>() {
+            @Override
+            public void resolve(final double that, final IntDeferred<Throwable,Void> next) {
+                next.resolve((int) that + 1);
+            }
+        });
+        final LongPromise<Throwable,Void> l = d.thenLong(new DoubleResolve<LongDeferred<Throwable,Void>>() {
+            @Override
+            public void resolve(final double that, final LongDeferred<Throwable,Void> next) {
+                next.resolve((long) that + 2);
+            }
+        });
+        final DoublePromise<Throwable,Void> f = d.thenDouble(new DoubleResolve<DoubleDeferred<Throwable,Void>>() {
+            @Override
+            public void resolve(final double that, final DoubleDeferred<Throwable,Void> next) {
+                next.resolve((double) that / 2);
+            }
+        });
+        final Promise<String,Throwable,Void> s = d.thenObject(new DoubleResolve<Deferred<String,Throwable,Void>>() {
+            @Override
+            public void resolve(final double that, final Deferred<String,Throwable,Void> next) {
+                next.resolve(String.valueOf((int) that));
+            }
+        });
+        assertFalse(i.isDone());
+        assertFalse(l.isDone());
+        assertFalse(f.isDone());
+        assertFalse(s.isDone());
+        d.resolve((double) 5);
+        assertEquals(6, i.getInt());
+        assertEquals(7L, l.getLong());
+        assertEquals(2.5, f.getDouble(), 0);
+        assertEquals("5", s.get());
+    }
+
+    @Test
+    public void thenRejectTest() throws Exception {
+        final DoubleDeferredImpl<Throwable,Void> d = new DoubleDeferredImpl<>();
+        final IntPromise<Throwable,Void> i = d.thenInt(new DoubleResolve<IntDeferred<Throwable,Void>>() {
+            @Override
+            public void resolve(final double that, final IntDeferred<Throwable,Void> next) {
+                fail();
+            }
+        });
+        final Count<Object,Throwable,Void> c = new Count<>();
+        i.onReject(c);
+        d.reject(new Throwable());
+        assertTrue(i.isRejected());
+        assertEquals(1, c.count);
+
+        final DoubleDeferredImpl<Throwable,Void> x = new DoubleDeferredImpl<>();
+        final LongPromise<Throwable,Void> l = x.thenLong(new DoubleResolve<LongDeferred<Throwable,Void>>() {
+            @Override
+            public void resolve(final double that, final LongDeferred<Throwable,Void> next) {
+                fail();
+            }
+        });
+        x.cancel(true);
+        assertTrue(l.isCancelled());
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.OnCancel;
+import io.machinecode.then.api.OnComplete;
+import io.machinecode.then.api.OnReject;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.api.Resolve;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>Checks that listeners are not retained by a deferred once it has reached a terminal state.</p>
+ *
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class FootprintTest extends UnitTest {
+
+    private static final int COUNT = 1000;
+    private static final int PAYLOAD = 4096;
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            command.run();
+        }
+    };
+
+    @Test
+    public void deferredRetainedTest() throws Exception {
+        final List<Deferred<Object,Throwable,Void>> deferreds = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; ++i) {
+            deferreds.add(new DeferredImpl<Object,Throwable,Void>());
+        }
+        _retained(deferreds);
+    }
+
+    @Test
+    public void lockFreeRetainedTest() throws Exception {
+        final List<Deferred<Object,Throwable,Void>> deferreds = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; ++i) {
+            deferreds.add(new LockFreeDeferred<Object,Throwable,Void>());
+        }
+        _retained(deferreds);
+    }
+
+    @Test
+    public void deferredListenersReleasedTest() throws Exception {
+        _listenersReleased(new DeferredImpl<Object,Throwable,Void>(), false);
+        _listenersReleased(new DeferredImpl<Object,Throwable,Void>(), true);
+    }
+
+    @Test
+    public void lockFreeListenersReleasedTest() throws Exception {
+        _listenersReleased(new LockFreeDeferred<Object,Throwable,Void>(), false);
+        _listenersReleased(new LockFreeDeferred<Object,Throwable,Void>(), true);
+    }
+
+    @Test
+    public void deferredChainReleasedTest() throws Exception {
+        _chainReleased(new DeferredImpl<String,Throwable,Void>());
+        _tailReleased(new DeferredImpl<String,Throwable,Void>());
+    }
+
+    @Test
+    public void lockFreeChainReleasedTest() throws Exception {
+        _chainReleased(new LockFreeDeferred<String,Throwable,Void>());
+        _tailReleased(new LockFreeDeferred<String,Throwable,Void>());
+    }
+
+    @Test
+    public void deferredChainRetainedTest() throws Exception {
+        final List<Deferred<Object,Throwable,Void>> heads = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; ++i) {
+            heads.add(new DeferredImpl<Object,Throwable,Void>());
+        }
+        _chainRetained(heads);
+    }
+
+    @Test
+    public void lockFreeChainRetainedTest() throws Exception {
+        final List<Deferred<Object,Throwable,Void>> heads = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; ++i) {
+            heads.add(new LockFreeDeferred<Object,Throwable,Void>());
+        }
+        _chainRetained(heads);
+    }
+
+    private static void _retained(final List<Deferred<Object,Throwable,Void>> deferreds) {
+        final List<WeakReference<Object>> refs = new ArrayList<>();
+        for (final Deferred<Object,Throwable,Void> deferred : deferreds) {
+            refs.addAll(_listen(deferred));
+        }
+        // Each listener holds a payload while its deferred is pending
+        for (final WeakReference<Object> ref : refs) {
+            assertNotNull(ref.get());
+        }
+        for (final Deferred<Object,Throwable,Void> deferred : deferreds) {
+            deferred.resolve(null);
+        }
+        for (final WeakReference<Object> ref : refs) {
+            _assertCollected(ref);
+        }
+        assertEquals(COUNT, deferreds.size());
+    }
+
+    /**
+     * <p>Compares what completed heads keep when their stages were added with {@code then} to heads with the
+     * stages registered directly as their progress and get listeners, which is how {@code then} used to add
+     * them. Each head has two stages that each resolve with a payload.</p>
+     */
+    private static void _chainRetained(final List<Deferred<Object,Throwable,Void>> heads) throws Exception {
+        final List<WeakReference<Object>> pinned = new ArrayList<>();
+        for (final Deferred<Object,Throwable,Void> head : heads) {
+            _completePinned(head, pinned);
+        }
+        // The get listeners are kept so the stages and their payloads are too
+        for (final WeakReference<Object> ref : pinned) {
+            assertNotNull(ref.get());
+        }
+        final List<WeakReference<Object>> linked = new ArrayList<>();
+        for (int i = 0; i < COUNT; ++i) {
+            heads.set(i, heads.get(i) instanceof LockFreeDeferred
+                    ? new LockFreeDeferred<Object,Throwable,Void>()
+                    : new DeferredImpl<Object,Throwable,Void>());
+            _completeLinked(heads.get(i), linked);
+        }
+        for (final WeakReference<Object> ref : linked) {
+            _assertCollected(ref);
+        }
+        assertEquals(COUNT, heads.size());
+    }
+
+    private static void _completePinned(final Deferred<Object,Throwable,Void> head, final List<WeakReference<Object>> refs) throws Exception {
+        final Deferred<Object,Throwable,Void> tail = _pinned(_pinned(head));
+        head.resolve(null);
+        refs.add(new WeakReference<Object>(tail));
+        refs.add(new WeakReference<>(tail.get()));
+    }
+
+    private static void _completeLinked(final Deferred<Object,Throwable,Void> head, final List<WeakReference<Object>> refs) throws Exception {
+        final Promise<Object,Throwable,Void> tail = head.then(new Payload()).then(new Payload());
+        head.resolve(null);
+        refs.add(new WeakReference<Object>(tail));
+        refs.add(new WeakReference<>(tail.get()));
+    }
+
+    private static Deferred<Object,Throwable,Void> _pinned(final Deferred<Object,Throwable,Void> head) {
+        final DeferredImpl<Object,Throwable,Void> next = new DeferredImpl<>();
+        head.onResolve(new OnResolve<Object>() {
+                    @Override
+                    public void resolve(final Object that) {
+                        next.resolve(new byte[PAYLOAD]);
+                    }
+                })
+                .onProgress(next)
+                .onGet(next);
+        return next;
+    }
+
+    private static void _listenersReleased(final Deferred<Object,Throwable,Void> deferred, final boolean cancel) {
+        final List<WeakReference<Object>> refs = _listen(deferred);
+        if (cancel) {
+            deferred.cancel(true);
+        } else {
+            deferred.resolve(null);
+        }
+        for (final WeakReference<Object> ref : refs) {
+            _assertCollected(ref);
+        }
+        assertTrue(deferred.isDone());
+    }
+
+    private static void _chainReleased(final Deferred<String,Throwable,Void> head) throws Exception {
+        final List<WeakReference<Object>> refs = new ArrayList<>();
+        _completeChain(head, refs);
+        // The head does not keep the callbacks, the stages after it or their values
+        for (final WeakReference<Object> ref : refs) {
+            _assertCollected(ref);
+        }
+        assertEquals("a", head.get());
+    }
+
+    private static void _completeChain(final Deferred<String,Throwable,Void> head, final List<WeakReference<Object>> refs) throws Exception {
+        final Promise<String,Throwable,Void> tail = _chain(head, refs);
+        head.resolve("a");
+        final String value = tail.get();
+        assertEquals("abc", value);
+        refs.add(new WeakReference<Object>(tail));
+        refs.add(new WeakReference<Object>(value));
+    }
+
+    private static void _tailReleased(Deferred<String,Throwable,Void> head) throws Exception {
+        final List<WeakReference<Object>> refs = new ArrayList<>();
+        final Promise<String,Throwable,Void> tail = _chain(head, refs);
+        refs.add(new WeakReference<Object>(head));
+        head.resolve("a");
+        head = null;
+        // Nothing is reachable from the last stage
+        for (final WeakReference<Object> ref : refs) {
+            _assertCollected(ref);
+        }
+        assertEquals("abc", tail.get());
+    }
+
+    private static Promise<String,Throwable,Void> _chain(final Promise<String,Throwable,Void> head, final List<WeakReference<Object>> refs) {
+        final Resolve<String,String,Throwable,Void> first = new Resolve<String,String,Throwable,Void>() {
+            @Override
+            public void resolve(final String that, final Deferred<String,Throwable,Void> next) {
+                next.resolve(that + "b");
+            }
+        };
+        final Resolve<String,String,Throwable,Void> second = new Resolve<String,String,Throwable,Void>() {
+            @Override
+            public void resolve(final String that, final Deferred<String,Throwable,Void> next) {
+                next.resolve(that + "c");
+            }
+        };
+        refs.add(new WeakReference<Object>(first));
+        refs.add(new WeakReference<Object>(second));
+        final Promise<String,Throwable,Void> mid = head.then(first);
+        refs.add(new WeakReference<Object>(mid));
+        return mid.then(second);
+    }
+
+    private static List<WeakReference<Object>> _listen(final Deferred<Object,Throwable,Void> deferred) {
+        final List<WeakReference<Object>> refs = new ArrayList<>();
+        final OnResolve<Object> resolve = new Listener();
+        final OnReject<Throwable> reject = new Listener();
+        final OnCancel cancel = new Listener();
+        final OnComplete complete = new Listener();
+        final OnResolve<Object> dispatched = new Listener();
+        deferred.onResolve(resolve)
+                .onReject(reject)
+                .onCancel(cancel)
+                .onComplete(complete)
+                .onResolve(DIRECT, dispatched);
+        refs.add(new WeakReference<Object>(resolve));
+        refs.add(new WeakReference<Object>(reject));
+        refs.add(new WeakReference<Object>(cancel));
+        refs.add(new WeakReference<Object>(complete));
+        refs.add(new WeakReference<Object>(dispatched));
+        return refs;
+    }
+
+    private static void _assertCollected(final WeakReference<?> ref) {
+        for (int i = 0; i < 20 && ref.get() != null; ++i) {
+            System.gc();
+        }
+        assertNull(ref.get());
+    }
+
+    private static final class Payload implements Resolve<Object,Object,Throwable,Void> {
+        @Override
+        public void resolve(final Object that, final Deferred<Object,Throwable,Void> next) {
+            next.resolve(new byte[PAYLOAD]);
+        }
+    }
+
+    private static final class Listener implements OnResolve<Object>, OnReject<Throwable>, OnCancel, OnComplete {
+        final byte[] payload = new byte[PAYLOAD];
+
+        @Override
+        public void resolve(final Object that) {
+            //
+        }
+
+        @Override
+        public void reject(final Throwable that) {
+            //
+        }
+
+        @Override
+        public boolean cancel(final boolean interrupt) {
+            return true;
+        }
+
+        @Override
+        public void complete(final int state) {
+            //
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.OnProgress;
+import io.machinecode.then.api.Pipeline;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.api.Resolve;
+import io.machinecode.then.api.Transform;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class FusedPipelineTest extends UnitTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            command.run();
+        }
+    };
+
+    private static final Transform<Integer,Integer> INCREMENT = new Transform<Integer,Integer>() {
+        @Override
+        public Integer transform(final Integer that) {
+            return that + 1;
+        }
+    };
+
+    private static final Transform<Object,String> TO_STRING = new Transform<Object,String>() {
+        @Override
+        public String transform(final Object that) {
+            return String.valueOf(that);
+        }
+    };
+
+    @Test
+    public void mapTest() throws Exception {
+        _map(new DeferredImpl<Integer,Throwable,Void>());
+        _map(new LockFreeDeferred<Integer,Throwable,Void>());
+    }
+
+    @Test
+    public void resolvedTest() throws Exception {
+        final Promise<String,Throwable,Void> p = new ResolvedPromise<Integer,Throwable,Void>(1).pipeline()
+                .map(INCREMENT)
+                .map(TO_STRING)
+                .promise();
+        assertEquals("2", p.get(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void emptyTest() throws Exception {
+        final DeferredImpl<Integer,Throwable,Void> d = new DeferredImpl<>();
+        assertSame(d, d.pipeline().promise());
+    }
+
+    @Test
+    public void fusedTest() throws Exception {
+        final AtomicInteger thens = new AtomicInteger();
+        final DeferredImpl<Integer,Throwable,Void> d = new DeferredImpl<Integer,Throwable,Void>() {
+            @Override
+            public <Tx> Promise<Tx,Throwable,Void> then(final Resolve<? super Integer,Tx,Throwable,Void> then) {
+                thens.incrementAndGet();
+                return super.then(then);
+            }
+        };
+        Pipeline<Integer,Throwable,Void> pipeline = d.pipeline();
+        for (int i = 0; i < 10; ++i) {
+            pipeline = pipeline.map(INCREMENT);
+        }
+        final Promise<Integer,Throwable,Void> p = pipeline.promise();
+        assertEquals(1, thens.get());
+        assertSame(p, pipeline.promise());
+        assertEquals(1, thens.get());
+        d.resolve(0);
+        assertEquals(10, (int) p.get(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void observedTest() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final DeferredImpl<Integer,Throwable,Void> d = new DeferredImpl<>();
+        final Pipeline<Integer,Throwable,Void> first = d.pipeline().map(new Transform<Integer,Integer>() {
+            @Override
+            public Integer transform(final Integer that) {
+                calls.incrementAndGet();
+                return that + 1;
+            }
+        });
+        final Promise<Integer,Throwable,Void> intermediate = first.promise();
+        final Promise<String,Throwable,Void> last = first.map(INCREMENT).map(TO_STRING).promise();
+        d.resolve(1);
+        assertEquals(2, (int) intermediate.get(0, TimeUnit.MILLISECONDS));
+        assertEquals("3", last.get(0, TimeUnit.MILLISECONDS));
+        // The observed stage is not run again for the stages after it
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void thenTest() throws Exception {
+        final DeferredImpl<Integer,Throwable,Void> d = new DeferredImpl<>();
+        final AtomicReference<Deferred<Integer,Throwable,Void>> async = new AtomicReference<>();
+        final Promise<String,Throwable,Void> p = d.pipeline()
+                .map(INCREMENT)
+                .then(new Resolve<Integer,Integer,Throwable,Void>() {
+                    @Override
+                    public void resolve(final Integer that, final Deferred<Integer,Throwable,Void> next) {
+                        async.set(next);
+                    }
+                })
+                .map(INCREMENT)
+                .then(DIRECT, new Resolve<Integer,Integer,Throwable,Void>() {
+                    @Override
+                    public void resolve(final Integer that, final Deferred<Integer,Throwable,Void> next) {
+                        next.resolve(that * 10);
+                    }
+                })
+                .map(TO_STRING)
+                .promise();
+        d.resolve(0);
+        assertFalse(p.isDone());
+        async.get().resolve(5);
+        assertEquals("60", p.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void rejectTest() throws Exception {
+        final DeferredImpl<Integer,Throwable,Void> d = new DeferredImpl<>();
+        final Promise<String,Throwable,Void> p = d.pipeline().map(INCREMENT).map(TO_STRING).promise();
+        final Exception failure = new Exception();
+        d.reject(failure);
+        assertTrue(p.isRejected());
+        try {
+            p.get(0, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        final DeferredImpl<Integer,Throwable,Void> d = new DeferredImpl<>();
+        final Promise<String,Throwable,Void> p = d.pipeline().map(INCREMENT).map(TO_STRING).promise();
+        d.cancel(true);
+        assertTrue(p.isCancelled());
+    }
+
+    @Test
+    public void progressTest() throws Exception {
+        final DeferredImpl<Integer,Throwable,String> d = new DeferredImpl<>();
+        final AtomicReference<String> progress = new AtomicReference<>();
+        d.pipeline().map(INCREMENT).promise().onProgress(new OnProgress<String>() {
+            @Override
+            public void progress(final String that) {
+                progress.set(that);
+            }
+        });
+        d.progress("half");
+        assertEquals("half", progress.get());
+    }
+
+    @Test
+    public void nullTest() throws Exception {
+        try {
+            new FusedPipeline<>(null);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+        try {
+            new DeferredImpl<Integer,Throwable,Void>().pipeline().map(null);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+    }
+
+    private static void _map(final Deferred<Integer,Throwable,Void> d) throws Exception {
+        final Promise<String,Throwable,Void> p = d.pipeline()
+                .map(INCREMENT)
+                .map(INCREMENT)
+                .map(TO_STRING)
+                .promise();
+        assertFalse(p.isDone());
+        d.resolve(1);
+        assertEquals("3", p.get(0, TimeUnit.MILLISECONDS));
+    }
+}
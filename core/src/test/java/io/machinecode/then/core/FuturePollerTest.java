@@ -0,0 +1,209 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.api.Resolve;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class FuturePollerTest extends UnitTest {
+
+    FuturePoller poller;
+
+    @Before
+    public void before() {
+        poller = new FuturePoller();
+    }
+
+    @After
+    public void after() {
+        poller.close();
+    }
+
+    @Test
+    public void resolveTest() throws Exception {
+        final FutureTask<String> future = new FutureTask<>(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return "done";
+            }
+        });
+        final Promise<String,Throwable,Void> p = poller.poll(future);
+        assertFalse(p.isDone());
+        future.run();
+        assertEquals("done", p.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void rejectTest() throws Exception {
+        final FutureTask<String> future = new FutureTask<>(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                throw new IllegalStateException();
+            }
+        });
+        final Promise<String,Throwable,Void> p = poller.poll(future);
+        future.run();
+        try {
+            p.get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            //
+        }
+        assertTrue(p.isRejected());
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        final FutureTask<String> future = new FutureTask<>(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return "done";
+            }
+        });
+        final Promise<String,Throwable,Void> p = poller.poll(future);
+        future.cancel(true);
+        try {
+            p.get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (final CancellationException e) {
+            //
+        }
+        assertTrue(p.isCancelled());
+    }
+
+    @Test
+    public void isDoneThrowsTest() throws Exception {
+        final IllegalStateException failure = new IllegalStateException();
+        final FutureTask<String> broken = new FutureTask<String>(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return "broken";
+            }
+        }) {
+            @Override
+            public boolean isDone() {
+                throw failure;
+            }
+        };
+        final Promise<String,Throwable,Void> a = poller.poll(broken);
+        try {
+            a.get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        // The poller keeps sweeping
+        final FutureTask<String> future = new FutureTask<>(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return "done";
+            }
+        });
+        final Promise<String,Throwable,Void> b = poller.poll(future);
+        future.run();
+        assertEquals("done", b.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void manyFuturesTest() throws Exception {
+        final List<FutureTask<Integer>> futures = new ArrayList<>();
+        final List<Promise<Integer,Throwable,Void>> promises = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            final int value = i;
+            final FutureTask<Integer> future = new FutureTask<>(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return value;
+                }
+            });
+            futures.add(future);
+            promises.add(poller.<Integer,Void>poll(future));
+        }
+        for (int i = futures.size() - 1; i >= 0; --i) {
+            futures.get(i).run();
+        }
+        for (int i = 0; i < promises.size(); ++i) {
+            assertEquals(i, (int) promises.get(i).get(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void promiseNotPolledTest() throws Exception {
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.shutdown();
+        // Any attempt to schedule a sweep would be rejected
+        final FuturePoller poller = new FuturePoller(scheduler, 1, 10, TimeUnit.MILLISECONDS);
+        final DeferredImpl<String,Throwable,Void> future = new DeferredImpl<>();
+        final Promise<String,Throwable,Void> p = poller.poll(future);
+        assertFalse(p.isDone());
+        future.resolve("done");
+        assertTrue(p.isResolved());
+        assertEquals("done", p.get());
+
+        final DeferredImpl<String,Throwable,Void> rejected = new DeferredImpl<>();
+        final Promise<String,Throwable,Void> r = poller.poll(rejected);
+        rejected.reject(new IllegalStateException());
+        assertTrue(r.isRejected());
+    }
+
+    @Test
+    public void promiseThenTest() throws Exception {
+        final DeferredImpl<String,Throwable,Void> future = new DeferredImpl<>();
+        final Promise<String,Throwable,Void> p = poller.poll(future);
+        final BlockingQueue<Deferred<Integer,Throwable,Void>> stages = new LinkedBlockingQueue<>();
+        final Promise<Integer,Throwable,Void> next = future.then(new Resolve<String,Integer,Throwable,Void>() {
+            @Override
+            public void resolve(final String that, final Deferred<Integer,Throwable,Void> next) {
+                // Completed later by the test
+                stages.add(next);
+            }
+        });
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                future.resolve("done");
+            }
+        });
+        thread.start();
+        // Does not wait for the then() stage
+        assertEquals("done", p.get(5, TimeUnit.SECONDS));
+        final Deferred<Integer,Throwable,Void> stage = stages.poll(5, TimeUnit.SECONDS);
+        assertNotNull(stage);
+        stage.resolve(4);
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertEquals(4, (int) next.get(0, TimeUnit.MILLISECONDS));
+    }
+}
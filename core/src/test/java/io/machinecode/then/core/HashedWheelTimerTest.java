@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class HashedWheelTimerTest extends UnitTest {
+
+    HashedWheelTimer timer;
+
+    @Before
+    public void before() {
+        // Small wheel so tasks have to wait for more than one turn
+        timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 4, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "timer-test");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @After
+    public void after() {
+        timer.close();
+    }
+
+    @Test
+    public void expireTest() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(3);
+        final long start = System.nanoTime();
+        final HashedWheelTimer.Timeout a = timer.schedule(new Latch(latch), 0, TimeUnit.MILLISECONDS);
+        final HashedWheelTimer.Timeout b = timer.schedule(new Latch(latch), 5, TimeUnit.MILLISECONDS);
+        final HashedWheelTimer.Timeout c = timer.schedule(new Latch(latch), 30, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertTrue(a.isExpired());
+        assertTrue(b.isExpired());
+        assertTrue(c.isExpired());
+        assertFalse(c.cancel());
+        assertFalse(c.isCancelled());
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final HashedWheelTimer.Timeout a = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                count.incrementAndGet();
+            }
+        }, 20, TimeUnit.MILLISECONDS);
+        assertTrue(a.cancel());
+        assertTrue(a.cancel());
+        assertTrue(a.isCancelled());
+        final CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(new Latch(latch), 40, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, count.get());
+        assertFalse(a.isExpired());
+    }
+
+    @Test
+    public void taskExceptionTest() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException();
+            }
+        }, 1, TimeUnit.MILLISECONDS);
+        timer.schedule(new Latch(latch), 2, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void closedTest() throws Exception {
+        timer.close();
+        try {
+            timer.schedule(new Latch(new CountDownLatch(1)), 1, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (final IllegalStateException e) {
+            //
+        }
+    }
+
+    private static class Latch implements Runnable {
+        final CountDownLatch latch;
+
+        private Latch(final CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+            latch.countDown();
+        }
+    }
+}
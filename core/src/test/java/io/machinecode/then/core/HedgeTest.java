@@ -0,0 +1,310 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Promise;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class HedgeTest extends UnitTest {
+
+    HashedWheelTimer timer;
+    Backend backend;
+
+    @Before
+    public void before() {
+        timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 64, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "hedge-test");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        backend = new Backend();
+    }
+
+    @After
+    public void after() {
+        timer.close();
+    }
+
+    @Test
+    public void primaryTest() throws Exception {
+        final Hedge hedge = new Hedge.Builder()
+                .delay(1, TimeUnit.HOURS)
+                .maxHedgeRate(1)
+                .timer(timer)
+                .build();
+        final Promise<Integer,Throwable,Void> a = hedge.execute(backend);
+        backend.next().resolve(1);
+        assertEquals(1, (int) a.get(0, TimeUnit.MILLISECONDS));
+        assertEquals(1, hedge.getRequests());
+        assertEquals(0, hedge.getHedges());
+        assertEquals(0, hedge.getHedgeRate(), 0);
+        assertTrue(backend.started.isEmpty());
+    }
+
+    @Test
+    public void backupTest() throws Exception {
+        final Hedge hedge = new Hedge.Builder()
+                .delay(5, TimeUnit.MILLISECONDS)
+                .maxBackups(2)
+                .maxHedgeRate(2)
+                .timer(timer)
+                .build();
+        final Promise<Integer,Throwable,Void> a = hedge.execute(backend);
+        final DeferredImpl<Integer,Throwable,Void> primary = backend.next();
+        final DeferredImpl<Integer,Throwable,Void> first = backend.next();
+        final DeferredImpl<Integer,Throwable,Void> second = backend.next();
+        assertFalse(a.isDone());
+        first.resolve(2);
+        // The backup's listeners may still be being added by the timer
+        assertEquals(2, (int) a.get(5, TimeUnit.SECONDS));
+        // The losers are cancelled
+        assertTrue(primary.isCancelled());
+        // May still be being started by the timer
+        try {
+            second.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (final CancellationException e) {
+            //
+        }
+        assertEquals(2, hedge.getHedges());
+        assertEquals(1, hedge.getHedgeWins());
+        assertEquals(2, hedge.getHedgeRate(), 0);
+        // No more backups once resolved
+        Thread.sleep(20);
+        assertTrue(backend.started.isEmpty());
+    }
+
+    @Test
+    public void rejectTest() throws Exception {
+        final Exception failure = new Exception();
+        final Hedge slow = new Hedge.Builder()
+                .delay(1, TimeUnit.HOURS)
+                .maxHedgeRate(1)
+                .timer(timer)
+                .build();
+        final Promise<Integer,Throwable,Void> a = slow.execute(backend);
+        backend.next().reject(failure);
+        _assertRejected(failure, a);
+        assertEquals(0, slow.getHedges());
+
+        final Hedge hedge = new Hedge.Builder()
+                .delay(5, TimeUnit.MILLISECONDS)
+                .maxHedgeRate(1)
+                .timer(timer)
+                .build();
+
+        final Exception last = new Exception();
+        final Promise<Integer,Throwable,Void> b = hedge.execute(backend);
+        final DeferredImpl<Integer,Throwable,Void> primary = backend.next();
+        final DeferredImpl<Integer,Throwable,Void> backup = backend.next();
+        primary.reject(failure);
+        assertFalse(b.isDone());
+        backup.reject(last);
+        _assertRejected(last, b);
+        assertEquals(1, hedge.getHedges());
+        assertEquals(0, hedge.getHedgeWins());
+    }
+
+    @Test
+    public void callTest() throws Exception {
+        final Hedge hedge = new Hedge.Builder()
+                .delay(1, TimeUnit.HOURS)
+                .timer(timer)
+                .build();
+        final Exception failure = new Exception();
+        _assertRejected(failure, hedge.execute(new Callable<Promise<Integer,Throwable,Void>>() {
+            @Override
+            public Promise<Integer,Throwable,Void> call() throws Exception {
+                throw failure;
+            }
+        }));
+        assertTrue(hedge.execute(new Callable<Promise<Integer,Throwable,Void>>() {
+            @Override
+            public Promise<Integer,Throwable,Void> call() throws Exception {
+                return null;
+            }
+        }).isRejected());
+    }
+
+    @Test
+    public void throttleTest() throws Exception {
+        final Hedge hedge = new Hedge.Builder()
+                .delay(1, TimeUnit.MILLISECONDS)
+                .maxHedgeRate(0.5)
+                .timer(timer)
+                .build();
+        final Promise<Integer,Throwable,Void> a = hedge.execute(backend);
+        backend.next();
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (hedge.getThrottled() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, hedge.getThrottled());
+        assertEquals(0, hedge.getHedges());
+
+        // The second request fills the budget
+        final Promise<Integer,Throwable,Void> b = hedge.execute(backend);
+        backend.next();
+        backend.next().resolve(2);
+        assertEquals(2, (int) b.get(5, TimeUnit.SECONDS));
+        assertEquals(1, hedge.getHedges());
+        assertEquals(0.5, hedge.getHedgeRate(), 0);
+        assertFalse(a.isDone());
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        final Hedge hedge = new Hedge.Builder()
+                .delay(50, TimeUnit.MILLISECONDS)
+                .maxHedgeRate(1)
+                .timer(timer)
+                .build();
+        final Promise<Integer,Throwable,Void> a = hedge.execute(backend);
+        final DeferredImpl<Integer,Throwable,Void> primary = backend.next();
+        assertTrue(a.cancel(true));
+        assertTrue(primary.isCancelled());
+        Thread.sleep(100);
+        assertTrue(backend.started.isEmpty());
+        assertEquals(0, hedge.getHedges());
+
+        // An attempt cancelled elsewhere counts as a failure
+        final Promise<Integer,Throwable,Void> b = hedge.execute(backend);
+        assertTrue(backend.next().cancel(true));
+        try {
+            b.get(0, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof CancellationException);
+        }
+    }
+
+    @Test
+    public void percentileTest() throws Exception {
+        final ManualTicker ticker = new ManualTicker();
+        final Hedge hedge = new Hedge.Builder()
+                .delay(1, TimeUnit.HOURS)
+                .percentile(0.5)
+                .timer(timer)
+                .ticker(ticker)
+                .build();
+        for (int i = 1; i <= 16; ++i) {
+            assertEquals(TimeUnit.HOURS.toNanos(1), hedge.getDelay());
+            final Promise<Integer,Throwable,Void> a = hedge.execute(backend);
+            ticker.advance(TimeUnit.MILLISECONDS.toNanos(17 - i));
+            backend.next().resolve(i);
+            assertTrue(a.isResolved());
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(8), hedge.getDelay());
+    }
+
+    @Test
+    public void backupPercentileTest() throws Exception {
+        final ManualTicker ticker = new ManualTicker();
+        final Hedge hedge = new Hedge.Builder()
+                .delay(1, TimeUnit.MILLISECONDS)
+                .percentile(0.5)
+                .maxHedgeRate(1)
+                .timer(timer)
+                .ticker(ticker)
+                .build();
+        for (int i = 0; i < 16; ++i) {
+            final Promise<Integer,Throwable,Void> a = hedge.execute(backend);
+            backend.next();
+            ticker.advance(TimeUnit.MILLISECONDS.toNanos(10));
+            final DeferredImpl<Integer,Throwable,Void> backup = backend.next();
+            ticker.advance(TimeUnit.MILLISECONDS.toNanos(1));
+            backup.resolve(i);
+            assertEquals(i, (int) a.get(5, TimeUnit.SECONDS));
+        }
+        // The last sample may still be being taken by the timer thread
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (hedge.getDelay() == TimeUnit.MILLISECONDS.toNanos(1) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        // Backups are sampled from the start of the request, not of the backup
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(11), hedge.getDelay());
+    }
+
+    @Test
+    public void argumentsTest() throws Exception {
+        try {
+            new Hedge.Builder().build();
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+        try {
+            new Hedge.Builder().percentile(0);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+        try {
+            new Hedge.Builder().maxHedgeRate(-1);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+        try {
+            new Hedge.Builder().delay(1, TimeUnit.SECONDS).build().execute(null);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+    }
+
+    private static void _assertRejected(final Throwable failure, final Promise<?,?,?> promise) throws Exception {
+        try {
+            promise.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    private static final class Backend implements Callable<Promise<Integer,Throwable,Void>> {
+        final BlockingQueue<DeferredImpl<Integer,Throwable,Void>> started = new LinkedBlockingQueue<>();
+
+        @Override
+        public Promise<Integer,Throwable,Void> call() throws Exception {
+            final DeferredImpl<Integer,Throwable,Void> that = new DeferredImpl<>();
+            started.add(that);
+            return that;
+        }
+
+        DeferredImpl<Integer,Throwable,Void> next() throws InterruptedException {
+            final DeferredImpl<Integer,Throwable,Void> that = started.poll(5, TimeUnit.SECONDS);
+            assertNotNull(that);
+            return that;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+@SuppressWarnings("unchecked")
+public class IntAllDeferredTest extends Assert {
+
+    @Test
+    public void resolveOrderTest() throws Exception {
+        final IntDeferredImpl<Throwable,Void>[] ares = new IntDeferredImpl[] {
+                new IntDeferredImpl<Throwable,Void>(),
+                new IntDeferredImpl<Throwable,Void>(),
+                new IntDeferredImpl<Throwable,Void>()
+        };
+        final Promise<int[],Throwable,Void> pres = new IntAllDeferred<>(ares);
+        final Count<?,?,?> res = new Count<>();
+        pres.onComplete(res);
+        ares[2].resolve((int) 3);
+        ares[0].resolve((int) 1);
+        assertEquals(0, res.count);
+        ares[1].resolve((int) 2);
+        assertEquals(1, res.count);
+        final AtomicBoolean done = new AtomicBoolean(false);
+        pres.onResolve(new OnResolve<int[]>() {
+            @Override
+            public void resolve(final int[] that) {
+                done.set(true);
+                assertEquals(3, that.length);
+                for (int i = 0; i < that.length; ++i) {
+                    assertEquals((int) (i + 1), that[i], 0);
+                }
+            }
+        });
+        assertTrue(done.get());
+    }
+
+    @Test
+    public void rejectTest() throws Exception {
+        final IntDeferredImpl<Throwable,Void>[] arej = new IntDeferredImpl[] {
+                new IntDeferredImpl<Throwable,Void>(),
+                new IntDeferredImpl<Throwable,Void>()
+        };
+        final Promise<int[],Throwable,Void> prej = new IntAllDeferred<>(arej);
+        final Count<?,?,?> rej = new Count<>();
+        prej.onComplete(rej);
+        arej[0].resolve((int) 1);
+        assertEquals(0, rej.count);
+        arej[1].reject(new Throwable());
+        assertEquals(1, rej.count);
+        assertTrue(prej.isRejected());
+    }
+
+    @Test
+    public void emptyTest() throws Exception {
+        final Promise<int[],Throwable,Void> p = new IntAllDeferred<>(Collections.<IntDeferredImpl<Throwable,Void>>emptyList());
+        assertTrue(p.isResolved());
+        assertEquals(0, p.get().length);
+    }
+}
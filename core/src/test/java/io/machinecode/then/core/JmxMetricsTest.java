@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.ListenerException;
+import io.machinecode.then.api.OnComplete;
+import io.machinecode.then.api.OnResolve;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class JmxMetricsTest extends UnitTest {
+
+    MBeanServer server;
+    JmxMetrics metrics;
+
+    @Before
+    public void before() {
+        server = MBeanServerFactory.newMBeanServer();
+        metrics = new JmxMetrics(server, "test");
+        Monitoring.setMetrics(metrics);
+    }
+
+    @After
+    public void after() {
+        Monitoring.setMetrics(null);
+        metrics.close();
+    }
+
+    @Test
+    public void lifecycleTest() throws Exception {
+        _lifecycle(new DeferredImpl<String,Throwable,Void>(), new DeferredImpl<String,Throwable,Void>(), new DeferredImpl<String,Throwable,Void>(), new DeferredImpl<String,Throwable,Void>());
+        _lifecycle(new LockFreeDeferred<String,Throwable,Void>(), new LockFreeDeferred<String,Throwable,Void>(), new LockFreeDeferred<String,Throwable,Void>(), new LockFreeDeferred<String,Throwable,Void>());
+    }
+
+    private void _lifecycle(final Deferred<String,Throwable,Void> a, final Deferred<String,Throwable,Void> b,
+                            final Deferred<String,Throwable,Void> c, final Deferred<String,Throwable,Void> d) throws Exception {
+        final ObjectName name = metrics.getObjectName(a.getClass());
+        assertTrue(server.isRegistered(name));
+        assertEquals(a.getClass().getName(), server.getAttribute(name, "Type"));
+        assertEquals(4L, server.getAttribute(name, "Created"));
+        assertEquals(4L, server.getAttribute(name, "Pending"));
+
+        a.resolve("a");
+        b.reject(new Exception());
+        c.cancel(true);
+        assertEquals(1L, server.getAttribute(name, "Resolved"));
+        assertEquals(1L, server.getAttribute(name, "Rejected"));
+        assertEquals(1L, server.getAttribute(name, "Cancelled"));
+        assertEquals(3L, server.getAttribute(name, "Completed"));
+        assertEquals(1L, server.getAttribute(name, "Pending"));
+        // Repeated terminal calls are not counted
+        a.resolve("a");
+        assertEquals(3L, server.getAttribute(name, "Completed"));
+
+        final long max = (Long) server.getAttribute(name, "CompletionTimeMax");
+        final long p50 = (Long) server.getAttribute(name, "CompletionTime50thPercentile");
+        final long p999 = (Long) server.getAttribute(name, "CompletionTime999thPercentile");
+        assertTrue(max > 0);
+        assertTrue(p50 > 0);
+        assertTrue(p50 <= p999);
+        assertTrue(p999 <= max);
+        assertTrue((Double) server.getAttribute(name, "CompletionsPerSecond") > 0);
+        // Reading the rate does not reset it for the next client
+        assertTrue((Double) server.getAttribute(name, "CompletionsPerSecond") > 0);
+    }
+
+    @Test
+    public void listenerFailureTest() throws Exception {
+        _listenerFailure(new DeferredImpl<String,Throwable,Void>());
+        _listenerFailure(new LockFreeDeferred<String,Throwable,Void>());
+    }
+
+    private void _listenerFailure(final Deferred<String,Throwable,Void> d) throws Exception {
+        final ObjectName name = metrics.getObjectName(d.getClass());
+        d.onResolve(new OnResolve<String>() {
+            @Override
+            public void resolve(final String that) {
+                throw new IllegalStateException();
+            }
+        }).onResolve(new OnResolve<String>() {
+            @Override
+            public void resolve(final String that) {
+                //
+            }
+        }).onComplete(new OnComplete() {
+            @Override
+            public void complete(final int state) {
+                throw new IllegalStateException();
+            }
+        });
+        try {
+            d.resolve("a");
+            fail();
+        } catch (final ListenerException e) {
+            //
+        }
+        assertEquals(3L, server.getAttribute(name, "ListenersRun"));
+        assertEquals(2L, server.getAttribute(name, "ListenerFailures"));
+        assertEquals(2.0 / 3, (Double) server.getAttribute(name, "ListenerFailureRate"), 0.0001);
+    }
+
+    @Test
+    public void disabledTest() throws Exception {
+        Monitoring.setMetrics(null);
+        final DeferredImpl<String,Throwable,Void> d = new DeferredImpl<>();
+        d.resolve("a");
+        assertFalse(server.isRegistered(metrics.getObjectName(DeferredImpl.class)));
+    }
+
+    @Test
+    public void bucketTest() throws Exception {
+        long last = -1;
+        for (long value = 0; value < 100000; ++value) {
+            final int bucket = JmxMetrics.DeferredMetrics._bucket(value);
+            final long upper = JmxMetrics.DeferredMetrics._upper(bucket);
+            assertTrue(value <= upper);
+            assertTrue(upper - value <= value / 8);
+            assertTrue(upper >= last);
+            last = upper;
+        }
+        assertTrue(JmxMetrics.DeferredMetrics._bucket(Long.MAX_VALUE) < 488);
+        assertEquals(Long.MAX_VALUE, JmxMetrics.DeferredMetrics._upper(JmxMetrics.DeferredMetrics._bucket(Long.MAX_VALUE)));
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.OnComplete;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.api.Resolve;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class LockFreeDeferredTest extends UnitTest {
+
+    @Test
+    public void promiseCompleteTest() throws Exception {
+        final LockFreeDeferred<Object,Throwable,Void> d = new LockFreeDeferred<>();
+        final Count<?,?,?> c = new Count<>();
+        d.onComplete(c);
+        assertEquals(0, c.count);
+        assertFalse(d.isDone());
+
+        d.resolve(null);
+        assertEquals(1, c.count);
+
+        d.resolve(null);
+        assertEquals(1, c.count);
+        d.reject(null);
+        assertEquals(1, c.count);
+        assertFalse(d.cancel(true));
+        assertEquals(1, c.count);
+
+        assertTrue(d.isResolved());
+        assertTrue(d.isDone());
+    }
+
+    @Test
+    public void resolveListenersCalledTest() throws Exception {
+        final LockFreeDeferred<Object,Throwable,Void> d = new LockFreeDeferred<>();
+        final Count<Object,Throwable,Void> c = new Count<>();
+        d.resolve(null);
+
+        d.onReject(c);
+        assertEquals(0, c.count);
+        d.onCancel(c);
+        assertEquals(0, c.count);
+        d.onComplete(c);
+        assertEquals(1, c.count);
+        d.onResolve(c);
+        assertEquals(2, c.count);
+
+        d.onGet(c);
+        d.get();
+        assertEquals(3, c.count);
+        d.get(10, TimeUnit.MILLISECONDS);
+        assertEquals(4, c.count);
+
+        d.onProgress(c);
+        assertEquals(4, c.count);
+        d.progress(null);
+        assertEquals(5, c.count);
+    }
+
+    @Test
+    public void listenerOrderTest() throws Exception {
+        final LockFreeDeferred<Object,Throwable,Void> d = new LockFreeDeferred<>();
+        final List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 5; ++i) {
+            final int n = i;
+            d.onComplete(new OnComplete() {
+                @Override
+                public void complete(final int state) {
+                    order.add(n);
+                }
+            });
+        }
+        d.cancel(true);
+        assertEquals(5, order.size());
+        for (int i = 0; i < 5; ++i) {
+            assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    @Test
+    public void getTest() throws Exception {
+        {
+            final LockFreeDeferred<Object,Throwable,Void> d = new LockFreeDeferred<>();
+            d.reject(new Throwable());
+            try {
+                d.get();
+                fail();
+            } catch (final ExecutionException e) {
+                //
+            }
+        }
+        {
+            final LockFreeDeferred<Object,Throwable,Void> d = new LockFreeDeferred<>();
+            d.cancel(true);
+            try {
+                d.get(10, TimeUnit.MILLISECONDS);
+                fail();
+            } catch (final CancellationException e) {
+                //
+            }
+        }
+        {
+            final LockFreeDeferred<Object,Throwable,Void> d = new LockFreeDeferred<>();
+            try {
+                d.get(10, TimeUnit.MILLISECONDS);
+                fail();
+            } catch (final TimeoutException e) {
+                //
+            }
+        }
+    }
+
+    @Test
+    public void awaitTest() throws Exception {
+        final LockFreeDeferred<Object,Throwable,Void> d = new LockFreeDeferred<>();
+        final Object val = new Object();
+        final CountDownLatch latch = new CountDownLatch(1);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                d.resolve(val);
+            }
+        }).start();
+        try {
+            d.get(10, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (final TimeoutException e) {
+            latch.countDown();
+        }
+        assertSame(val, d.get());
+    }
+
+    @Test
+    public void abandonedWaiterTest() throws Exception {
+        final LockFreeDeferred<Object,Throwable,Void> d = new LockFreeDeferred<>();
+        // Waiters that gave up do not keep their thread while the deferred is pending
+        _assertCollected(_abandon(d));
+        assertFalse(d.isDone());
+        final Object val = new Object();
+        d.resolve(val);
+        assertSame(val, d.get(0, TimeUnit.MILLISECONDS));
+    }
+
+    private static WeakReference<?>[] _abandon(final LockFreeDeferred<Object,Throwable,Void> d) throws Exception {
+        final Thread timeout = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 100; ++i) {
+                    try {
+                        d.get(1, TimeUnit.MILLISECONDS);
+                        fail();
+                    } catch (final TimeoutException e) {
+                        //
+                    } catch (final Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+        });
+        final CountDownLatch parked = new CountDownLatch(1);
+        final Thread interrupted = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                parked.countDown();
+                try {
+                    d.get();
+                    fail();
+                } catch (final InterruptedException e) {
+                    //
+                } catch (final Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        timeout.start();
+        interrupted.start();
+        parked.await();
+        Thread.sleep(10);
+        interrupted.interrupt();
+        timeout.join();
+        interrupted.join();
+        return new WeakReference<?>[]{ new WeakReference<>(timeout), new WeakReference<>(interrupted) };
+    }
+
+    @Test
+    public void concurrentWaitersTest() throws Exception {
+        final int threads = 8;
+        for (int run = 0; run < 20; ++run) {
+            final LockFreeDeferred<Object,Throwable,Void> d = new LockFreeDeferred<>();
+            final Object val = new Object();
+            final AtomicInteger woken = new AtomicInteger();
+            final CountDownLatch end = new CountDownLatch(threads);
+            for (int i = 0; i < threads; ++i) {
+                final boolean timed = i % 2 == 0;
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (;;) {
+                                try {
+                                    // Timed waiters leave and rejoin while the others stay parked
+                                    if (timed ? d.get(50, TimeUnit.MICROSECONDS) == val : d.get() == val) {
+                                        woken.incrementAndGet();
+                                    }
+                                    return;
+                                } catch (final TimeoutException e) {
+                                    //
+                                }
+                            }
+                        } catch (final Exception e) {
+                            throw new RuntimeException(e);
+                        } finally {
+                            end.countDown();
+                        }
+                    }
+                }).start();
+            }
+            Thread.sleep(5);
+            d.resolve(val);
+            assertTrue(end.await(10, TimeUnit.SECONDS));
+            assertEquals(threads, woken.get());
+        }
+    }
+
+    private static void _assertCollected(final WeakReference<?>... refs) {
+        for (final WeakReference<?> ref : refs) {
+            for (int i = 0; i < 20 && ref.get() != null; ++i) {
+                System.gc();
+            }
+            assertNull(ref.get());
+        }
+    }
+
+    @Test
+    public void thenTest() throws Exception {
+        final LockFreeDeferred<String,Throwable,Void> d = new LockFreeDeferred<>();
+        final Promise<Integer,Throwable,Void> p = d.then(new Resolve<String,Integer,Throwable,Void>() {
+            @Override
+            public void resolve(final String that, final Deferred<Integer,Throwable,Void> next) {
+                next.resolve(that.length());
+            }
+        });
+        assertFalse(p.isDone());
+        d.resolve("asdf");
+        assertTrue(p.isResolved());
+        assertEquals(4, (int) p.get());
+    }
+
+    @Test
+    public void concurrentCompletionTest() throws Exception {
+        final int threads = 8;
+        final int listeners = 1000;
+        for (int run = 0; run < 20; ++run) {
+            final LockFreeDeferred<Object,Throwable,Void> d = new LockFreeDeferred<>();
+            final AtomicInteger resolved = new AtomicInteger();
+            final AtomicInteger completed = new AtomicInteger();
+            final CountDownLatch start = new CountDownLatch(1);
+            final CountDownLatch end = new CountDownLatch(threads);
+            for (int i = 0; i < threads; ++i) {
+                final int n = i;
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                            for (int j = 0; j < listeners; ++j) {
+                                d.onResolve(new OnResolve<Object>() {
+                                    @Override
+                                    public void resolve(final Object that) {
+                                        resolved.incrementAndGet();
+                                    }
+                                }).onComplete(new OnComplete() {
+                                    @Override
+                                    public void complete(final int state) {
+                                        completed.incrementAndGet();
+                                    }
+                                });
+                                if (j == listeners / 2) {
+                                    if (n % 2 == 0) {
+                                        d.resolve(n);
+                                    } else {
+                                        d.cancel(true);
+                                    }
+                                }
+                            }
+                        } catch (final InterruptedException e) {
+                            throw new RuntimeException(e);
+                        } finally {
+                            end.countDown();
+                        }
+                    }
+                }).start();
+            }
+            start.countDown();
+            end.await();
+            assertTrue(d.isDone());
+            assertEquals(threads * listeners, completed.get());
+            assertEquals(d.isResolved() ? threads * listeners : 0, resolved.get());
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.DoubleDeferred;
+import io.machinecode.then.api.DoublePromise;
+import io.machinecode.then.api.IntDeferred;
+import io.machinecode.then.api.IntPromise;
+import io.machinecode.then.api.LongDeferred;
+import io.machinecode.then.api.LongPromise;
+import io.machinecode.then.api.LongResolve;
+import io.machinecode.then.api.OnLongResolve;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class LongDeferredImplTest extends UnitTest {
+
+    @Test
+    public void resolveTest() throws Exception {
+        final LongDeferredImpl<Throwable,Void> d = new LongDeferredImpl<>();
+        final AtomicInteger count = new AtomicInteger();
+        final Count<Object,Throwable,Void> c = new Count<>();
+        d.onResolveLong(new OnLongResolve() {
+            @Override
+            public void resolve(final long that) {
+                assertEquals((long) 3, that, 0);
+                count.incrementAndGet();
+            }
+        }).onResolve(new OnResolve<Long>() {
+            @Override
+            public void resolve(final Long that) {
+                assertEquals((long) 3, that, 0);
+                count.incrementAndGet();
+            }
+        }).onComplete(c);
+        d.resolve((long) 3);
+        assertEquals(2, count.get());
+        assertEquals(1, c.count);
+        assertTrue(d.isResolved());
+        assertEquals((long) 3, d.getLong(), 0);
+        assertEquals((long) 3, d.getLong(1, TimeUnit.MILLISECONDS), 0);
+        assertEquals((long) 3, d.get(), 0);
+
+        d.resolve((long) 4);
+        d.reject(new Throwable());
+        assertEquals((long) 3, d.getLong(), 0);
+        assertEquals(1, c.count);
+
+        d.onResolveLong(new OnLongResolve() {
+            @Override
+            public void resolve(final long that) {
+                assertEquals((long) 3, that, 0);
+                count.incrementAndGet();
+            }
+        });
+        assertEquals(3, count.get());
+    }
+
+    @Test
+    public void boxedResolveTest() throws Exception {
+        final LongDeferredImpl<Throwable,Void> d = new LongDeferredImpl<>();
+        d.resolve(Long.valueOf((long) 7));
+        assertEquals((long) 7, d.getLong(), 0);
+        try {
+            new LongDeferredImpl<Throwable,Void>().resolve((Long) null);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+    }
+
+    @Test
+    public void rejectTest() throws Exception {
+        final LongDeferredImpl<Throwable,Void> d = new LongDeferredImpl<>();
+        final Count<Object,Throwable,Void> c = new Count<>();
+        d.onResolveLong(new OnLongResolve() {
+            @Override
+            public void resolve(final long that) {
+                fail();
+            }
+        }).onReject(c);
+        d.reject(new Throwable());
+        assertEquals(1, c.count);
+        try {
+            d.getLong();
+            fail();
+        } catch (final ExecutionException e) {
+            //
+        }
+        final LongDeferredImpl<Throwable,Void> x = new LongDeferredImpl<>();
+        x.cancel(true);
+        try {
+            x.getLong();
+            fail();
+        } catch (final CancellationException e) {
+            //
+        }
+    }
+
+    @Test
+    public void thenTest() throws Exception {
+        final LongDeferredImpl<Throwable,Void> d = new LongDeferredImpl<>();
+        final IntPromise<Throwable,Void> i = d.thenInt(new LongResolve<IntDeferred<Throwable,Void>>() {
+            @Override
+            public void resolve(final long that, final IntDeferred<Throwable,Void> next) {
+                next.resolve((int) that + 1);
+            }
+        });
+        final LongPromise<Throwable,Void> l = d.thenLong(new LongResolve<LongDeferred<Throwable,Void>>() {
+            @Override
+            public void resolve(final long that, final LongDeferred<Throwable,Void> next) {
+                next.resolve((long) that + 2);
+            }
+        });
+        final DoublePromise<Throwable,Void> f = d.thenDouble(new LongResolve<DoubleDeferred<Throwable,Void>>() {
+            @Override
+            public void resolve(final long that, final DoubleDeferred<Throwable,Void> next) {
+                next.resolve((double) that / 2);
+            }
+        });
+        final Promise<String,Throwable,Void> s = d.thenObject(new LongResolve<Deferred<String,Throwable,Void>>() {
+            @Override
+            public void resolve(final long that, final Deferred<String,Throwable,Void> next) {
+                next.resolve(String.valueOf((int) that));
+            }
+        });
+        assertFalse(i.isDone());
+        assertFalse(l.isDone());
+        assertFalse(f.isDone());
+        assertFalse(s.isDone());
+        d.resolve((long) 5);
+        assertEquals(6, i.getInt());
+        assertEquals(7L, l.getLong());
+        assertEquals(2.5, f.getDouble(), 0);
+        assertEquals("5", s.get());
+    }
+
+    @Test
+    public void thenRejectTest() throws Exception {
+        final LongDeferredImpl<Throwable,Void> d = new LongDeferredImpl<>();
+        final IntPromise<Throwable,Void> i = d.thenInt(new LongResolve<IntDeferred<Throwable,Void>>() {
+            @Override
+            public void resolve(final long that, final IntDeferred<Throwable,Void> next) {
+                fail();
+            }
+        });
+        final Count<Object,Throwable,Void> c = new Count<>();
+        i.onReject(c);
+        d.reject(new Throwable());
+        assertTrue(i.isRejected());
+        assertEquals(1, c.count);
+
+        final LongDeferredImpl<Throwable,Void> x = new LongDeferredImpl<>();
+        final LongPromise<Throwable,Void> l = x.thenLong(new LongResolve<LongDeferred<Throwable,Void>>() {
+            @Override
+            public void resolve(final long that, final LongDeferred<Throwable,Void> next) {
+                fail();
+            }
+        });
+        x.cancel(true);
+        assertTrue(l.isCancelled());
+    }
+}
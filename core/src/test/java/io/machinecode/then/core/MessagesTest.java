@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import org.junit.Test;
+
+import java.util.Enumeration;
+import java.util.Formatter;
+import java.util.Locale;
+import java.util.MissingFormatArgumentException;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class MessagesTest extends UnitTest {
+
+    @Test
+    public void formatterTest() throws Exception {
+        final ResourceBundle bundle = ResourceBundle.getBundle("ThenMessages", Locale.ENGLISH, Messages.class.getClassLoader());
+        final Enumeration<String> keys = bundle.getKeys();
+        while (keys.hasMoreElements()) {
+            final String key = keys.nextElement();
+            final String expected = key.split("\\.")[0] + ": " + bundle.getString(key);
+            assertEquals(expected, Messages.get(key));
+            assertEquals(bundle.getString(key), Messages.raw(key));
+            assertEquals(new Formatter().format(expected, "a", null, 1).toString(), Messages.format(key, "a", null, 1));
+        }
+    }
+
+    @Test
+    public void missingTest() throws Exception {
+        try {
+            Messages.get("THEN-999999.not.a.message");
+            fail();
+        } catch (final MissingResourceException e) {
+            assertEquals("THEN-999999.not.a.message", e.getKey());
+        }
+        try {
+            Messages.format("THEN-000400.promise.argument.required");
+            fail();
+        } catch (final MissingFormatArgumentException e) {
+            //
+        }
+    }
+}
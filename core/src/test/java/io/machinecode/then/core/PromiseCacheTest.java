@@ -0,0 +1,323 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.Promise;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class PromiseCacheTest extends UnitTest {
+
+    @Test
+    public void sharedLoadTest() throws Exception {
+        final Loads loads = new Loads();
+        final PromiseCache<String,String> cache = new PromiseCache.Builder<String,String>()
+                .build(loads);
+        final Promise<String,Throwable,Void> a = cache.get("a");
+        assertSame(a, cache.get("a"));
+        assertEquals(1, loads.size());
+        assertFalse(a.isDone());
+        loads.resolve(0, "A");
+        assertEquals("A", a.get(0, TimeUnit.MILLISECONDS));
+        assertSame(a, cache.get("a"));
+        assertSame(a, cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+        assertEquals(1, loads.size());
+
+        final PromiseCache.Stats stats = cache.stats();
+        assertEquals(3, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(1, stats.getLoadSuccessCount());
+        assertEquals(0, stats.getLoadFailureCount());
+        assertEquals(0, stats.getEvictionCount());
+        // Weight is not tracked without a bound
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    public void sizeEvictionTest() throws Exception {
+        final PromiseCache<String,String> cache = new PromiseCache.Builder<String,String>()
+                .maximumSize(5)
+                .build(new Echo());
+        for (final String key : new String[]{ "a", "b", "c", "d", "e" }) {
+            cache.get(key);
+        }
+        // Read twice so they are protected
+        cache.get("a");
+        cache.get("b");
+        for (final String key : new String[]{ "f", "g", "h", "i", "j" }) {
+            cache.get(key);
+        }
+        assertEquals(5, cache.size());
+        assertEquals(5, cache.weight());
+        assertNotNull(cache.getIfPresent("a"));
+        assertNotNull(cache.getIfPresent("b"));
+        assertNull(cache.getIfPresent("c"));
+        assertNotNull(cache.getIfPresent("j"));
+        assertEquals(5, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    public void weightEvictionTest() throws Exception {
+        final Loads loads = new Loads();
+        final PromiseCache<String,String> cache = new PromiseCache.Builder<String,String>()
+                .maximumWeight(10, new PromiseCache.Weigher<String,String>() {
+                    @Override
+                    public int weigh(final String key, final String value) {
+                        return value.length();
+                    }
+                })
+                .build(loads);
+        cache.get("a");
+        cache.get("b");
+        // Loading entries have no weight
+        assertEquals(0, cache.weight());
+        loads.resolve(0, "aaaa");
+        loads.resolve(1, "bbbb");
+        assertEquals(8, cache.weight());
+        cache.get("c");
+        loads.resolve(2, "cccc");
+        assertEquals(8, cache.weight());
+        assertEquals(2, cache.size());
+        assertNull(cache.getIfPresent("a"));
+        assertEquals(1, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    public void expireAfterWriteTest() throws Exception {
+        final ManualTicker ticker = new ManualTicker();
+        final Loads loads = new Loads();
+        final PromiseCache<String,String> cache = new PromiseCache.Builder<String,String>()
+                .expireAfterWrite(10, NANOSECONDS)
+                .ticker(ticker)
+                .build(loads);
+        final Promise<String,Throwable,Void> a = cache.get("a");
+        ticker.advance(100);
+        // Does not expire while loading
+        assertSame(a, cache.get("a"));
+        loads.resolve(0, "A");
+        ticker.advance(9);
+        assertSame(a, cache.get("a"));
+        ticker.advance(1);
+        final Promise<String,Throwable,Void> b = cache.get("a");
+        assertNotSame(a, b);
+        assertEquals(2, loads.size());
+        assertEquals(1, cache.stats().getEvictionCount());
+
+        loads.resolve(1, "B");
+        ticker.advance(10);
+        cache.cleanUp();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void refreshAfterWriteTest() throws Exception {
+        final ManualTicker ticker = new ManualTicker();
+        final Loads loads = new Loads();
+        final PromiseCache<String,String> cache = new PromiseCache.Builder<String,String>()
+                .refreshAfterWrite(10, NANOSECONDS)
+                .expireAfterWrite(100, NANOSECONDS)
+                .ticker(ticker)
+                .build(loads);
+        cache.get("a");
+        loads.resolve(0, "A");
+        ticker.advance(10);
+        // The old value is returned while the refresh is running
+        assertEquals("A", cache.get("a").get(0, TimeUnit.MILLISECONDS));
+        assertEquals("A", cache.get("a").get(0, TimeUnit.MILLISECONDS));
+        assertEquals(2, loads.size());
+        loads.resolve(1, "B");
+        assertEquals("B", cache.get("a").get(0, TimeUnit.MILLISECONDS));
+
+        // A failed refresh keeps the old value until it expires
+        ticker.advance(10);
+        assertEquals("B", cache.get("a").get(0, TimeUnit.MILLISECONDS));
+        assertEquals(3, loads.size());
+        loads.reject(2, new Exception());
+        assertEquals("B", cache.get("a").get(0, TimeUnit.MILLISECONDS));
+        assertEquals(1, cache.stats().getLoadFailureCount());
+        ticker.advance(100);
+        assertFalse(cache.get("a").isDone());
+        assertEquals(4, loads.size());
+    }
+
+    @Test
+    public void rejectTest() throws Exception {
+        final Loads loads = new Loads();
+        final PromiseCache<String,String> cache = new PromiseCache.Builder<String,String>()
+                .build(loads);
+        final Promise<String,Throwable,Void> a = cache.get("a");
+        final Exception failure = new Exception();
+        loads.reject(0, failure);
+        try {
+            a.get(0, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        assertEquals(0, cache.size());
+        assertNotSame(a, cache.get("a"));
+        assertEquals(2, loads.size());
+        assertEquals(1, cache.stats().getLoadFailureCount());
+        // A failed load is not an eviction
+        assertEquals(0, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    public void expireAfterFailureTest() throws Exception {
+        final ManualTicker ticker = new ManualTicker();
+        final Loads loads = new Loads();
+        final PromiseCache<String,String> cache = new PromiseCache.Builder<String,String>()
+                .expireAfterFailure(10, NANOSECONDS)
+                .ticker(ticker)
+                .build(loads);
+        final Promise<String,Throwable,Void> a = cache.get("a");
+        loads.reject(0, new Exception());
+        ticker.advance(9);
+        assertSame(a, cache.get("a"));
+        assertTrue(a.isRejected());
+        ticker.advance(1);
+        assertNotSame(a, cache.get("a"));
+        assertEquals(2, loads.size());
+    }
+
+    @Test
+    public void loaderThrowsTest() throws Exception {
+        final IllegalStateException failure = new IllegalStateException();
+        final PromiseCache<String,String> cache = new PromiseCache.Builder<String,String>()
+                .build(new PromiseCache.Loader<String,String>() {
+                    @Override
+                    public Promise<String,Throwable,Void> load(final String key) throws Exception {
+                        throw failure;
+                    }
+                });
+        final Promise<String,Throwable,Void> a = cache.get("a");
+        assertTrue(a.isRejected());
+        try {
+            a.get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        final Loads loads = new Loads();
+        final PromiseCache<String,String> cache = new PromiseCache.Builder<String,String>()
+                .build(loads);
+        final Promise<String,Throwable,Void> a = cache.get("a");
+        assertTrue(a.cancel(true));
+        assertTrue(loads.get(0).isCancelled());
+        assertEquals(0, cache.size());
+
+        final Promise<String,Throwable,Void> b = cache.get("a");
+        loads.get(1).cancel(true);
+        assertTrue(b.isCancelled());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    public void invalidateTest() throws Exception {
+        final PromiseCache<String,String> cache = new PromiseCache.Builder<String,String>()
+                .maximumSize(10)
+                .build(new Echo());
+        cache.get("a");
+        cache.get("b");
+        cache.invalidate("a");
+        assertNull(cache.getIfPresent("a"));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.weight());
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+        assertEquals(0, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    public void argumentTest() throws Exception {
+        try {
+            new PromiseCache.Builder<String,String>().build(null);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+        try {
+            new PromiseCache.Builder<String,String>().maximumSize(-1);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+        try {
+            new PromiseCache.Builder<String,String>().expireAfterWrite(1, null);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+        try {
+            new PromiseCache.Builder<String,String>().build(new Echo()).get(null);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+    }
+
+    private static final class Echo implements PromiseCache.Loader<String,String> {
+        @Override
+        public Promise<String,Throwable,Void> load(final String key) {
+            return new ResolvedPromise<>(key);
+        }
+    }
+
+    private static final class Loads implements PromiseCache.Loader<String,String> {
+        final List<Deferred<String,Throwable,Void>> loads = new ArrayList<>();
+
+        @Override
+        public synchronized Promise<String,Throwable,Void> load(final String key) {
+            final Deferred<String,Throwable,Void> deferred = new DeferredImpl<>();
+            loads.add(deferred);
+            return deferred;
+        }
+
+        synchronized int size() {
+            return loads.size();
+        }
+
+        synchronized Deferred<String,Throwable,Void> get(final int index) {
+            return loads.get(index);
+        }
+
+        void resolve(final int index, final String value) {
+            get(index).resolve(value);
+        }
+
+        void reject(final int index, final Throwable failure) {
+            get(index).reject(failure);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Promise;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class SingleFlightTest extends UnitTest {
+
+    @Test
+    public void sharedTest() throws Exception {
+        final Queued executor = new Queued();
+        final SingleFlight<String,Integer> flight = new SingleFlight<>(executor);
+        final Count call = new Count();
+        final Promise<Integer,Throwable,Void> a = flight.execute("a", call);
+        final Promise<Integer,Throwable,Void> b = flight.execute("a", call);
+        final Promise<Integer,Throwable,Void> c = flight.execute("c", call);
+        assertNotSame(a, b);
+        assertEquals(2, executor.size());
+        assertEquals(2, flight.size());
+        executor.runAll();
+        assertEquals(2, call.calls.get());
+        assertEquals(a.get(0, TimeUnit.MILLISECONDS), b.get(0, TimeUnit.MILLISECONDS));
+        assertTrue(c.isResolved());
+        // Released once complete
+        assertEquals(0, flight.size());
+        final Promise<Integer,Throwable,Void> d = flight.execute("a", call);
+        executor.runAll();
+        assertEquals(3, call.calls.get());
+        assertEquals(3, (int) d.get(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void rejectTest() throws Exception {
+        final Queued executor = new Queued();
+        final SingleFlight<String,Integer> flight = new SingleFlight<>(executor);
+        final Exception failure = new Exception();
+        final Callable<Integer> call = new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                throw failure;
+            }
+        };
+        final Promise<Integer,Throwable,Void> a = flight.execute("a", call);
+        final Promise<Integer,Throwable,Void> b = flight.execute("a", call);
+        executor.runAll();
+        for (final Promise<Integer,Throwable,Void> that : new Promise[]{ a, b }) {
+            try {
+                that.get(0, TimeUnit.MILLISECONDS);
+                fail();
+            } catch (final ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        }
+        assertEquals(0, flight.size());
+    }
+
+    @Test
+    public void cancelOneTest() throws Exception {
+        final Queued executor = new Queued();
+        final SingleFlight<String,Integer> flight = new SingleFlight<>(executor);
+        final Count call = new Count();
+        final Promise<Integer,Throwable,Void> a = flight.execute("a", call);
+        final Promise<Integer,Throwable,Void> b = flight.execute("a", call);
+        assertTrue(a.cancel(true));
+        assertTrue(a.isCancelled());
+        assertFalse(b.isDone());
+        assertEquals(1, flight.size());
+        executor.runAll();
+        assertEquals(1, call.calls.get());
+        assertEquals(1, (int) b.get(0, TimeUnit.MILLISECONDS));
+        assertTrue(a.isCancelled());
+    }
+
+    @Test
+    public void cancelAllTest() throws Exception {
+        final Queued executor = new Queued();
+        final SingleFlight<String,Integer> flight = new SingleFlight<>(executor);
+        final Count call = new Count();
+        final Promise<Integer,Throwable,Void> a = flight.execute("a", call);
+        final Promise<Integer,Throwable,Void> b = flight.execute("a", call);
+        a.cancel(true);
+        b.cancel(true);
+        assertEquals(0, flight.size());
+        final Promise<Integer,Throwable,Void> c = flight.execute("a", call);
+        executor.runAll();
+        // The abandoned call is not run
+        assertEquals(1, call.calls.get());
+        assertEquals(1, (int) c.get(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void executorRejectedTest() throws Exception {
+        final SingleFlight<String,Integer> flight = new SingleFlight<>(new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+        final Promise<Integer,Throwable,Void> a = flight.execute("a", new Count());
+        assertTrue(a.isRejected());
+        assertEquals(0, flight.size());
+    }
+
+    @Test
+    public void concurrentTest() throws Exception {
+        final int threads = 16;
+        final ExecutorService callers = Executors.newFixedThreadPool(threads);
+        final ExecutorService runner = Executors.newSingleThreadExecutor();
+        try {
+            final SingleFlight<String,Integer> flight = new SingleFlight<>(runner);
+            final CountDownLatch joined = new CountDownLatch(threads);
+            final CountDownLatch release = new CountDownLatch(1);
+            final AtomicInteger calls = new AtomicInteger();
+            final Callable<Integer> call = new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    release.await();
+                    return calls.incrementAndGet();
+                }
+            };
+            final List<Promise<Integer,Throwable,Void>> promises = new ArrayList<>();
+            final List<Future<Promise<Integer,Throwable,Void>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; ++i) {
+                futures.add(callers.submit(new Callable<Promise<Integer,Throwable,Void>>() {
+                    @Override
+                    public Promise<Integer,Throwable,Void> call() throws Exception {
+                        final Promise<Integer,Throwable,Void> promise = flight.execute("a", call);
+                        joined.countDown();
+                        return promise;
+                    }
+                }));
+            }
+            assertTrue(joined.await(10, TimeUnit.SECONDS));
+            release.countDown();
+            for (final Future<Promise<Integer,Throwable,Void>> future : futures) {
+                promises.add(future.get(10, TimeUnit.SECONDS));
+            }
+            for (final Promise<Integer,Throwable,Void> promise : promises) {
+                assertEquals(1, (int) promise.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            callers.shutdownNow();
+            runner.shutdownNow();
+        }
+    }
+
+    @Test
+    public void argumentTest() throws Exception {
+        try {
+            new SingleFlight<String,Integer>(null);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+        final SingleFlight<String,Integer> flight = new SingleFlight<>(new Queued());
+        try {
+            flight.execute(null, new Count());
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+        try {
+            flight.execute("a", null);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            //
+        }
+    }
+
+    private static final class Count implements Callable<Integer> {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Integer call() throws Exception {
+            return calls.incrementAndGet();
+        }
+    }
+
+    private static final class Queued implements Executor {
+        final List<Runnable> queue = new ArrayList<>();
+
+        @Override
+        public synchronized void execute(final Runnable command) {
+            queue.add(command);
+        }
+
+        synchronized int size() {
+            return queue.size();
+        }
+
+        void runAll() {
+            final List<Runnable> run;
+            synchronized (this) {
+                run = new ArrayList<>(queue);
+                queue.clear();
+            }
+            for (final Runnable runnable : run) {
+                runnable.run();
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ import org.junit.Test;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -189,4 +190,57 @@ public class SomeDeferredTest extends Assert {
         assertEquals(1, res.count);
         assertTrue(pres.isRejected());
     }
+
+    @Test
+    public void resolveOrderTest() throws Exception {
+        final DeferredImpl<Object,Throwable,Void>[] ares = new DeferredImpl[] {
+                new DeferredImpl<Object,Throwable,Void>(),
+                new DeferredImpl<Object,Throwable,Void>(),
+                new DeferredImpl<Object,Throwable,Void>(),
+                new DeferredImpl<Object,Throwable,Void>()
+        };
+        final Promise<List<Object>,Throwable,Void> pres = new SomeDeferred<>(ares);
+        final Object[] results = new Object[] { new Object(), new Object(), new Object() };
+        ares[3].resolve(results[2]);
+        ares[2].reject(new Throwable());
+        ares[1].resolve(results[1]);
+        ares[0].resolve(results[0]);
+        assertTrue(pres.isResolved());
+        final List<Object> that = pres.get();
+        assertEquals(results.length, that.size());
+        for (int i = 0; i < results.length; ++i) {
+            assertSame(results[i], that.get(i));
+        }
+    }
+
+    @Test
+    public void concurrentResolveTest() throws Exception {
+        final int size = 10000;
+        final int threads = 4;
+        final DeferredImpl<Object,Throwable,Void>[] ares = new DeferredImpl[size];
+        for (int i = 0; i < size; ++i) {
+            ares[i] = new DeferredImpl<>();
+        }
+        final Promise<List<Object>,Throwable,Void> pres = new SomeDeferred<>(ares);
+        final CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; ++t) {
+            final int offset = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = offset; i < size; i += threads) {
+                        ares[i].resolve(i);
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        assertTrue(pres.isResolved());
+        final List<Object> that = pres.get();
+        assertEquals(size, that.size());
+        for (int i = 0; i < size; ++i) {
+            assertEquals(i, that.get(i));
+        }
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.ListenerException;
+import io.machinecode.then.api.OnResolve;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class StacklessExceptionsTest extends UnitTest {
+
+    @Before
+    public void before() {
+        StacklessExceptions.setEnabled(true);
+    }
+
+    @After
+    public void after() {
+        StacklessExceptions.setEnabled(false);
+    }
+
+    @Test
+    public void cancelledTest() throws Exception {
+        _cancelled(new DeferredImpl<String,Throwable,Void>(), new DeferredImpl<String,Throwable,Void>());
+        _cancelled(new LockFreeDeferred<String,Throwable,Void>(), new LockFreeDeferred<String,Throwable,Void>());
+    }
+
+    private void _cancelled(final Deferred<String,Throwable,Void> a, final Deferred<String,Throwable,Void> b) throws Exception {
+        a.cancel(true);
+        b.cancel(true);
+        final CancellationException first = _cancellation(a);
+        assertEquals(0, first.getStackTrace().length);
+        assertEquals(Messages.format("THEN-000202.promise.cancelled"), first.getMessage());
+        // Not shared as callers may add to it
+        first.addSuppressed(new Exception());
+        final CancellationException second = _cancellation(b);
+        assertNotSame(first, second);
+        assertEquals(0, second.getSuppressed().length);
+        assertEquals(0, second.getStackTrace().length);
+
+        // Also stackless when get listeners may add to it
+        final Deferred<String,Throwable,Void> c = new DeferredImpl<>();
+        final Deferred<Void,Throwable,Void> listener = new DeferredImpl<>();
+        listener.resolve(null);
+        c.onGet(listener);
+        c.cancel(true);
+        final CancellationException other = _cancellation(c);
+        assertNotSame(first, other);
+        assertEquals(0, other.getStackTrace().length);
+    }
+
+    private static CancellationException _cancellation(final Deferred<?,?,?> that) throws Exception {
+        try {
+            that.get();
+        } catch (final CancellationException e) {
+            return e;
+        }
+        fail();
+        return null;
+    }
+
+    @Test
+    public void rejectedTest() throws Exception {
+        _rejected(new DeferredImpl<String,Throwable,Void>());
+        _rejected(new LockFreeDeferred<String,Throwable,Void>());
+    }
+
+    private void _rejected(final Deferred<String,Throwable,Void> d) throws Exception {
+        final Exception failure = new Exception();
+        d.reject(failure);
+        try {
+            d.get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(failure, e.getCause());
+            assertEquals(0, e.getStackTrace().length);
+        }
+    }
+
+    @Test
+    public void timeoutTest() throws Exception {
+        _timeout(new DeferredImpl<String,Throwable,Void>());
+        _timeout(new LockFreeDeferred<String,Throwable,Void>());
+    }
+
+    private void _timeout(final Deferred<String,Throwable,Void> d) throws Exception {
+        TimeoutException first = null;
+        for (int i = 0; i < 2; ++i) {
+            try {
+                d.get(0, TimeUnit.MILLISECONDS);
+                fail();
+            } catch (final TimeoutException e) {
+                assertEquals(0, e.getStackTrace().length);
+                assertEquals(0, e.getSuppressed().length);
+                if (first == null) {
+                    first = e;
+                    first.addSuppressed(new Exception());
+                } else {
+                    assertNotSame(first, e);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void listenerTest() throws Exception {
+        _listener(new DeferredImpl<String,Throwable,Void>());
+        _listener(new LockFreeDeferred<String,Throwable,Void>());
+    }
+
+    private void _listener(final Deferred<String,Throwable,Void> d) throws Exception {
+        final IllegalStateException failure = new IllegalStateException();
+        d.onResolve(new OnResolve<String>() {
+            @Override
+            public void resolve(final String that) {
+                throw failure;
+            }
+        });
+        try {
+            d.resolve("a");
+            fail();
+        } catch (final ListenerException e) {
+            assertSame(failure, e.getCause());
+            assertEquals(0, e.getStackTrace().length);
+            assertEquals(Messages.format("THEN-000300.promise.on.resolve.exception"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void disabledTest() throws Exception {
+        StacklessExceptions.setEnabled(false);
+        final Deferred<String,Throwable,Void> a = new DeferredImpl<>();
+        a.cancel(true);
+        final CancellationException first = _cancellation(a);
+        assertTrue(first.getStackTrace().length > 0);
+        assertNotSame(first, _cancellation(a));
+        try {
+            a.get(0, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (final CancellationException e) {
+            assertTrue(e.getStackTrace().length > 0);
+        }
+    }
+}
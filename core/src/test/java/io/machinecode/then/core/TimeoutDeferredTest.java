@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.OnProgress;
+import io.machinecode.then.api.Promise;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class TimeoutDeferredTest extends UnitTest {
+
+    @Test
+    public void orTimeoutTest() throws Exception {
+        _orTimeout(new DeferredImpl<String,Throwable,Void>());
+        _orTimeout(new LockFreeDeferred<String,Throwable,Void>());
+    }
+
+    private void _orTimeout(final Deferred<String,Throwable,Void> source) throws Exception {
+        final IllegalStateException failure = new IllegalStateException();
+        final Promise<String,Throwable,Void> p = source.orTimeout(20, TimeUnit.MILLISECONDS, failure);
+        try {
+            p.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        assertTrue(p.isRejected());
+        // The source is left alone
+        assertFalse(source.isDone());
+        source.resolve("late");
+        assertTrue(p.isRejected());
+    }
+
+    @Test
+    public void completeOnTimeoutTest() throws Exception {
+        _completeOnTimeout(new DeferredImpl<String,Throwable,Void>());
+        _completeOnTimeout(new LockFreeDeferred<String,Throwable,Void>());
+    }
+
+    private void _completeOnTimeout(final Deferred<String,Throwable,Void> source) throws Exception {
+        final Promise<String,Throwable,Void> p = source.completeOnTimeout("fallback", 20, TimeUnit.MILLISECONDS);
+        assertEquals("fallback", p.get(5, TimeUnit.SECONDS));
+        assertTrue(p.isResolved());
+        assertFalse(source.isDone());
+    }
+
+    @Test
+    public void completeBeforeTimeoutTest() throws Exception {
+        final DeferredImpl<String,Throwable,Void> source = new DeferredImpl<>();
+        final TimeoutDeferred<String,Throwable,Void> p = (TimeoutDeferred<String,Throwable,Void>)
+                source.completeOnTimeout("fallback", 1, TimeUnit.MINUTES);
+        final AtomicReference<Integer> progress = new AtomicReference<>();
+        final DeferredImpl<String,Throwable,Integer> prog = new DeferredImpl<>();
+        final Promise<String,Throwable,Integer> q = prog.orTimeout(1, TimeUnit.MINUTES, new IllegalStateException());
+        q.onProgress(new OnProgress<Integer>() {
+            @Override
+            public void progress(final Integer that) {
+                progress.set(that);
+            }
+        });
+        prog.progress(5);
+        assertEquals(5, (int) progress.get());
+
+        final HashedWheelTimer.Timeout timeout = _timeout(p);
+        assertNotNull(timeout);
+        source.resolve("value");
+        assertEquals("value", p.get(0, TimeUnit.MILLISECONDS));
+        assertTrue(timeout.isCancelled());
+        assertNull(_timeout(p));
+
+        final DeferredImpl<String,Throwable,Void> rejected = new DeferredImpl<>();
+        final IllegalArgumentException failure = new IllegalArgumentException();
+        final Promise<String,Throwable,Void> r = rejected.orTimeout(1, TimeUnit.MINUTES, new IllegalStateException());
+        rejected.reject(failure);
+        assertTrue(r.isRejected());
+        try {
+            r.get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+
+        final DeferredImpl<String,Throwable,Void> cancelled = new DeferredImpl<>();
+        final Promise<String,Throwable,Void> c = cancelled.orTimeout(1, TimeUnit.MINUTES, new IllegalStateException());
+        cancelled.cancel(true);
+        assertTrue(c.isCancelled());
+    }
+
+    @Test
+    public void alreadyDoneTest() throws Exception {
+        final DeferredImpl<String,Throwable,Void> source = new DeferredImpl<>();
+        source.resolve("value");
+        final TimeoutDeferred<String,Throwable,Void> p = (TimeoutDeferred<String,Throwable,Void>)
+                source.orTimeout(1, TimeUnit.MINUTES, new IllegalStateException());
+        assertTrue(p.isResolved());
+        assertEquals("value", p.get());
+        // Nothing was scheduled
+        assertNull(_timeout(p));
+    }
+
+    private static HashedWheelTimer.Timeout _timeout(final TimeoutDeferred<?,?,?> that) throws Exception {
+        final java.lang.reflect.Field field = TimeoutDeferred.class.getDeclaredField("timeout");
+        field.setAccessible(true);
+        return (HashedWheelTimer.Timeout) field.get(that);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 Brent Douglas and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.machinecode.then.core;
+
+import io.machinecode.then.api.Deferred;
+import io.machinecode.then.api.ListenerException;
+import io.machinecode.then.api.OnResolve;
+import io.machinecode.then.api.Promise;
+import io.machinecode.then.api.Resolve;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author <a href="mailto:brent.n.douglas@gmail.com">Brent Douglas</a>
+ * @since 1.0
+ */
+public class TrampolineTest extends UnitTest {
+
+    private static final int DEPTH = 100000;
+
+    private static final Resolve<Integer,Integer,Throwable,Void> INCREMENT = new Resolve<Integer,Integer,Throwable,Void>() {
+        @Override
+        public void resolve(final Integer that, final Deferred<Integer,Throwable,Void> next) {
+            next.resolve(that + 1);
+        }
+    };
+
+    @Before
+    public void before() {
+        Trampoline.setEnabled(true);
+    }
+
+    @After
+    public void after() {
+        Trampoline.setEnabled(false);
+    }
+
+    @Test
+    public void deepChainTest() throws Exception {
+        _deepChain(new DeferredImpl<Integer,Throwable,Void>());
+        _deepChain(new LockFreeDeferred<Integer,Throwable,Void>());
+    }
+
+    @Test
+    public void nestedGetTest() throws Exception {
+        _nestedGet(new DeferredImpl<Integer,Throwable,Void>());
+        _nestedGet(new LockFreeDeferred<Integer,Throwable,Void>());
+    }
+
+    private void _nestedGet(final Deferred<Integer,Throwable,Void> head) throws Exception {
+        final Promise<Integer,Throwable,Void> stage = head.then(INCREMENT);
+        final CountDownLatch got = new CountDownLatch(1);
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (stage.get() == 1) {
+                        got.countDown();
+                    }
+                } catch (final Exception e) {
+                    //
+                }
+            }
+        });
+        thread.start();
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        final AtomicBoolean woken = new AtomicBoolean();
+        // Runs after the stage was resolved inside the listener from then, before its listeners are dequeued
+        head.onResolve(new OnResolve<Integer>() {
+            @Override
+            public void resolve(final Integer that) {
+                try {
+                    woken.set(got.await(5, TimeUnit.SECONDS));
+                } catch (final InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        head.resolve(0);
+        thread.join();
+        assertTrue(woken.get());
+    }
+
+    private void _deepChain(final Deferred<Integer,Throwable,Void> head) throws Exception {
+        Promise<Integer,Throwable,Void> tail = head;
+        for (int i = 0; i < DEPTH; ++i) {
+            tail = tail.then(INCREMENT);
+        }
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        // A small stack to make sure the depth of the chain doesn't matter
+        final Thread thread = new Thread(null, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    head.resolve(0);
+                } catch (final Throwable e) {
+                    failure.set(e);
+                }
+            }
+        }, "trampoline", 256 * 1024);
+        thread.start();
+        thread.join();
+        assertNull(failure.get());
+        assertTrue(tail.isResolved());
+        assertEquals(DEPTH, (int) tail.get());
+    }
+
+    @Test
+    public void nestedListenerExceptionTest() throws Exception {
+        final DeferredImpl<Integer,Throwable,Void> head = new DeferredImpl<>();
+        final Promise<Integer,Throwable,Void> next = head.then(INCREMENT);
+        next.onResolve(new OnResolve<Integer>() {
+            @Override
+            public void resolve(final Integer that) {
+                throw new IllegalStateException();
+            }
+        });
+        try {
+            head.resolve(0);
+            fail();
+        } catch (final ListenerException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(next.isResolved());
+    }
+}